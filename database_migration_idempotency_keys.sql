@@ -0,0 +1,13 @@
+-- Event Management System Database Migration
+-- Adds per-user idempotency keys to bookings and payments.
+-- Run once against a database created from an earlier database_schema.sql.
+
+USE event_management;
+
+ALTER TABLE bookings
+    ADD COLUMN idempotency_key VARCHAR(64) AFTER payment_status,
+    ADD UNIQUE KEY uk_bookings_user_idempotency (user_id, idempotency_key);
+
+ALTER TABLE payments
+    ADD COLUMN idempotency_key VARCHAR(64) AFTER remarks,
+    ADD UNIQUE KEY uk_payments_user_idempotency (user_id, idempotency_key);
@@ -58,10 +58,12 @@ CREATE TABLE IF NOT EXISTS bookings (
     booking_time TIME,
     status ENUM('confirmed', 'cancelled', 'pending') DEFAULT 'confirmed',
     payment_status ENUM('paid', 'unpaid', 'refunded') DEFAULT 'unpaid',
+    idempotency_key VARCHAR(64),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(user_id),
     FOREIGN KEY (event_id) REFERENCES events(event_id),
+    UNIQUE KEY uk_bookings_user_idempotency (user_id, idempotency_key),
     INDEX idx_user_id (user_id),
     INDEX idx_event_id (event_id),
     INDEX idx_status (status),
@@ -80,10 +82,12 @@ CREATE TABLE IF NOT EXISTS payments (
     payment_time TIME,
     status ENUM('success', 'failed', 'pending', 'refunded') DEFAULT 'pending',
     remarks TEXT,
+    idempotency_key VARCHAR(64),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (booking_id) REFERENCES bookings(booking_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id),
+    UNIQUE KEY uk_payments_user_idempotency (user_id, idempotency_key),
     INDEX idx_user_id (user_id),
     INDEX idx_booking_id (booking_id),
     INDEX idx_status (status),
@@ -99,6 +103,38 @@ CREATE TABLE IF NOT EXISTS admin (
     FOREIGN KEY (user_id) REFERENCES users(user_id)
 );
 
+-- 6. Waitlist Table (users waiting for tickets to a sold-out event)
+CREATE TABLE IF NOT EXISTS waitlist (
+    waitlist_id INT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    user_name VARCHAR(100) NOT NULL,
+    event_id INT NOT NULL,
+    tickets_requested INT NOT NULL,
+    priority INT DEFAULT 0,
+    status ENUM('waiting', 'promoted', 'cancelled') DEFAULT 'waiting',
+    booking_id INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    FOREIGN KEY (event_id) REFERENCES events(event_id),
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id),
+    INDEX idx_user_id (user_id),
+    INDEX idx_event_status (event_id, status)
+);
+
+-- 7. Event Cancellations Table (checkpoints of the booking/payment cascade of cancelled events)
+CREATE TABLE IF NOT EXISTS event_cancellations (
+    event_id INT PRIMARY KEY,
+    last_booking_id INT DEFAULT 0,
+    bookings_cancelled INT DEFAULT 0,
+    payments_refunded INT DEFAULT 0,
+    status ENUM('running', 'completed') DEFAULT 'running',
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (event_id) REFERENCES events(event_id),
+    INDEX idx_status (status)
+);
+
 -- Sample Data (Optional - for testing)
 
 -- Insert sample users
@@ -0,0 +1,297 @@
+package bench;
+
+import utils.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Benchmark Data
+ * Seeds a scratch database with users, events and bookings at a chosen
+ * scale, so the hot-path benchmarks measure realistic table sizes. The
+ * scale is the number of bookings; users and events are derived from it.
+ *
+ *   10k  ->     10,000 bookings,   1,000 users,    100 events
+ *   1m   ->  1,000,000 bookings, 100,000 users, 10,000 events
+ *   10m  -> 10,000,000 bookings, 1,000,000 users, 100,000 events
+ *
+ * Seeded rows are recognisable by their names (bench_user_N, "Bench Event N")
+ * and are left in place between runs, so a large scale is only paid for once.
+ *
+ * Usage: java -cp .:mysql-connector-java-8.0.33.jar bench.BenchmarkData
+ *            seed|reset [10k|1m|10m]
+ */
+public class BenchmarkData {
+
+    static final String PASSWORD = "bench";
+
+    // One hot event with effectively unlimited tickets for the booking benchmark
+    static final int HOT_EVENT_TICKETS = 1_000_000_000;
+
+    private static final String[] CATEGORIES = { "Technology", "Music", "Art", "Business", "Sports", "Food" };
+    private static final String[] CITIES = { "Delhi", "Mumbai", "Bangalore", "Pune", "Chennai", "Hyderabad", "Kolkata" };
+    private static final String[] TOPICS = { "Conference", "Festival", "Exhibition", "Expo", "Meetup", "Workshop", "Summit" };
+
+    // Rows per multi-row INSERT, and per commit
+    private static final int ROWS_PER_STATEMENT = 1000;
+    private static final int STATEMENTS_PER_COMMIT = 10;
+
+    /**
+     * Seeded row counts for one scale
+     */
+    public enum Scale {
+        SMALL("10k", 10_000),
+        MEDIUM("1m", 1_000_000),
+        LARGE("10m", 10_000_000);
+
+        final String label;
+        final int bookings;
+        final int users;
+        final int events;
+
+        Scale(String label, int bookings) {
+            this.label = label;
+            this.bookings = bookings;
+            this.users = bookings / 10;
+            this.events = bookings / 100;
+        }
+
+        public static Scale parse(String label) {
+            for (Scale scale : values()) {
+                if (scale.label.equalsIgnoreCase(label)) {
+                    return scale;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scale '" + label + "', expected 10k, 1m or 10m");
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * IDs of the seeded rows, for picking benchmark inputs
+     */
+    public static class Fixture {
+        final Scale scale;
+        final int[] userIds;
+        final int[] eventIds;
+        final int hotEventId;
+
+        Fixture(Scale scale, int[] userIds, int[] eventIds) {
+            this.scale = scale;
+            this.userIds = userIds;
+            this.eventIds = eventIds;
+            this.hotEventId = eventIds[0];
+        }
+
+        static String username(int index) {
+            return "bench_user_" + index;
+        }
+
+        static String keyword(int index) {
+            return TOPICS[index % TOPICS.length];
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String command = args.length > 0 ? args[0] : "seed";
+        Scale scale = Scale.parse(args.length > 1 ? args[1] : System.getProperty("bench.scale", "10k"));
+
+        if ("reset".equals(command)) {
+            reset();
+        }
+        Fixture fixture = ensureSeeded(scale);
+        System.out.printf("Seeded scale %s: %d users, %d events, %d bookings%n",
+                          fixture.scale, fixture.userIds.length, fixture.eventIds.length, scale.bookings);
+        DBConnection.closeConnection();
+    }
+
+    /**
+     * Seed the database for a scale unless it already holds that data
+     * @param scale Target scale
+     * @return Fixture describing the seeded rows
+     */
+    public static Fixture ensureSeeded(Scale scale) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            int users = count(conn, "SELECT COUNT(*) FROM users WHERE username LIKE 'bench\\_user\\_%'");
+            int events = count(conn, "SELECT COUNT(*) FROM events WHERE event_name LIKE 'Bench Event %'");
+
+            if (users == 0 && events == 0) {
+                seed(conn, scale);
+            } else if (users != scale.users || events != scale.events) {
+                throw new IllegalStateException("Database holds benchmark data for another scale (" + users +
+                        " users, " + events + " events); run 'bench.BenchmarkData reset " + scale + "' first");
+            }
+
+            return new Fixture(scale,
+                    ids(conn, "SELECT user_id FROM users WHERE username LIKE 'bench\\_user\\_%' ORDER BY user_id", scale.users),
+                    ids(conn, "SELECT event_id FROM events WHERE event_name LIKE 'Bench Event %' ORDER BY event_id", scale.events));
+        }
+    }
+
+    /**
+     * Delete all seeded rows, children first
+     */
+    public static void reset() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            String benchUsers = "SELECT user_id FROM users WHERE username LIKE 'bench\\_user\\_%'";
+            long start = System.nanoTime();
+            st.executeUpdate("DELETE p FROM payments p JOIN (" + benchUsers + ") u ON u.user_id = p.user_id");
+            st.executeUpdate("DELETE b FROM bookings b JOIN (" + benchUsers + ") u ON u.user_id = b.user_id");
+            st.executeUpdate("DELETE FROM events WHERE event_name LIKE 'Bench Event %'");
+            st.executeUpdate("DELETE FROM users WHERE username LIKE 'bench\\_user\\_%'");
+            System.out.printf("Removed benchmark data in %.1fs%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static void seed(Connection conn, Scale scale) throws SQLException {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try {
+            insertRows(conn,
+                    "INSERT INTO users (username, email, password, full_name, phone, role) VALUES ",
+                    "(?, ?, ?, ?, ?, 'user')", scale.users, (pst, p, i) -> {
+                pst.setString(p++, Fixture.username(i));
+                pst.setString(p++, Fixture.username(i) + "@bench.local");
+                pst.setString(p++, PASSWORD);
+                pst.setString(p++, "Bench User " + i);
+                pst.setString(p++, String.format("9%09d", i));
+                return p;
+            });
+            int[] userIds = ids(conn, "SELECT user_id FROM users WHERE username LIKE 'bench\\_user\\_%' ORDER BY user_id", scale.users);
+
+            LocalDate firstDate = LocalDate.now().plusDays(30);
+            insertRows(conn,
+                    "INSERT INTO events (event_name, description, event_date, event_time, location, category, " +
+                    "total_tickets, tickets_available, ticket_price, organizer_id, organizer_name, status) VALUES ",
+                    "(?, ?, ?, '10:00:00', ?, ?, ?, ?, ?, ?, 'Bench User 0', ?)", scale.events, (pst, p, i) -> {
+                String category = CATEGORIES[i % CATEGORIES.length];
+                String city = CITIES[i % CITIES.length];
+                int tickets = i == 0 ? HOT_EVENT_TICKETS : 1_000_000;
+                pst.setString(p++, "Bench Event " + i + " " + category + " " + Fixture.keyword(i));
+                pst.setString(p++, "Seeded " + Fixture.keyword(i).toLowerCase() + " in " + city);
+                pst.setString(p++, firstDate.plusDays(i % 365).toString());
+                pst.setString(p++, "Venue " + (i % 50) + ", " + city);
+                pst.setString(p++, category);
+                pst.setInt(p++, tickets);
+                pst.setInt(p++, tickets);
+                pst.setDouble(p++, 100 + i % 900);
+                pst.setInt(p++, userIds[0]);
+                // Keep the hot event bookable; retire a tenth of the rest
+                pst.setString(p++, i != 0 && i % 10 == 0 ? "completed" : "active");
+                return p;
+            });
+            int[] eventIds = ids(conn, "SELECT event_id FROM events WHERE event_name LIKE 'Bench Event %' ORDER BY event_id", scale.events);
+
+            insertRows(conn,
+                    "INSERT INTO bookings (user_id, user_name, event_id, event_name, tickets_booked, total_amount, " +
+                    "booking_date, booking_time, status, payment_status) VALUES ",
+                    "(?, ?, ?, ?, ?, ?, ?, '12:00:00', ?, ?)", scale.bookings, (pst, p, i) -> {
+                int user = random.nextInt(userIds.length);
+                int event = random.nextInt(eventIds.length);
+                int tickets = 1 + random.nextInt(4);
+                boolean cancelled = random.nextInt(20) == 0;
+                pst.setInt(p++, userIds[user]);
+                pst.setString(p++, "Bench User " + user);
+                pst.setInt(p++, eventIds[event]);
+                pst.setString(p++, "Bench Event " + event);
+                pst.setInt(p++, tickets);
+                pst.setDouble(p++, tickets * (100 + event % 900));
+                pst.setString(p++, firstDate.minusDays(random.nextInt(365)).toString());
+                pst.setString(p++, cancelled ? "cancelled" : "confirmed");
+                pst.setString(p++, cancelled ? "refunded" : (random.nextBoolean() ? "paid" : "unpaid"));
+                return p;
+            });
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        System.out.printf("Seeded scale %s in %.1fs%n", scale, (System.nanoTime() - start) / 1e9);
+    }
+
+    interface RowBinder {
+        /**
+         * Bind row i starting at parameter p
+         * @return Next free parameter index
+         */
+        int bind(PreparedStatement pst, int p, int i) throws SQLException;
+    }
+
+    /**
+     * Insert rows with multi-row INSERT statements, committing every few statements
+     */
+    private static void insertRows(Connection conn, String prefix, String tuple, int rows, RowBinder binder)
+            throws SQLException {
+        String fullSql = multiRowSql(prefix, tuple, ROWS_PER_STATEMENT);
+        int statements = 0;
+        try (PreparedStatement full = conn.prepareStatement(fullSql)) {
+            int i = 0;
+            while (i < rows) {
+                int batch = Math.min(ROWS_PER_STATEMENT, rows - i);
+                PreparedStatement pst = batch == ROWS_PER_STATEMENT
+                        ? full : conn.prepareStatement(multiRowSql(prefix, tuple, batch));
+                try {
+                    int p = 1;
+                    for (int end = i + batch; i < end; i++) {
+                        p = binder.bind(pst, p, i);
+                    }
+                    pst.executeUpdate();
+                } finally {
+                    if (pst != full) {
+                        pst.close();
+                    }
+                }
+                if (++statements % STATEMENTS_PER_COMMIT == 0) {
+                    conn.commit();
+                }
+            }
+        }
+        conn.commit();
+    }
+
+    private static String multiRowSql(String prefix, String tuple, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + (tuple.length() + 2) * rows).append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.toString();
+    }
+
+    private static int count(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql);
+             ResultSet rs = pst.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int[] ids(Connection conn, String sql, int expected) throws SQLException {
+        int[] ids = new int[expected];
+        int n = 0;
+        try (PreparedStatement pst = conn.prepareStatement(sql);
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next() && n < expected) {
+                ids[n++] = rs.getInt(1);
+            }
+        }
+        if (n != expected) {
+            throw new IllegalStateException("Expected " + expected + " seeded rows but found " + n);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,129 @@
+package bench;
+
+import dao.BookingDAO;
+import dao.EventDAO;
+import model.Booking;
+import model.Event;
+import service.EventService;
+import utils.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Booking Contention Benchmark
+ * Measures bookings/sec when many threads book the same hot event, comparing
+ * the old read-then-write flow (auto-commit, three round trips) with the
+ * transactional EventService.bookEvent path.
+ *
+ * Usage: java -cp .:mysql-connector-java-8.0.33.jar bench.BookingContentionBenchmark
+ *            [eventId] [userId] [threads] [seconds]
+ *
+ * The event's ticket counts are reset to a large value before each run and
+ * the benchmark writes real bookings, so point it at a scratch database.
+ */
+public class BookingContentionBenchmark {
+
+    private static final int HOT_EVENT_TICKETS = 10_000_000;
+
+    interface BookingPath {
+        boolean book(Booking booking);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int eventId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int userId = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        EventDAO eventDAO = new EventDAO();
+        BookingDAO bookingDAO = new BookingDAO();
+
+        // Legacy flow: check, insert, then decrement, each in auto-commit
+        resetEvent(eventDAO, eventId);
+        double before = run("legacy read-then-write", threads, seconds, eventId, userId, booking -> {
+            Event event = eventDAO.getEventById(booking.getEventId());
+            if (event != null && event.getTicketsAvailable() >= booking.getTicketsBooked()) {
+                if (bookingDAO.createBooking(booking)) {
+                    return eventDAO.updateTicketAvailability(booking.getEventId(), booking.getTicketsBooked());
+                }
+            }
+            return false;
+        });
+
+        // Current flow: in-memory reservation + one transaction. The inventory
+        // is loaded when EventService is first created, so reset before that.
+        resetEvent(eventDAO, eventId);
+        EventService eventService = new EventService();
+        double after = run("transactional bookEvent", threads, seconds, eventId, userId, eventService::bookEvent);
+
+        System.out.printf("%nSpeedup: %.2fx%n", before > 0 ? after / before : 0);
+        System.out.println(DBConnection.getPoolStats());
+        DBConnection.closeConnection();
+    }
+
+    // Written directly: EventDAO.updateEvent leaves tickets_available to bookings
+    private static void resetEvent(EventDAO eventDAO, int eventId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(
+                     "UPDATE events SET total_tickets = ?, tickets_available = ?, status = 'active' WHERE event_id = ?")) {
+            pst.setInt(1, HOT_EVENT_TICKETS);
+            pst.setInt(2, HOT_EVENT_TICKETS);
+            pst.setInt(3, eventId);
+            if (pst.executeUpdate() == 0) {
+                throw new IllegalArgumentException("Event " + eventId + " not found");
+            }
+        }
+        EventDAO.getCache().invalidateAll();
+    }
+
+    private static double run(String name, int threads, int seconds, int eventId, int userId,
+                              BookingPath path) throws InterruptedException {
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    Booking booking = new Booking(userId, "Benchmark User", eventId, "Hot Event", 1, 1.0);
+                    if (path.book(booking)) {
+                        succeeded.increment();
+                    } else {
+                        failed.increment();
+                    }
+                }
+            }, "bench-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        double rate = succeeded.sum() / elapsed;
+
+        System.out.printf("%-26s threads=%d  bookings=%d  failed=%d  %.1f bookings/sec%n",
+                          name, threads, succeeded.sum(), failed.sum(), rate);
+        return rate;
+    }
+}
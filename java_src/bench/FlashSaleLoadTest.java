@@ -0,0 +1,212 @@
+package bench;
+
+import dao.EventDAO;
+import model.Booking;
+import model.Event;
+import service.EventService;
+import service.TicketInventory;
+import utils.DBConnection;
+import utils.Histogram;
+import utils.TaskExecutors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flash Sale Load Test
+ * Simulates a flash sale: thousands of clients released at the same
+ * instant, all calling EventService.bookEvent on a handful of freshly
+ * created events with far fewer tickets than requested. Reports
+ * throughput, latency percentiles and why bookings failed, then checks
+ * that no event was oversold:
+ *
+ *   sum(tickets_booked of non-cancelled bookings) + tickets_available == total_tickets
+ *
+ * for every event, in the database and against the in-memory inventory.
+ * Exits with status 1 if the check fails.
+ *
+ * Each client runs on its own virtual thread on Java 21+, or on a pool of
+ * platform threads otherwise.
+ *
+ * Usage: java -cp .:mysql-connector-java-8.0.33.jar bench.FlashSaleLoadTest
+ *            [clients] [events] [ticketsPerEvent] [userId]
+ *
+ * Bookings are written for userId against new events, so point it at a
+ * scratch database. Run it with and without -Dinventory.writeBehind=true
+ * to check both booking paths.
+ */
+public class FlashSaleLoadTest {
+
+    private static final int ATTEMPTS_PER_CLIENT = Integer.getInteger("flashSale.attemptsPerClient", 3);
+    private static final int MAX_TICKETS_PER_BOOKING = Integer.getInteger("flashSale.maxTicketsPerBooking", 4);
+    private static final int PLATFORM_THREADS = Integer.getInteger("flashSale.platformThreads", 256);
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int eventCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int ticketsPerEvent = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int userId = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        int[] eventIds = createHotEvents(eventCount, ticketsPerEvent, userId);
+        EventService eventService = new EventService();
+
+        Histogram latency = new Histogram("us");
+        LongAdder booked = new LongAdder();
+        LongAdder ticketsSold = new LongAdder();
+        Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        ExecutorService executor = TaskExecutors.newBlockingTaskExecutor("flash-sale", PLATFORM_THREADS);
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            executor.execute(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int a = 0; a < ATTEMPTS_PER_CLIENT; a++) {
+                        int eventId = eventIds[random.nextInt(eventIds.length)];
+                        int tickets = 1 + random.nextInt(MAX_TICKETS_PER_BOOKING);
+                        Booking booking = new Booking(userId, "Flash Sale Client", eventId, "Flash Sale", tickets, tickets * 10.0);
+
+                        long t0 = System.nanoTime();
+                        String failure;
+                        try {
+                            failure = eventService.bookEvent(booking) ? null : classifyRejection(eventService, eventId, tickets);
+                        } catch (RuntimeException e) {
+                            failure = e.getClass().getSimpleName();
+                        }
+                        latency.record((System.nanoTime() - t0) / 1000);
+
+                        if (failure == null) {
+                            booked.increment();
+                            ticketsSold.add(tickets);
+                        } else {
+                            failures.computeIfAbsent(failure, k -> new LongAdder()).increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        // With the platform thread fallback not every client can be parked at once
+        ready.await(10, TimeUnit.SECONDS);
+        long begin = System.nanoTime();
+        start.countDown();
+        finished.await();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+
+        long attempts = latency.getCount();
+        System.out.printf("%nclients=%d events=%d ticketsPerEvent=%d attempts=%d elapsed=%.2fs%n",
+                          clients, eventCount, ticketsPerEvent, attempts, elapsed);
+        System.out.printf("throughput: %.1f attempts/s, %.1f bookings/s%n", attempts / elapsed, booked.sum() / elapsed);
+        System.out.printf("latency: p50=%dus p99=%dus p999=%dus max=%dus%n",
+                          latency.getPercentile(50), latency.getPercentile(99),
+                          latency.getPercentile(99.9), latency.getMax());
+        System.out.printf("bookings: %d succeeded (%d tickets), %d failed%n",
+                          booked.sum(), ticketsSold.sum(), attempts - booked.sum());
+        for (Map.Entry<String, LongAdder> failure : new TreeMap<>(failures).entrySet()) {
+            System.out.printf("  %-28s %d%n", failure.getKey(), failure.getValue().sum());
+        }
+
+        // Write-behind decrements must reach the events table before checking it
+        TicketInventory.getInstance().flush();
+        boolean consistent = verify(eventIds, ticketsSold.sum());
+        System.out.println(DBConnection.getPoolStats());
+        DBConnection.closeConnection();
+
+        System.out.println(consistent ? "\n✓ No oversell: every event balances" : "\n✗ Inventory invariant violated");
+        if (!consistent) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Explain why bookEvent returned false
+     */
+    private static String classifyRejection(EventService eventService, int eventId, int tickets) {
+        int available = eventService.getTicketsAvailable(eventId);
+        if (available < 0) {
+            return "event not bookable";
+        }
+        return available < tickets ? "sold out" : "booking write failed";
+    }
+
+    private static int[] createHotEvents(int count, int tickets, int organizerId) {
+        EventDAO eventDAO = new EventDAO();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            Event event = new Event("Flash Sale " + runId + " #" + i, "Load test event",
+                    LocalDate.now().plusDays(7).toString(), "20:00:00", "Load Test Arena", "LoadTest",
+                    tickets, 10.0, organizerId, "Load Test");
+            if (!eventDAO.createEvent(event) || event.getEventId() == 0) {
+                throw new IllegalStateException("Could not create load test event");
+            }
+            ids[i] = event.getEventId();
+        }
+        return ids;
+    }
+
+    /**
+     * Check the ticket invariant for every event in the database and in memory
+     * @param ticketsSold Tickets the clients were told they had booked
+     * @return true if every event balances
+     */
+    private static boolean verify(int[] eventIds, long ticketsSold) throws SQLException {
+        String sql = "SELECT e.total_tickets, e.tickets_available, " +
+                     "(SELECT COALESCE(SUM(b.tickets_booked), 0) FROM bookings b " +
+                     " WHERE b.event_id = e.event_id AND b.status <> 'cancelled') " +
+                     "FROM events e WHERE e.event_id = ?";
+        TicketInventory inventory = TicketInventory.getInstance();
+        boolean consistent = true;
+        long bookedInDb = 0;
+
+        System.out.printf("%n%-10s %8s %10s %8s %10s  %s%n", "event", "total", "available", "booked", "in-memory", "check");
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            for (int eventId : eventIds) {
+                pst.setInt(1, eventId);
+                try (ResultSet rs = pst.executeQuery()) {
+                    if (!rs.next()) {
+                        System.out.printf("%-10d missing%n", eventId);
+                        consistent = false;
+                        continue;
+                    }
+                    int total = rs.getInt(1);
+                    int available = rs.getInt(2);
+                    long booked = rs.getLong(3);
+                    int inMemory = inventory.getAvailable(eventId);
+                    boolean ok = booked + available == total && available >= 0 && inMemory == available;
+                    bookedInDb += booked;
+                    consistent &= ok;
+                    System.out.printf("%-10d %8d %10d %8d %10d  %s%n",
+                                      eventId, total, available, booked, inMemory, ok ? "ok" : "MISMATCH");
+                }
+            }
+        }
+        if (bookedInDb != ticketsSold) {
+            System.out.printf("Clients were confirmed %d tickets but the database holds %d%n", ticketsSold, bookedInDb);
+            consistent = false;
+        }
+        return consistent;
+    }
+}
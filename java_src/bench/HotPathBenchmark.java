@@ -0,0 +1,195 @@
+package bench;
+
+import dao.AdminDAO;
+import dao.BookingDAO;
+import dao.EventDAO;
+import dao.UserDAO;
+import model.Booking;
+import service.EventService;
+import utils.DBConnection;
+import utils.Histogram;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot Path Benchmark
+ * Throughput and latency of the DAO and service methods on the request
+ * path, against a database seeded by BenchmarkData. Structured like a JMH
+ * throughput benchmark: each benchmark runs timed warmup iterations, then
+ * timed measurement iterations, and reports ops/sec as mean and standard
+ * deviation across iterations along with a latency histogram.
+ *
+ * Usage: java -cp .:mysql-connector-java-8.0.33.jar bench.HotPathBenchmark [benchmark ...]
+ *
+ * With no arguments every benchmark runs. Settings (system properties):
+ *   bench.scale           10k, 1m or 10m (default 10k); seeded on first use
+ *   bench.threads         Concurrent callers (default 1)
+ *   bench.warmupIterations / bench.warmupSeconds   (default 3 x 5s)
+ *   bench.iterations / bench.iterationSeconds      (default 5 x 10s)
+ *   bench.resultFile      Append one CSV row per benchmark, for before/after comparisons:
+ *                         epochMillis,benchmark,scale,threads,opsPerSec,stddev,avgUs,p50Us,p99Us
+ *
+ * bookEvent writes real bookings against the seeded hot event, so point
+ * db.url at a scratch database.
+ */
+public class HotPathBenchmark {
+
+    private static final int THREADS = Integer.getInteger("bench.threads", 1);
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmupIterations", 3);
+    private static final int WARMUP_SECONDS = Integer.getInteger("bench.warmupSeconds", 5);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final int ITERATION_SECONDS = Integer.getInteger("bench.iterationSeconds", 10);
+    private static final String RESULT_FILE = System.getProperty("bench.resultFile");
+
+    interface Operation {
+        void run(ThreadLocalRandom random) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkData.Scale scale = BenchmarkData.Scale.parse(System.getProperty("bench.scale", "10k"));
+        BenchmarkData.Fixture data = BenchmarkData.ensureSeeded(scale);
+
+        EventService eventService = new EventService();
+        EventDAO eventDAO = new EventDAO();
+        BookingDAO bookingDAO = new BookingDAO();
+        UserDAO userDAO = new UserDAO();
+        AdminDAO adminDAO = new AdminDAO();
+
+        Map<String, Operation> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("bookEvent", random -> {
+            int user = random.nextInt(data.userIds.length);
+            eventService.bookEvent(new Booking(data.userIds[user], "Bench User " + user,
+                    data.hotEventId, "Bench Event 0", 1, 100.0));
+        });
+        benchmarks.put("validateBooking", random ->
+                eventService.validateBooking(data.eventIds[random.nextInt(data.eventIds.length)], 2));
+        benchmarks.put("searchEvents", random ->
+                eventDAO.searchEvents(BenchmarkData.Fixture.keyword(random.nextInt(100))));
+        benchmarks.put("getAllActiveEvents", random -> eventDAO.getAllActiveEvents());
+        benchmarks.put("getUserBookings", random ->
+                bookingDAO.getUserBookings(data.userIds[random.nextInt(data.userIds.length)]));
+        benchmarks.put("loginUser", random ->
+                userDAO.loginUser(BenchmarkData.Fixture.username(random.nextInt(data.userIds.length)),
+                                  BenchmarkData.PASSWORD));
+        benchmarks.put("generateActivityReport", random -> adminDAO.generateActivityReport());
+
+        List<String> selected = args.length > 0 ? Arrays.asList(args) : new ArrayList<>(benchmarks.keySet());
+        for (String name : selected) {
+            if (!benchmarks.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown benchmark '" + name + "', expected one of " + benchmarks.keySet());
+            }
+        }
+
+        System.out.printf("scale=%s threads=%d warmup=%dx%ds measure=%dx%ds%n",
+                          scale, THREADS, WARMUP_ITERATIONS, WARMUP_SECONDS, ITERATIONS, ITERATION_SECONDS);
+        List<String> summary = new ArrayList<>();
+        for (String name : selected) {
+            summary.add(run(name, benchmarks.get(name), scale));
+        }
+
+        System.out.printf("%n%-24s %14s %12s %10s %10s %10s%n", "Benchmark", "ops/s", "error", "avg us", "p50 us", "p99 us");
+        for (String line : summary) {
+            System.out.println(line);
+        }
+        System.out.println(DBConnection.getPoolStats());
+        DBConnection.closeConnection();
+    }
+
+    private static String run(String name, Operation operation, BenchmarkData.Scale scale) throws Exception {
+        System.out.printf("%n# %s%n", name);
+        Histogram latency = new Histogram("us");
+
+        for (int i = 1; i <= WARMUP_ITERATIONS; i++) {
+            double rate = iteration(operation, WARMUP_SECONDS, latency);
+            System.out.printf("Warmup %d: %.1f ops/s%n", i, rate);
+        }
+
+        latency.reset();
+        double[] rates = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            rates[i] = iteration(operation, ITERATION_SECONDS, latency);
+            System.out.printf("Iteration %d: %.1f ops/s%n", i + 1, rates[i]);
+        }
+
+        double mean = 0;
+        for (double rate : rates) {
+            mean += rate;
+        }
+        mean /= rates.length;
+        double variance = 0;
+        for (double rate : rates) {
+            variance += (rate - mean) * (rate - mean);
+        }
+        double stddev = rates.length > 1 ? Math.sqrt(variance / (rates.length - 1)) : 0;
+
+        if (RESULT_FILE != null) {
+            appendResult(name, scale, mean, stddev, latency);
+        }
+        return String.format("%-24s %14.1f %12s %10.1f %10d %10d",
+                name, mean, String.format("± %.1f", stddev),
+                latency.getMean(), latency.getPercentile(50), latency.getPercentile(99));
+    }
+
+    /**
+     * Run the operation on THREADS threads for a fixed time
+     * @return Completed operations per second
+     */
+    private static double iteration(Operation operation, int seconds, Histogram latency) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    while (running.get()) {
+                        long t0 = System.nanoTime();
+                        operation.run(random);
+                        latency.record((System.nanoTime() - t0) / 1000);
+                        completed.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    System.err.println("Benchmark operation failed: " + e.getMessage());
+                    running.set(false);
+                }
+            }, "bench-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return completed.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static void appendResult(String name, BenchmarkData.Scale scale, double mean, double stddev,
+                                     Histogram latency) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(RESULT_FILE, true))) {
+            out.printf("%d,%s,%s,%d,%.1f,%.1f,%.1f,%d,%d%n",
+                       System.currentTimeMillis(), name, scale, THREADS, mean, stddev,
+                       latency.getMean(), latency.getPercentile(50), latency.getPercentile(99));
+        }
+    }
+}
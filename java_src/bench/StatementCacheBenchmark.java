@@ -0,0 +1,113 @@
+package bench;
+
+import utils.ConnectionPool;
+import utils.DBConnection;
+import utils.Histogram;
+import utils.PoolConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Statement Cache Benchmark
+ * Per-call latency of the DAO hot-path queries with the pool's prepared
+ * statement cache on and off. Each call borrows a connection, prepares,
+ * executes and closes, exactly like the DAO methods do.
+ *
+ * Runs warmup iterations before measuring, in the spirit of a JMH
+ * average-time benchmark, without adding JMH to the build.
+ *
+ * Usage: java -cp .:mysql-connector-java-8.0.33.jar bench.StatementCacheBenchmark
+ *            [eventId] [username] [password] [iterations]
+ *
+ * The ticket update subtracts zero tickets, so no data changes.
+ */
+public class StatementCacheBenchmark {
+
+    // Same SQL text as the DAO constants
+    private static final String SELECT_EVENT_BY_ID_SQL = "SELECT * FROM events WHERE event_id = ?";
+    private static final String LOGIN_SQL =
+            "SELECT * FROM users WHERE username = ? AND password = ? AND is_active = true";
+    private static final String UPDATE_TICKETS_SQL =
+            "UPDATE events SET tickets_available = tickets_available - ? WHERE event_id = ? AND tickets_available >= ?";
+
+    interface Call {
+        void run(Connection conn) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int eventId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        final String username = args.length > 1 ? args[1] : "admin_user";
+        final String password = args.length > 2 ? args[2] : "admin123";
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+
+        Call getEventById = conn -> {
+            try (PreparedStatement pst = conn.prepareStatement(SELECT_EVENT_BY_ID_SQL)) {
+                pst.setInt(1, eventId);
+                drain(pst.executeQuery());
+            }
+        };
+        Call loginUser = conn -> {
+            try (PreparedStatement pst = conn.prepareStatement(LOGIN_SQL)) {
+                pst.setString(1, username);
+                pst.setString(2, password);
+                drain(pst.executeQuery());
+            }
+        };
+        Call updateTicketAvailability = conn -> {
+            try (PreparedStatement pst = conn.prepareStatement(UPDATE_TICKETS_SQL)) {
+                pst.setInt(1, 0);
+                pst.setInt(2, eventId);
+                pst.setInt(3, 0);
+                pst.executeUpdate();
+            }
+        };
+
+        for (int cacheSize : new int[] { 0, PoolConfig.fromSystemProperties().getStatementCacheSize() }) {
+            PoolConfig config = PoolConfig.fromSystemProperties();
+            config.setStatementCacheSize(cacheSize);
+            ConnectionPool pool = DBConnection.createPool(config);
+            String mode = cacheSize == 0 ? "cache off" : "cache on (" + cacheSize + ")";
+
+            measure(pool, mode, "getEventById", getEventById, iterations);
+            measure(pool, mode, "loginUser", loginUser, iterations);
+            measure(pool, mode, "updateTicketAvailability", updateTicketAvailability, iterations);
+
+            System.out.println(pool.getStats());
+            pool.close();
+        }
+    }
+
+    private static void measure(ConnectionPool pool, String mode, String name, Call call, int iterations)
+            throws SQLException {
+        // Warmup: let the JIT settle and fill the statement cache
+        for (int i = 0; i < iterations / 5; i++) {
+            invoke(pool, call);
+        }
+
+        Histogram latency = new Histogram("us");
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            invoke(pool, call);
+            latency.record((System.nanoTime() - t0) / 1000);
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+        System.out.printf("%-12s %-26s avg=%8.1f us/op  %s%n", mode, name, avgMicros, latency);
+    }
+
+    private static void invoke(ConnectionPool pool, Call call) throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            call.run(conn);
+        }
+    }
+
+    private static void drain(ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            rs.getString(1);
+        }
+    }
+}
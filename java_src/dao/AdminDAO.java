@@ -3,22 +3,30 @@ package dao;
 import model.User;
 import model.Event;
 import model.Booking;
+import model.ActivityReport;
 import utils.DBConnection;
+import utils.TaskExecutors;
+import utils.MethodStats;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Admin DAO Class
- * Handles admin-specific database operations
+ * Handles admin-specific database operations. Dashboard totals are read
+ * from StatsStore counters rather than counted on every call.
  */
 public class AdminDAO {
     
-    private Connection connection;
-    
-    public AdminDAO() throws SQLException {
-        this.connection = DBConnection.getConnection();
+    // Created on first use so report threads only start once a report is built
+    private static class ReportExecutorHolder {
+        static final ExecutorService EXECUTOR = TaskExecutors.newBlockingTaskExecutor("activity-report", 2);
     }
     
     /**
@@ -26,18 +34,7 @@ public class AdminDAO {
      * @return Total users count
      */
     public int getTotalUsersCount() {
-        String sql = "SELECT COUNT(*) FROM users WHERE is_active = true";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting users count: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("AdminDAO.getTotalUsersCount", () -> (int) StatsStore.getInstance().getActiveUsers());
     }
     
     /**
@@ -45,18 +42,7 @@ public class AdminDAO {
      * @return Total events count
      */
     public int getTotalEventsCount() {
-        String sql = "SELECT COUNT(*) FROM events WHERE status = 'active'";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting events count: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("AdminDAO.getTotalEventsCount", () -> (int) StatsStore.getInstance().getActiveEvents());
     }
     
     /**
@@ -64,18 +50,7 @@ public class AdminDAO {
      * @return Total bookings count
      */
     public int getTotalBookingsCount() {
-        String sql = "SELECT COUNT(*) FROM bookings WHERE status = 'confirmed'";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting bookings count: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("AdminDAO.getTotalBookingsCount", () -> (int) StatsStore.getInstance().getConfirmedBookings());
     }
     
     /**
@@ -83,18 +58,7 @@ public class AdminDAO {
      * @return Total revenue from all payments
      */
     public double getTotalRevenue() {
-        String sql = "SELECT COALESCE(SUM(amount), 0) FROM payments WHERE status = 'success'";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting total revenue: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("AdminDAO.getTotalRevenue", () -> StatsStore.getInstance().getSuccessfulPaymentsAmount());
     }
     
     /**
@@ -102,20 +66,38 @@ public class AdminDAO {
      * @return Count of users by role
      */
     public String getUserStatisticsByRole() {
-        String sql = "SELECT role, COUNT(*) as count FROM users WHERE is_active = true GROUP BY role";
-        StringBuilder stats = new StringBuilder();
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                stats.append(rs.getString("role")).append(": ")
-                     .append(rs.getInt("count")).append(", ");
+        return Metrics.time("AdminDAO.getUserStatisticsByRole", () -> {
+            StringBuilder stats = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : getUserCountsByRole().entrySet()) {
+                stats.append(entry.getKey()).append(": ")
+                     .append(entry.getValue()).append(", ");
             }
+            return stats.toString();
+        });
+    }
+    
+    /**
+     * Get active user counts by role
+     * @return Role -> user count
+     */
+    public Map<String, Integer> getUserCountsByRole() {
+        try (MethodStats.Sample sample = Metrics.start("AdminDAO.getUserCountsByRole")) {
+            String sql = "SELECT role, COUNT(*) as count FROM users WHERE is_active = true GROUP BY role";
+            Map<String, Integer> counts = new LinkedHashMap<>();
             
-        } catch (SQLException e) {
-            System.err.println("Error getting user statistics: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    counts.put(rs.getString("role"), rs.getInt("count"));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error getting user statistics: " + e.getMessage());
+            }
+            return counts;
         }
-        return stats.toString();
     }
     
     /**
@@ -124,24 +106,28 @@ public class AdminDAO {
      * @return List of top events
      */
     public List<String> getTopEventsByBookings(int limit) {
-        List<String> topEvents = new ArrayList<>();
-        String sql = "SELECT e.event_name, COUNT(b.booking_id) as booking_count " +
-                     "FROM events e LEFT JOIN bookings b ON e.event_id = b.event_id " +
-                     "GROUP BY e.event_id, e.event_name " +
-                     "ORDER BY booking_count DESC LIMIT ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, limit);
+        try (MethodStats.Sample sample = Metrics.start("AdminDAO.getTopEventsByBookings")) {
+            List<String> topEvents = new ArrayList<>();
+            String sql = "SELECT e.event_name, COUNT(b.booking_id) as booking_count " +
+                         "FROM events e LEFT JOIN bookings b ON e.event_id = b.event_id " +
+                         "GROUP BY e.event_id, e.event_name " +
+                         "ORDER BY booking_count DESC LIMIT ?";
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                topEvents.add(rs.getString("event_name") + " (" + rs.getInt("booking_count") + " bookings)");
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, limit);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    topEvents.add(rs.getString("event_name") + " (" + rs.getInt("booking_count") + " bookings)");
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error getting top events: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting top events: " + e.getMessage());
+            return topEvents;
         }
-        return topEvents;
     }
     
     /**
@@ -149,17 +135,26 @@ public class AdminDAO {
      * @return Activity report as string
      */
     public String generateActivityReport() {
-        StringBuilder report = new StringBuilder();
-        
-        report.append("===== ACTIVITY REPORT =====\n");
-        report.append("Total Users: ").append(getTotalUsersCount()).append("\n");
-        report.append("Total Events: ").append(getTotalEventsCount()).append("\n");
-        report.append("Total Bookings: ").append(getTotalBookingsCount()).append("\n");
-        report.append("Total Revenue: ₹").append(String.format("%.2f", getTotalRevenue())).append("\n");
-        report.append("User Statistics: ").append(getUserStatisticsByRole()).append("\n");
-        report.append("Top Events: ").append(getTopEventsByBookings(5)).append("\n");
-        
-        return report.toString();
+        return Metrics.time("AdminDAO.generateActivityReport", () -> buildActivityReport().toString());
+    }
+    
+    /**
+     * Build an activity report. The totals are in-memory StatsStore counters
+     * and are read inline; the role breakdown and the top events are the
+     * only queries, so just those two run concurrently on the report executor.
+     * @return Activity report
+     */
+    public ActivityReport buildActivityReport() {
+        return Metrics.time("AdminDAO.buildActivityReport", () -> {
+            long generatedAt = System.currentTimeMillis();
+            ExecutorService executor = ReportExecutorHolder.EXECUTOR;
+            
+            CompletableFuture<Map<String, Integer>> roles = CompletableFuture.supplyAsync(this::getUserCountsByRole, executor);
+            CompletableFuture<List<String>> topEvents = CompletableFuture.supplyAsync(() -> getTopEventsByBookings(5), executor);
+            
+            return new ActivityReport(getTotalUsersCount(), getTotalEventsCount(), getTotalBookingsCount(),
+                                      getTotalRevenue(), roles.join(), topEvents.join(), generatedAt);
+        });
     }
     
     /**
@@ -168,19 +163,23 @@ public class AdminDAO {
      * @return true if user is admin, false otherwise
      */
     public boolean isAdmin(int userId) {
-        String sql = "SELECT role FROM users WHERE user_id = ? AND is_active = true";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, userId);
+        try (MethodStats.Sample sample = Metrics.start("AdminDAO.isAdmin")) {
+            String sql = "SELECT role FROM users WHERE user_id = ? AND is_active = true";
             
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return "admin".equalsIgnoreCase(rs.getString("role"));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, userId);
+                
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return "admin".equalsIgnoreCase(rs.getString("role"));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error checking admin role: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error checking admin role: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 }
@@ -1,11 +1,22 @@
 package dao;
 
 import model.Booking;
+import model.BookingSummary;
+import model.Page;
+import model.ExportFilter;
 import utils.DBConnection;
+import utils.EntityCache;
+import utils.GroupCommitWriter;
+import utils.ExportWriter;
+import utils.MethodStats;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Booking DAO Class
@@ -13,38 +24,186 @@ import java.util.List;
  */
 public class BookingDAO {
     
-    private Connection connection;
+    // Package-private along with INSERT_BOOKING_SQL, bindBooking and bookingCreated:
+    // WaitlistDAO books promoted waiters in the same transaction as their waitlist update
+    static final String RESERVE_TICKETS_SQL =
+            "UPDATE events SET tickets_available = tickets_available - ? " +
+            "WHERE event_id = ? AND status = 'active' AND tickets_available >= ?";
     
-    public BookingDAO() throws SQLException {
-        this.connection = DBConnection.getConnection();
+    private static final String SELECT_BOOKING_BY_ID_SQL =
+            "SELECT * FROM bookings WHERE booking_id = ?";
+    
+    // List views only need these columns; mapped by index in mapResultSetToSummary
+    private static final String SUMMARY_COLUMNS =
+            "booking_id, event_id, event_name, tickets_booked, total_amount, booking_date, status, payment_status";
+    
+    private static final String USER_BOOKING_SUMMARIES_SQL =
+            "SELECT " + SUMMARY_COLUMNS + " FROM bookings WHERE user_id = ? ORDER BY booking_date DESC";
+    
+    private static final String SELECT_USER_BOOKINGS_SQL =
+            "SELECT * FROM bookings WHERE user_id = ? ORDER BY booking_date DESC";
+    
+    private static final String CANCEL_WITH_RESTOCK_SQL =
+            "UPDATE bookings b JOIN events e ON e.event_id = b.event_id " +
+            "SET b.status = 'cancelled', b.payment_status = 'refunded', " +
+            "e.tickets_available = e.tickets_available + b.tickets_booked " +
+            "WHERE b.booking_id = ? AND b.status <> 'cancelled'";
+    
+    // Inserts nothing once the event is cancelled, so bookings that reserved in
+    // memory before the cancellation reached the inventory still fail
+    static final String INSERT_BOOKING_SQL =
+            "INSERT INTO bookings (user_id, user_name, event_id, event_name, " +
+            "tickets_booked, total_amount, status, payment_status, idempotency_key) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? FROM events WHERE event_id = ? AND status = 'active'";
+    
+    // Shared across DAO instances; written entities are invalidated below
+    private static final EntityCache<Integer, Booking> BOOKING_CACHE =
+            EntityCache.fromSystemProperties("booking", 50_000, 60);
+    
+    // Created on first use so the writer thread only starts in group-commit mode
+    private static class BatchWriterHolder {
+        static final GroupCommitWriter<Booking> WRITER =
+                GroupCommitWriter.fromSystemProperties("bookings", INSERT_BOOKING_SQL, BookingDAO::bindBooking);
     }
     
     /**
      * Create a new booking
-     * @param booking Booking object to create
+     * @param booking Booking object to create; its bookingId is set on success
      * @return true if creation successful, false otherwise
      */
     public boolean createBooking(Booking booking) {
-        String sql = "INSERT INTO bookings (user_id, user_name, event_id, event_name, " +
-                     "tickets_booked, total_amount, status, payment_status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, booking.getUserId());
-            pst.setString(2, booking.getUserName());
-            pst.setInt(3, booking.getEventId());
-            pst.setString(4, booking.getEventName());
-            pst.setInt(5, booking.getTicketsBooked());
-            pst.setDouble(6, booking.getTotalAmount());
-            pst.setString(7, booking.getStatus());
-            pst.setString(8, booking.getPaymentStatus());
-            
-            int result = pst.executeUpdate();
-            return result > 0;
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.createBooking")) {
+            if (GroupCommitWriter.isEnabled()) {
+                try {
+                    booking.setBookingId(BatchWriterHolder.WRITER.write(booking));
+                    bookingCreated(booking);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (SQLException e) {
+                    sample.fail();
+                    System.err.println("Error creating booking: " + e.getMessage());
+                    return false;
+                }
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error creating booking: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindBooking(pst, booking);
+                
+                int result = pst.executeUpdate();
+                if (result > 0) {
+                    ResultSet keys = pst.getGeneratedKeys();
+                    if (keys.next()) {
+                        booking.setBookingId(keys.getInt(1));
+                    }
+                    bookingCreated(booking);
+                }
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error creating booking: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Queue a booking insert for the next group commit
+     * @param booking Booking object to create
+     * @return Future completed with the new booking ID
+     */
+    public CompletableFuture<Integer> createBookingAsync(Booking booking) {
+        return Metrics.time("BookingDAO.createBookingAsync", () -> {
+            return BatchWriterHolder.WRITER.submit(booking).thenApply(bookingId -> {
+                bookingCreated(booking);
+                return bookingId;
+            });
+        });
+    }
+    
+    static void bookingCreated(Booking booking) {
+        StatsStore.bookingChanged(null, null, booking.getStatus(), booking.getPaymentStatus(), booking.getTotalAmount());
+    }
+    
+    /**
+     * Group-commit writer for booking inserts (flush-size and latency histograms)
+     */
+    public static GroupCommitWriter<Booking> getBatchWriter() {
+        return BatchWriterHolder.WRITER;
+    }
+    
+    /**
+     * Create a booking and take its tickets from the event in one transaction.
+     * The decrement only succeeds while the event is active and has enough
+     * tickets left, so the booking is never written without inventory behind it.
+     * @param booking Booking object to create; its bookingId is set on success
+     * @return true if the booking was created, false if sold out or on error
+     */
+    public boolean createBookingWithTickets(Booking booking) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.createBookingWithTickets")) {
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement decrement = conn.prepareStatement(RESERVE_TICKETS_SQL);
+                     PreparedStatement insert = conn.prepareStatement(INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    decrement.setInt(1, booking.getTicketsBooked());
+                    decrement.setInt(2, booking.getEventId());
+                    decrement.setInt(3, booking.getTicketsBooked());
+                    if (decrement.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
+                    EventDAO.invalidateCachedEvent(booking.getEventId());
+
+                    bindBooking(insert, booking);
+                    insert.executeUpdate();
+
+                    ResultSet keys = insert.getGeneratedKeys();
+                    if (keys.next()) {
+                        booking.setBookingId(keys.getInt(1));
+                    }
+                    conn.commit();
+                    bookingCreated(booking);
+                    return true;
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error creating booking: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Find the booking a user's idempotency key created
+     * @param userId User ID; keys are unique per user
+     * @param idempotencyKey Key given when the booking was created
+     * @return Booking object if found, null otherwise
+     */
+    public Booking getBookingByIdempotencyKey(int userId, String idempotencyKey) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getBookingByIdempotencyKey")) {
+            String sql = "SELECT * FROM bookings WHERE user_id = ? AND idempotency_key = ?";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, userId);
+                pst.setString(2, idempotencyKey);
+                
+                ResultSet rs = pst.executeQuery();
+                return rs.next() ? mapResultSetToBooking(rs) : null;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error looking up idempotency key: " + e.getMessage());
+                return null;
+            }
         }
     }
     
@@ -54,9 +213,15 @@ public class BookingDAO {
      * @return Booking object if found, null otherwise
      */
     public Booking getBookingById(int bookingId) {
-        String sql = "SELECT * FROM bookings WHERE booking_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
+        return Metrics.time("BookingDAO.getBookingById", () -> {
+            Booking cached = BOOKING_CACHE.get(bookingId, this::loadBookingById);
+            return cached != null ? copyOf(cached) : null;
+        });
+    }
+    
+    private Booking loadBookingById(int bookingId) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(SELECT_BOOKING_BY_ID_SQL)) {
             pst.setInt(1, bookingId);
             
             ResultSet rs = pst.executeQuery();
@@ -76,21 +241,91 @@ public class BookingDAO {
      * @return List of user's bookings
      */
     public List<Booking> getUserBookings(int userId) {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings WHERE user_id = ? ORDER BY booking_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, userId);
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getUserBookings")) {
+            List<Booking> bookings = new ArrayList<>();
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                bookings.add(mapResultSetToBooking(rs));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(SELECT_USER_BOOKINGS_SQL)) {
+                pst.setInt(1, userId);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToBooking(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving user bookings: " + e.getMessage());
             }
+            return bookings;
+        }
+    }
+    
+    /**
+     * Get list-view summaries of a user's bookings
+     * @param userId User ID
+     * @return List of booking summaries, newest first
+     */
+    public List<BookingSummary> getUserBookingSummaries(int userId) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getUserBookingSummaries(int)")) {
+            List<BookingSummary> bookings = new ArrayList<>();
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving user bookings: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(USER_BOOKING_SUMMARIES_SQL)) {
+                pst.setInt(1, userId);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToSummary(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving user bookings: " + e.getMessage());
+            }
+            return bookings;
+        }
+    }
+    
+    /**
+     * Get one page of a user's booking summaries, newest first.
+     * Uses keyset pagination on booking_id, so a deep page costs the same as the first one.
+     * @param userId User ID
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of rows per page
+     * @return Page of booking summaries
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<BookingSummary> getUserBookingSummaries(int userId, String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getUserBookingSummaries(int,String,int)")) {
+            int afterId = Page.parseIdCursor(cursor, pageSize);
+            List<BookingSummary> bookings = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT " + SUMMARY_COLUMNS + " FROM bookings WHERE user_id = ? " +
+                      "ORDER BY booking_id DESC LIMIT ?"
+                    : "SELECT " + SUMMARY_COLUMNS + " FROM bookings WHERE user_id = ? AND booking_id < ? " +
+                      "ORDER BY booking_id DESC LIMIT ?";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                pst.setInt(index++, userId);
+                if (cursor != null) {
+                    pst.setInt(index++, afterId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToSummary(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving user bookings: " + e.getMessage());
+            }
+            return Page.of(bookings, pageSize, last -> String.valueOf(last.getBookingId()));
         }
-        return bookings;
     }
     
     /**
@@ -99,21 +334,64 @@ public class BookingDAO {
      * @return List of event bookings
      */
     public List<Booking> getEventBookings(int eventId) {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings WHERE event_id = ? ORDER BY booking_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, eventId);
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getEventBookings(int)")) {
+            List<Booking> bookings = new ArrayList<>();
+            String sql = "SELECT * FROM bookings WHERE event_id = ? ORDER BY booking_date DESC";
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                bookings.add(mapResultSetToBooking(rs));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, eventId);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToBooking(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving event bookings: " + e.getMessage());
             }
+            return bookings;
+        }
+    }
+    
+    /**
+     * Get one page of bookings for an event, newest first.
+     * Uses keyset pagination on booking_id, so a deep page costs the same as the first one.
+     * @param eventId Event ID
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of rows per page
+     * @return Page of bookings
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<Booking> getEventBookings(int eventId, String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getEventBookings(int,String,int)")) {
+            int afterId = Page.parseIdCursor(cursor, pageSize);
+            List<Booking> bookings = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT * FROM bookings WHERE event_id = ? ORDER BY booking_id DESC LIMIT ?"
+                    : "SELECT * FROM bookings WHERE event_id = ? AND booking_id < ? ORDER BY booking_id DESC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving event bookings: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                pst.setInt(index++, eventId);
+                if (cursor != null) {
+                    pst.setInt(index++, afterId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToBooking(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving event bookings: " + e.getMessage());
+            }
+            return Page.of(bookings, pageSize, last -> String.valueOf(last.getBookingId()));
         }
-        return bookings;
     }
     
     /**
@@ -121,19 +399,80 @@ public class BookingDAO {
      * @return List of all bookings
      */
     public List<Booking> getAllBookings() {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings ORDER BY booking_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                bookings.add(mapResultSetToBooking(rs));
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getAllBookings()")) {
+            List<Booking> bookings = new ArrayList<>();
+            String sql = "SELECT * FROM bookings ORDER BY booking_date DESC";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToBooking(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving bookings: " + e.getMessage());
             }
+            return bookings;
+        }
+    }
+    
+    /**
+     * Get one page of all bookings, newest first.
+     * Uses keyset pagination on booking_id, so a deep page costs the same as the first one.
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of rows per page
+     * @return Page of bookings
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<Booking> getAllBookings(String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getAllBookings(String,int)")) {
+            int afterId = Page.parseIdCursor(cursor, pageSize);
+            List<Booking> bookings = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT * FROM bookings ORDER BY booking_id DESC LIMIT ?"
+                    : "SELECT * FROM bookings WHERE booking_id < ? ORDER BY booking_id DESC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving bookings: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (cursor != null) {
+                    pst.setInt(index++, afterId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    bookings.add(mapResultSetToBooking(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving bookings: " + e.getMessage());
+            }
+            return Page.of(bookings, pageSize, last -> String.valueOf(last.getBookingId()));
         }
-        return bookings;
+    }
+    
+    /**
+     * Stream bookings matching a filter to a CSV or NDJSON writer.
+     * The date range applies to created_at, which is set on every booking.
+     * @param filter Filters, or null to export every booking
+     * @param out Destination writer
+     * @return Number of rows written, or -1 on failure
+     */
+    public long exportBookings(ExportFilter filter, ExportWriter out) {
+        return Metrics.time("BookingDAO.exportBookings", () -> {
+            StringBuilder sql = new StringBuilder(
+                    "SELECT booking_id, user_id, user_name, event_id, event_name, tickets_booked, " +
+                    "total_amount, booking_date, booking_time, status, payment_status, created_at " +
+                    "FROM bookings WHERE 1 = 1");
+            List<Object> params = new ArrayList<>();
+            StreamingExport.appendFilter(sql, params, filter, "event_id", "created_at", "status");
+            sql.append(" ORDER BY booking_id");
+            return StreamingExport.stream(sql.toString(), params, out, "bookings");
+        });
     }
     
     /**
@@ -142,19 +481,39 @@ public class BookingDAO {
      * @return true if update successful, false otherwise
      */
     public boolean updateBooking(Booking booking) {
-        String sql = "UPDATE bookings SET status = ?, payment_status = ? WHERE booking_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, booking.getStatus());
-            pst.setString(2, booking.getPaymentStatus());
-            pst.setInt(3, booking.getBookingId());
-            
-            int result = pst.executeUpdate();
-            return result > 0;
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.updateBooking")) {
+            String sql = "UPDATE bookings SET status = ?, payment_status = ? WHERE booking_id = ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error updating booking: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                    Booking before = lockBooking(conn, booking.getBookingId());
+                    if (before == null) {
+                        conn.rollback();
+                        return false;
+                    }
+                    
+                    pst.setString(1, booking.getStatus());
+                    pst.setString(2, booking.getPaymentStatus());
+                    pst.setInt(3, booking.getBookingId());
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    BOOKING_CACHE.invalidate(booking.getBookingId());
+                    StatsStore.bookingChanged(before.getStatus(), before.getPaymentStatus(),
+                            booking.getStatus(), booking.getPaymentStatus(), before.getTotalAmount());
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error updating booking: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -164,18 +523,255 @@ public class BookingDAO {
      * @return true if cancellation successful, false otherwise
      */
     public boolean cancelBooking(int bookingId) {
-        String sql = "UPDATE bookings SET status = 'cancelled', payment_status = 'refunded' WHERE booking_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, bookingId);
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.cancelBooking")) {
+            String sql = "UPDATE bookings SET status = 'cancelled', payment_status = 'refunded' WHERE booking_id = ?";
             
-            int result = pst.executeUpdate();
-            return result > 0;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                    Booking before = lockBooking(conn, bookingId);
+                    if (before == null) {
+                        conn.rollback();
+                        return false;
+                    }
+                    
+                    pst.setInt(1, bookingId);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    BOOKING_CACHE.invalidate(bookingId);
+                    bookingCancelled(before);
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error cancelling booking: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Cancel booking and return its tickets to the event in one transaction.
+     * A booking that is already cancelled is left alone, so concurrent
+     * cancellations restock only once.
+     * @param bookingId Booking ID to cancel
+     * @return true if this call cancelled the booking, false otherwise
+     */
+    public boolean cancelBookingWithRestock(int bookingId) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.cancelBookingWithRestock")) {
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(CANCEL_WITH_RESTOCK_SQL)) {
+                    // The row lock also gives the pre-cancel state for the stats deltas
+                    Booking before = lockBooking(conn, bookingId);
+                    if (before == null || "cancelled".equalsIgnoreCase(before.getStatus())) {
+                        conn.rollback();
+                        return false;
+                    }
+
+                    pst.setInt(1, bookingId);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+
+                    BOOKING_CACHE.invalidate(bookingId);
+                    if (result > 0) {
+                        EventDAO.invalidateCachedEvent(before.getEventId());
+                        bookingCancelled(before);
+                    }
+                    return result > 0;
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error cancelling booking: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Confirm a pending booking, i.e. turn a seat hold into a sale
+     * @param bookingId Booking ID
+     * @param ttlSeconds Hold lifetime; a hold older than this is not confirmed
+     *                   even if its expiry has not run yet
+     * @return true if the booking was pending and is now confirmed, false if
+     *         it does not exist or is no longer pending (e.g. the hold expired)
+     */
+    public boolean confirmPendingBooking(int bookingId, long ttlSeconds) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.confirmPendingBooking")) {
+            String sql = "UPDATE bookings SET status = 'confirmed' " +
+                         "WHERE booking_id = ? AND status = 'pending' AND created_at + INTERVAL ? SECOND > NOW()";
             
-        } catch (SQLException e) {
-            System.err.println("Error cancelling booking: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                    Booking before = lockBooking(conn, bookingId);
+                    if (before == null || !"pending".equalsIgnoreCase(before.getStatus())) {
+                        conn.rollback();
+                        return false;
+                    }
+                    
+                    pst.setInt(1, bookingId);
+                    pst.setLong(2, ttlSeconds);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    if (result > 0) {
+                        BOOKING_CACHE.invalidate(bookingId);
+                        StatsStore.bookingChanged(before.getStatus(), before.getPaymentStatus(),
+                                "confirmed", before.getPaymentStatus(), before.getTotalAmount());
+                    }
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error confirming booking: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Cancel many pending bookings whose holds expired and return their
+     * tickets to their events, in one transaction: one locking SELECT, one
+     * UPDATE of the bookings and one batched UPDATE per affected event.
+     * Bookings that are no longer pending are skipped.
+     * @param bookingIds Booking IDs
+     * @return Tickets returned per event ID; null on failure
+     */
+    public Map<Integer, Integer> expirePendingBookings(List<Integer> bookingIds) {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.expirePendingBookings")) {
+            Map<Integer, Integer> released = new HashMap<>();
+            if (bookingIds.isEmpty()) {
+                return released;
+            }
+            String in = placeholders(bookingIds.size());
+            
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement lock = conn.prepareStatement(
+                         "SELECT booking_id, event_id, tickets_booked, payment_status, total_amount FROM bookings " +
+                         "WHERE booking_id IN (" + in + ") AND status = 'pending' FOR UPDATE");
+                     PreparedStatement cancel = conn.prepareStatement(
+                         "UPDATE bookings SET status = 'cancelled' WHERE booking_id IN (" + in + ") AND status = 'pending'");
+                     PreparedStatement restock = conn.prepareStatement(
+                         "UPDATE events SET tickets_available = tickets_available + ? WHERE event_id = ?")) {
+                    for (int i = 0; i < bookingIds.size(); i++) {
+                        lock.setInt(i + 1, bookingIds.get(i));
+                        cancel.setInt(i + 1, bookingIds.get(i));
+                    }
+                    
+                    List<Integer> expired = new ArrayList<>();
+                    List<Booking> before = new ArrayList<>();
+                    ResultSet rs = lock.executeQuery();
+                    while (rs.next()) {
+                        expired.add(rs.getInt(1));
+                        released.merge(rs.getInt(2), rs.getInt(3), Integer::sum);
+                        Booking booking = new Booking(rs.getInt(1), 0, null, rs.getInt(2), null, rs.getInt(3),
+                                rs.getDouble(5), null, null, "pending", rs.getString(4));
+                        before.add(booking);
+                    }
+                    if (expired.isEmpty()) {
+                        conn.rollback();
+                        return released;
+                    }
+                    
+                    cancel.executeUpdate();
+                    // Summed per event: a multi-table UPDATE would touch each event row only once
+                    for (Map.Entry<Integer, Integer> entry : released.entrySet()) {
+                        restock.setInt(1, entry.getValue());
+                        restock.setInt(2, entry.getKey());
+                        restock.addBatch();
+                    }
+                    restock.executeBatch();
+                    conn.commit();
+                    
+                    for (Booking booking : before) {
+                        BOOKING_CACHE.invalidate(booking.getBookingId());
+                        StatsStore.bookingChanged("pending", booking.getPaymentStatus(),
+                                "cancelled", booking.getPaymentStatus(), booking.getTotalAmount());
+                    }
+                    for (Integer eventId : released.keySet()) {
+                        EventDAO.invalidateCachedEvent(eventId);
+                    }
+                    return released;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error expiring pending bookings: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Get every pending booking and how long ago it was created, by the
+     * database clock, so holds can be re-armed after a restart
+     * @return Booking ID -> age in seconds
+     */
+    public Map<Integer, Long> getPendingBookingAges() {
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getPendingBookingAges")) {
+            Map<Integer, Long> ages = new HashMap<>();
+            String sql = "SELECT booking_id, TIMESTAMPDIFF(SECOND, created_at, NOW()) FROM bookings WHERE status = 'pending'";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    ages.put(rs.getInt(1), rs.getLong(2));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving pending bookings: " + e.getMessage());
+            }
+            return ages;
+        }
+    }
+    
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
         }
+        return sql.toString();
+    }
+    
+    /**
+     * Lock a booking row for the current transaction and read its current state
+     * @return Booking before the caller's update, or null if it does not exist
+     */
+    private Booking lockBooking(Connection conn, int bookingId) throws SQLException {
+        try (PreparedStatement lock = conn.prepareStatement("SELECT * FROM bookings WHERE booking_id = ? FOR UPDATE")) {
+            lock.setInt(1, bookingId);
+            ResultSet rs = lock.executeQuery();
+            return rs.next() ? mapResultSetToBooking(rs) : null;
+        }
+    }
+    
+    private static void bookingCancelled(Booking before) {
+        StatsStore.bookingChanged(before.getStatus(), before.getPaymentStatus(),
+                "cancelled", "refunded", before.getTotalAmount());
     }
     
     /**
@@ -183,18 +779,22 @@ public class BookingDAO {
      * @return Total number of bookings
      */
     public int getTotalBookingsCount() {
-        String sql = "SELECT COUNT(*) FROM bookings";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        try (MethodStats.Sample sample = Metrics.start("BookingDAO.getTotalBookingsCount")) {
+            String sql = "SELECT COUNT(*) FROM bookings";
             
-        } catch (SQLException e) {
-            System.err.println("Error getting bookings count: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error getting bookings count: " + e.getMessage());
+            }
+            return 0;
         }
-        return 0;
     }
     
     /**
@@ -202,25 +802,72 @@ public class BookingDAO {
      * @return Total revenue
      */
     public double getTotalRevenue() {
-        String sql = "SELECT SUM(total_amount) FROM bookings WHERE payment_status = 'paid'";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting total revenue: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("BookingDAO.getTotalRevenue", () -> StatsStore.getInstance().getPaidBookingRevenue());
+    }
+    
+    /**
+     * Drop a cached booking after another DAO changed its row
+     * @param bookingId Booking ID
+     */
+    static void invalidateCachedBooking(int bookingId) {
+        BOOKING_CACHE.invalidate(bookingId);
+    }
+    
+    /**
+     * Booking cache statistics
+     */
+    public static EntityCache<Integer, Booking> getCache() {
+        return BOOKING_CACHE;
+    }
+    
+    /**
+     * Copy a cached booking so callers can modify their instance freely
+     */
+    private static Booking copyOf(Booking b) {
+        Booking copy = new Booking(b.getBookingId(), b.getUserId(), b.getUserName(), b.getEventId(),
+                                   b.getEventName(), b.getTicketsBooked(), b.getTotalAmount(),
+                                   b.getBookingDate(), b.getBookingTime(), b.getStatus(), b.getPaymentStatus());
+        copy.setIdempotencyKey(b.getIdempotencyKey());
+        return copy;
+    }
+    
+    /**
+     * Helper method to bind a Booking to INSERT_BOOKING_SQL
+     */
+    static void bindBooking(PreparedStatement pst, Booking booking) throws SQLException {
+        pst.setInt(1, booking.getUserId());
+        pst.setString(2, booking.getUserName());
+        pst.setInt(3, booking.getEventId());
+        pst.setString(4, booking.getEventName());
+        pst.setInt(5, booking.getTicketsBooked());
+        pst.setDouble(6, booking.getTotalAmount());
+        pst.setString(7, booking.getStatus());
+        pst.setString(8, booking.getPaymentStatus());
+        pst.setString(9, booking.getIdempotencyKey());
+        pst.setInt(10, booking.getEventId());
+    }
+    
+    /**
+     * Map a row selected with SUMMARY_COLUMNS, by column index
+     */
+    private BookingSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        return new BookingSummary(
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getString(3),
+            rs.getInt(4),
+            rs.getDouble(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8)
+        );
     }
     
     /**
      * Helper method to map ResultSet to Booking object
      */
     private Booking mapResultSetToBooking(ResultSet rs) throws SQLException {
-        return new Booking(
+        Booking booking = new Booking(
             rs.getInt("booking_id"),
             rs.getInt("user_id"),
             rs.getString("user_name"),
@@ -233,5 +880,7 @@ public class BookingDAO {
             rs.getString("status"),
             rs.getString("payment_status")
         );
+        booking.setIdempotencyKey(rs.getString("idempotency_key"));
+        return booking;
     }
 }
@@ -0,0 +1,237 @@
+package dao;
+
+import model.EventCancellation;
+import utils.DBConnection;
+import utils.MethodStats;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event Cancellation DAO Class
+ * Handles the database side of cancelling an event's bookings and
+ * refunding its payments in chunks, with a checkpoint per event in the
+ * event_cancellations table
+ */
+public class EventCancellationDAO {
+
+    private static final String SELECT_CANCELLATION_SQL =
+            "SELECT * FROM event_cancellations WHERE event_id = ?";
+
+    // Keyset page: bookings after the checkpoint, in ID order
+    private static final String LOCK_BOOKINGS_CHUNK_SQL =
+            "SELECT booking_id, status, payment_status, total_amount FROM bookings " +
+            "WHERE event_id = ? AND booking_id > ? ORDER BY booking_id LIMIT ? FOR UPDATE";
+
+    private static final String CANCEL_BOOKINGS_CHUNK_SQL =
+            "UPDATE bookings SET status = 'cancelled', payment_status = 'refunded' " +
+            "WHERE event_id = ? AND booking_id > ? AND booking_id <= ? AND status <> 'cancelled'";
+
+    private static final String LOCK_PAYMENTS_CHUNK_SQL =
+            "SELECT p.amount FROM payments p JOIN bookings b ON b.booking_id = p.booking_id " +
+            "WHERE b.event_id = ? AND b.booking_id > ? AND b.booking_id <= ? AND p.status = 'success' FOR UPDATE";
+
+    private static final String REFUND_PAYMENTS_CHUNK_SQL =
+            "UPDATE payments p JOIN bookings b ON b.booking_id = p.booking_id SET p.status = 'refunded' " +
+            "WHERE b.event_id = ? AND b.booking_id > ? AND b.booking_id <= ? AND p.status = 'success'";
+
+    private static final String ADVANCE_CHECKPOINT_SQL =
+            "UPDATE event_cancellations SET last_booking_id = ?, bookings_cancelled = bookings_cancelled + ?, " +
+            "payments_refunded = payments_refunded + ? WHERE event_id = ?";
+
+    /**
+     * Record that an event's bookings are to be cancelled. An existing
+     * checkpoint is kept, so starting again resumes where the last run stopped.
+     * @param eventId Event ID; the event itself is cancelled by EventDAO.deleteEvent
+     * @return Checkpoint to continue from, or null on error
+     */
+    public EventCancellation startCancellation(int eventId) {
+        try (MethodStats.Sample sample = Metrics.start("EventCancellationDAO.startCancellation")) {
+            String sql = "INSERT INTO event_cancellations (event_id) VALUES (?) " +
+                         "ON DUPLICATE KEY UPDATE status = 'running'";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql);
+                 PreparedStatement select = conn.prepareStatement(SELECT_CANCELLATION_SQL)) {
+                pst.setInt(1, eventId);
+                pst.executeUpdate();
+
+                select.setInt(1, eventId);
+                ResultSet rs = select.executeQuery();
+                return rs.next() ? mapResultSetToCancellation(rs) : null;
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error starting event cancellation: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Get the progress of an event's cancellation
+     * @param eventId Event ID
+     * @return Checkpoint, or null if the event was never cancelled this way
+     */
+    public EventCancellation getCancellation(int eventId) {
+        try (MethodStats.Sample sample = Metrics.start("EventCancellationDAO.getCancellation")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(SELECT_CANCELLATION_SQL)) {
+                pst.setInt(1, eventId);
+
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return mapResultSetToCancellation(rs);
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving event cancellation: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get the cancellations a crash or error left unfinished
+     * @return List of running checkpoints
+     */
+    public List<EventCancellation> getUnfinishedCancellations() {
+        try (MethodStats.Sample sample = Metrics.start("EventCancellationDAO.getUnfinishedCancellations")) {
+            List<EventCancellation> cancellations = new ArrayList<>();
+            String sql = "SELECT * FROM event_cancellations WHERE status = 'running' ORDER BY started_at";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    cancellations.add(mapResultSetToCancellation(rs));
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving event cancellations: " + e.getMessage());
+            }
+            return cancellations;
+        }
+    }
+
+    /**
+     * Cancel the next chunk of an event's bookings and refund their
+     * successful payments, in one transaction with the checkpoint update,
+     * so a chunk is either done and recorded or not done at all. Bookings
+     * already cancelled are skipped; no tickets are restocked since the
+     * event itself is cancelled.
+     * @param progress Checkpoint; advanced in place on success and marked completed when no bookings are left
+     * @param chunkSize Bookings per chunk
+     * @return true if the chunk was committed, false on error
+     */
+    public boolean cancelBookingsChunk(EventCancellation progress, int chunkSize) {
+        try (MethodStats.Sample sample = Metrics.start("EventCancellationDAO.cancelBookingsChunk")) {
+            int eventId = progress.getEventId();
+            int after = progress.getLastBookingId();
+
+            List<Integer> bookingIds = new ArrayList<>(chunkSize);
+            List<String[]> before = new ArrayList<>(chunkSize);
+            List<Double> totals = new ArrayList<>(chunkSize);
+            List<Double> refunds = new ArrayList<>();
+            int cancelled;
+
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement lockBookings = conn.prepareStatement(LOCK_BOOKINGS_CHUNK_SQL);
+                     PreparedStatement cancel = conn.prepareStatement(CANCEL_BOOKINGS_CHUNK_SQL);
+                     PreparedStatement lockPayments = conn.prepareStatement(LOCK_PAYMENTS_CHUNK_SQL);
+                     PreparedStatement refund = conn.prepareStatement(REFUND_PAYMENTS_CHUNK_SQL);
+                     PreparedStatement checkpoint = conn.prepareStatement(ADVANCE_CHECKPOINT_SQL)) {
+                    lockBookings.setInt(1, eventId);
+                    lockBookings.setInt(2, after);
+                    lockBookings.setInt(3, chunkSize);
+                    ResultSet rs = lockBookings.executeQuery();
+                    while (rs.next()) {
+                        bookingIds.add(rs.getInt(1));
+                        before.add(new String[] { rs.getString(2), rs.getString(3) });
+                        totals.add(rs.getDouble(4));
+                    }
+
+                    if (bookingIds.isEmpty()) {
+                        try (PreparedStatement complete = conn.prepareStatement(
+                                "UPDATE event_cancellations SET status = 'completed' WHERE event_id = ?")) {
+                            complete.setInt(1, eventId);
+                            complete.executeUpdate();
+                        }
+                        conn.commit();
+                        progress.setStatus("completed");
+                        return true;
+                    }
+                    int last = bookingIds.get(bookingIds.size() - 1);
+
+                    lockPayments.setInt(1, eventId);
+                    lockPayments.setInt(2, after);
+                    lockPayments.setInt(3, last);
+                    rs = lockPayments.executeQuery();
+                    while (rs.next()) {
+                        refunds.add(rs.getDouble(1));
+                    }
+                    if (!refunds.isEmpty()) {
+                        refund.setInt(1, eventId);
+                        refund.setInt(2, after);
+                        refund.setInt(3, last);
+                        refund.executeUpdate();
+                    }
+
+                    cancel.setInt(1, eventId);
+                    cancel.setInt(2, after);
+                    cancel.setInt(3, last);
+                    cancelled = cancel.executeUpdate();
+
+                    checkpoint.setInt(1, last);
+                    checkpoint.setInt(2, cancelled);
+                    checkpoint.setInt(3, refunds.size());
+                    checkpoint.setInt(4, eventId);
+                    checkpoint.executeUpdate();
+                    conn.commit();
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error cancelling event bookings: " + e.getMessage());
+                return false;
+            }
+
+            for (int i = 0; i < bookingIds.size(); i++) {
+                BookingDAO.invalidateCachedBooking(bookingIds.get(i));
+                String oldStatus = before.get(i)[0];
+                if (!"cancelled".equalsIgnoreCase(oldStatus)) {
+                    StatsStore.bookingChanged(oldStatus, before.get(i)[1], "cancelled", "refunded", totals.get(i));
+                }
+            }
+            for (double amount : refunds) {
+                StatsStore.paymentChanged("success", "refunded", amount);
+            }
+            progress.setLastBookingId(bookingIds.get(bookingIds.size() - 1));
+            progress.setBookingsCancelled(progress.getBookingsCancelled() + cancelled);
+            progress.setPaymentsRefunded(progress.getPaymentsRefunded() + refunds.size());
+            return true;
+        }
+    }
+
+    /**
+     * Helper method to map ResultSet to EventCancellation object
+     */
+    private EventCancellation mapResultSetToCancellation(ResultSet rs) throws SQLException {
+        return new EventCancellation(
+            rs.getInt("event_id"),
+            rs.getInt("last_booking_id"),
+            rs.getInt("bookings_cancelled"),
+            rs.getInt("payments_refunded"),
+            rs.getString("status")
+        );
+    }
+}
@@ -1,11 +1,18 @@
 package dao;
 
 import model.Event;
+import model.EventSummary;
+import model.Page;
 import utils.DBConnection;
+import utils.EntityCache;
+import utils.MethodStats;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Event DAO Class
@@ -13,54 +20,190 @@ import java.util.List;
  */
 public class EventDAO {
     
-    private Connection connection;
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO events (event_name, description, event_date, event_time, location, category, " +
+            "total_tickets, tickets_available, ticket_price, organizer_id, organizer_name, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
     
-    public EventDAO() throws SQLException {
-        this.connection = DBConnection.getConnection();
+    private static final String SELECT_EVENT_BY_ID_SQL =
+            "SELECT * FROM events WHERE event_id = ?";
+    
+    // tickets_available is owned by bookings; a capacity change moves it by the same
+    // amount. MySQL assigns left to right, so it sees total_tickets before the change.
+    private static final String UPDATE_EVENT_SQL =
+            "UPDATE events SET event_name = ?, description = ?, event_date = ?, event_time = ?, " +
+            "location = ?, category = ?, tickets_available = tickets_available + (? - total_tickets), " +
+            "total_tickets = ?, ticket_price = ?, status = ? " +
+            "WHERE event_id = ? AND tickets_available + (? - total_tickets) >= 0";
+    
+    // List views only need these columns; mapped by index in mapResultSetToSummary
+    private static final String SUMMARY_COLUMNS =
+            "event_id, event_name, event_date, event_time, location, category, " +
+            "total_tickets, tickets_available, ticket_price, status";
+    
+    private static final String ACTIVE_SUMMARIES_SQL =
+            "SELECT " + SUMMARY_COLUMNS + " FROM events WHERE status = 'active' ORDER BY event_date ASC";
+    
+    private static final String CATEGORY_SUMMARIES_SQL =
+            "SELECT " + SUMMARY_COLUMNS + " FROM events WHERE status = 'active' AND category = ? ORDER BY event_date ASC";
+    
+    private static final String UPDATE_TICKETS_SQL =
+            "UPDATE events SET tickets_available = tickets_available - ? WHERE event_id = ? AND tickets_available >= ?";
+    
+    // Shared across DAO instances; written entities are invalidated below
+    private static final EntityCache<Integer, Event> EVENT_CACHE =
+            EntityCache.fromSystemProperties("event", 10_000, 60);
+    
+    // Built from the events table on the first search, then kept in sync by the write methods
+    private static final Object SEARCH_INDEX_LOCK = new Object();
+    private static volatile EventSearchIndex searchIndex = null;
+    
+    /**
+     * Told about committed event writes that change what can be booked,
+     * so an in-memory ticket inventory can follow them
+     */
+    public interface InventoryListener {
+        /**
+         * @param eventId Event ID
+         * @param bookable Whether the event is active after the write
+         * @param capacityDelta Change in total_tickets, applied to tickets_available as well
+         */
+        void eventChanged(int eventId, boolean bookable, int capacityDelta);
     }
     
+    private static volatile InventoryListener inventoryListener = null;
+    
     /**
      * Insert a new event
-     * @param event Event object to insert
+     * @param event Event object to insert; its eventId is set on success
      * @return true if insertion successful, false otherwise
      */
     public boolean createEvent(Event event) {
-        String sql = "INSERT INTO events (event_name, description, event_date, event_time, location, category, " +
-                     "total_tickets, tickets_available, ticket_price, organizer_id, organizer_name, status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, event.getEventName());
-            pst.setString(2, event.getDescription());
-            pst.setString(3, event.getEventDate());
-            pst.setString(4, event.getEventTime());
-            pst.setString(5, event.getLocation());
-            pst.setString(6, event.getCategory());
-            pst.setInt(7, event.getTotalTickets());
-            pst.setInt(8, event.getTicketsAvailable());
-            pst.setDouble(9, event.getTicketPrice());
-            pst.setInt(10, event.getOrganizerId());
-            pst.setString(11, event.getOrganizerName());
-            pst.setString(12, event.getStatus());
-            
-            int result = pst.executeUpdate();
-            return result > 0;
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.createEvent")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(INSERT_EVENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindEvent(pst, event);
+                
+                int result = pst.executeUpdate();
+                ResultSet keys = pst.getGeneratedKeys();
+                if (keys.next()) {
+                    event.setEventId(keys.getInt(1));
+                    indexEvent(copyOf(event));
+                }
+                if (result > 0) {
+                    StatsStore.eventChanged(null, event.getStatus());
+                    notifyInventory(event.getEventId(), event.getStatus(), 0);
+                }
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error creating event: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Insert several events with one executeBatch and one commit. If the
+     * batch fails it is rolled back and the rows are inserted one at a
+     * time, so a bad row only fails itself.
+     * @param events Events to insert; eventId is set on each one inserted
+     * @return Error message per event, null where the insert succeeded;
+     *         null if no connection could be obtained
+     */
+    public String[] createEvents(List<Event> events) {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.createEvents")) {
+            String[] errors = new String[events.size()];
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(INSERT_EVENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (Event event : events) {
+                        bindEvent(pst, event);
+                        pst.addBatch();
+                    }
+                    pst.executeBatch();
+                    
+                    ResultSet keys = pst.getGeneratedKeys();
+                    for (int i = 0; i < events.size() && keys.next(); i++) {
+                        events.get(i).setEventId(keys.getInt(1));
+                    }
+                    conn.commit();
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    for (Event event : events) {
+                        event.setEventId(0);
+                    }
+                    System.err.println("Event batch insert failed, retrying rows individually: " + e.getMessage());
+                    conn.setAutoCommit(true);
+                    for (int i = 0; i < events.size(); i++) {
+                        errors[i] = insertOne(conn, events.get(i));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error creating events: " + e.getMessage());
+                return null;
+            }
             
+            for (int i = 0; i < events.size(); i++) {
+                Event event = events.get(i);
+                if (errors[i] == null) {
+                    indexEvent(copyOf(event));
+                    StatsStore.eventChanged(null, event.getStatus());
+                    notifyInventory(event.getEventId(), event.getStatus(), 0);
+                }
+            }
+            return errors;
+        }
+    }
+    
+    private String insertOne(Connection conn, Event event) {
+        try (PreparedStatement pst = conn.prepareStatement(INSERT_EVENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindEvent(pst, event);
+            pst.executeUpdate();
+            ResultSet keys = pst.getGeneratedKeys();
+            if (keys.next()) {
+                event.setEventId(keys.getInt(1));
+            }
+            return null;
         } catch (SQLException e) {
-            System.err.println("Error creating event: " + e.getMessage());
-            return false;
+            return e.getMessage();
         }
     }
     
+    private static void bindEvent(PreparedStatement pst, Event event) throws SQLException {
+        pst.setString(1, event.getEventName());
+        pst.setString(2, event.getDescription());
+        pst.setString(3, event.getEventDate());
+        pst.setString(4, event.getEventTime());
+        pst.setString(5, event.getLocation());
+        pst.setString(6, event.getCategory());
+        pst.setInt(7, event.getTotalTickets());
+        pst.setInt(8, event.getTicketsAvailable());
+        pst.setDouble(9, event.getTicketPrice());
+        pst.setInt(10, event.getOrganizerId());
+        pst.setString(11, event.getOrganizerName());
+        pst.setString(12, event.getStatus());
+    }
+    
     /**
      * Get event by ID
      * @param eventId Event ID
      * @return Event object if found, null otherwise
      */
     public Event getEventById(int eventId) {
-        String sql = "SELECT * FROM events WHERE event_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
+        return Metrics.time("EventDAO.getEventById", () -> {
+            Event cached = EVENT_CACHE.get(eventId, this::loadEventById);
+            return cached != null ? copyOf(cached) : null;
+        });
+    }
+    
+    private Event loadEventById(int eventId) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(SELECT_EVENT_BY_ID_SQL)) {
             pst.setInt(1, eventId);
             
             ResultSet rs = pst.executeQuery();
@@ -79,19 +222,122 @@ public class EventDAO {
      * @return List of all active events
      */
     public List<Event> getAllActiveEvents() {
-        List<Event> events = new ArrayList<>();
-        String sql = "SELECT * FROM events WHERE status = 'active' ORDER BY event_date ASC";
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getAllActiveEvents")) {
+            List<Event> events = new ArrayList<>();
+            String sql = "SELECT * FROM events WHERE status = 'active' ORDER BY event_date ASC";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToEvent(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events: " + e.getMessage());
+            }
+            return events;
+        }
+    }
+    
+    /**
+     * Get list-view summaries of all active events
+     * @return List of active event summaries, soonest first
+     */
+    public List<EventSummary> getActiveEventSummaries() {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getActiveEventSummaries()")) {
+            List<EventSummary> events = new ArrayList<>();
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(ACTIVE_SUMMARIES_SQL)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToSummary(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events: " + e.getMessage());
+            }
+            return events;
+        }
+    }
+    
+    /**
+     * Keyset position of an event page cursor, "event_date|event_id"
+     */
+    private static final class EventCursor {
+        final String eventDate;
+        final int eventId;
         
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                events.add(mapResultSetToEvent(rs));
+        private EventCursor(String eventDate, int eventId) {
+            this.eventDate = eventDate;
+            this.eventId = eventId;
+        }
+        
+        /**
+         * @return Position after the cursor, or null for the first page
+         * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+         */
+        static EventCursor parse(String cursor, int pageSize) {
+            Page.checkPageSize(pageSize);
+            if (cursor == null) {
+                return null;
+            }
+            int separator = cursor.indexOf('|');
+            if (separator >= 0 && cursor.substring(0, separator).matches("\\d{4}-\\d{2}-\\d{2}")) {
+                try {
+                    return new EventCursor(cursor.substring(0, separator),
+                                           Page.parseIdCursor(cursor.substring(separator + 1), pageSize));
+                } catch (IllegalArgumentException e) {
+                    // Reported below
+                }
             }
+            throw new IllegalArgumentException("Invalid event cursor: " + cursor);
+        }
+    }
+    
+    /**
+     * Get one page of active event summaries, soonest first.
+     * Uses keyset pagination on (event_date, event_id) like getAllEvents(String, int).
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of events per page
+     * @return Page of active event summaries
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<EventSummary> getActiveEventSummaries(String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getActiveEventSummaries(String,int)")) {
+            EventCursor after = EventCursor.parse(cursor, pageSize);
+            List<EventSummary> events = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT " + SUMMARY_COLUMNS + " FROM events WHERE status = 'active' " +
+                      "ORDER BY event_date ASC, event_id ASC LIMIT ?"
+                    : "SELECT " + SUMMARY_COLUMNS + " FROM events WHERE status = 'active' " +
+                      "AND (event_date > ? OR (event_date = ? AND event_id > ?)) " +
+                      "ORDER BY event_date ASC, event_id ASC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving events: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (after != null) {
+                    pst.setString(index++, after.eventDate);
+                    pst.setString(index++, after.eventDate);
+                    pst.setInt(index++, after.eventId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToSummary(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events: " + e.getMessage());
+            }
+            return Page.of(events, pageSize, last -> last.getEventDate() + "|" + last.getEventId());
         }
-        return events;
     }
     
     /**
@@ -99,47 +345,107 @@ public class EventDAO {
      * @return List of all events
      */
     public List<Event> getAllEvents() {
-        List<Event> events = new ArrayList<>();
-        String sql = "SELECT * FROM events ORDER BY event_date ASC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                events.add(mapResultSetToEvent(rs));
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getAllEvents()")) {
+            List<Event> events = new ArrayList<>();
+            String sql = "SELECT * FROM events ORDER BY event_date ASC";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToEvent(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events: " + e.getMessage());
             }
+            return events;
+        }
+    }
+    
+    /**
+     * Get one page of all events ordered by date.
+     * Uses keyset pagination on (event_date, event_id), so a deep page
+     * costs the same as the first one.
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of events per page
+     * @return Page of events
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<Event> getAllEvents(String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getAllEvents(String,int)")) {
+            EventCursor after = EventCursor.parse(cursor, pageSize);
+            List<Event> events = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT * FROM events ORDER BY event_date ASC, event_id ASC LIMIT ?"
+                    : "SELECT * FROM events WHERE event_date > ? OR (event_date = ? AND event_id > ?) " +
+                      "ORDER BY event_date ASC, event_id ASC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving events: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (after != null) {
+                    pst.setString(index++, after.eventDate);
+                    pst.setString(index++, after.eventDate);
+                    pst.setInt(index++, after.eventId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToEvent(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events: " + e.getMessage());
+            }
+            return Page.of(events, pageSize, last -> last.getEventDate() + "|" + last.getEventId());
         }
-        return events;
     }
     
     /**
-     * Search events by name or category
-     * @param keyword Search keyword
+     * Search active events by name, category, location or description.
+     * Answered from the in-memory search index; all terms must match and
+     * the last term also matches as a prefix. Best matches come first.
+     * @param keyword Search keyword(s)
      * @return List of matching events
      */
     public List<Event> searchEvents(String keyword) {
-        List<Event> events = new ArrayList<>();
-        String sql = "SELECT * FROM events WHERE status = 'active' AND " +
-                     "(event_name LIKE ? OR category LIKE ? OR location LIKE ?) " +
-                     "ORDER BY event_date ASC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            String searchTerm = "%" + keyword + "%";
-            pst.setString(1, searchTerm);
-            pst.setString(2, searchTerm);
-            pst.setString(3, searchTerm);
-            
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                events.add(mapResultSetToEvent(rs));
+        return Metrics.time("EventDAO.searchEvents(String)", () -> searchEvents(keyword, 0));
+    }
+    
+    /**
+     * Search active events, returning at most limit results
+     * @param keyword Search keyword(s)
+     * @param limit Maximum number of results, or 0 for no limit
+     * @return List of matching events
+     */
+    public List<Event> searchEvents(String keyword, int limit) {
+        return Metrics.time("EventDAO.searchEvents(String,int)", () -> {
+            List<Event> events = new ArrayList<>();
+            for (Event event : searchIndex().search(keyword, limit)) {
+                events.add(copyOf(event));
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error searching events: " + e.getMessage());
-        }
-        return events;
+            return events;
+        });
+    }
+    
+    /**
+     * Search active events, returning list-view summaries
+     * @param keyword Search keyword(s)
+     * @param limit Maximum number of results, or 0 for no limit
+     * @return List of matching event summaries, best match first
+     */
+    public List<EventSummary> searchEventSummaries(String keyword, int limit) {
+        return Metrics.time("EventDAO.searchEventSummaries", () -> {
+            List<EventSummary> events = new ArrayList<>();
+            for (Event event : searchIndex().search(keyword, limit)) {
+                events.add(EventSummary.of(event));
+            }
+            return events;
+        });
     }
     
     /**
@@ -148,52 +454,110 @@ public class EventDAO {
      * @return List of events in category
      */
     public List<Event> getEventsByCategory(String category) {
-        List<Event> events = new ArrayList<>();
-        String sql = "SELECT * FROM events WHERE status = 'active' AND category = ? ORDER BY event_date ASC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, category);
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getEventsByCategory")) {
+            List<Event> events = new ArrayList<>();
+            String sql = "SELECT * FROM events WHERE status = 'active' AND category = ? ORDER BY event_date ASC";
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                events.add(mapResultSetToEvent(rs));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setString(1, category);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToEvent(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events by category: " + e.getMessage());
             }
+            return events;
+        }
+    }
+    
+    /**
+     * Get list-view summaries of the active events in a category
+     * @param category Event category
+     * @return List of event summaries in category, soonest first
+     */
+    public List<EventSummary> getEventSummariesByCategory(String category) {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getEventSummariesByCategory")) {
+            List<EventSummary> events = new ArrayList<>();
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving events by category: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(CATEGORY_SUMMARIES_SQL)) {
+                pst.setString(1, category);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    events.add(mapResultSetToSummary(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving events by category: " + e.getMessage());
+            }
+            return events;
         }
-        return events;
     }
     
     /**
-     * Update event
+     * Update event. tickets_available is not taken from the event: it is
+     * moved by the change in total_tickets, and the update is refused if
+     * that would leave fewer tickets than are already sold.
      * @param event Event object with updated data
      * @return true if update successful, false otherwise
      */
     public boolean updateEvent(Event event) {
-        String sql = "UPDATE events SET event_name = ?, description = ?, event_date = ?, event_time = ?, " +
-                     "location = ?, category = ?, total_tickets = ?, tickets_available = ?, " +
-                     "ticket_price = ?, status = ? WHERE event_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, event.getEventName());
-            pst.setString(2, event.getDescription());
-            pst.setString(3, event.getEventDate());
-            pst.setString(4, event.getEventTime());
-            pst.setString(5, event.getLocation());
-            pst.setString(6, event.getCategory());
-            pst.setInt(7, event.getTotalTickets());
-            pst.setInt(8, event.getTicketsAvailable());
-            pst.setDouble(9, event.getTicketPrice());
-            pst.setString(10, event.getStatus());
-            pst.setInt(11, event.getEventId());
-            
-            int result = pst.executeUpdate();
-            return result > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating event: " + e.getMessage());
-            return false;
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.updateEvent")) {
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement lock = conn.prepareStatement(
+                             "SELECT status, total_tickets FROM events WHERE event_id = ? FOR UPDATE");
+                     PreparedStatement pst = conn.prepareStatement(UPDATE_EVENT_SQL)) {
+                    lock.setInt(1, event.getEventId());
+                    ResultSet rs = lock.executeQuery();
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    String oldStatus = rs.getString(1);
+                    int capacityDelta = event.getTotalTickets() - rs.getInt(2);
+                    
+                    pst.setString(1, event.getEventName());
+                    pst.setString(2, event.getDescription());
+                    pst.setString(3, event.getEventDate());
+                    pst.setString(4, event.getEventTime());
+                    pst.setString(5, event.getLocation());
+                    pst.setString(6, event.getCategory());
+                    pst.setInt(7, event.getTotalTickets());
+                    pst.setInt(8, event.getTotalTickets());
+                    pst.setDouble(9, event.getTicketPrice());
+                    pst.setString(10, event.getStatus());
+                    pst.setInt(11, event.getEventId());
+                    pst.setInt(12, event.getTotalTickets());
+                    
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    EVENT_CACHE.invalidate(event.getEventId());
+                    if (result > 0) {
+                        StatsStore.eventChanged(oldStatus, event.getStatus());
+                        notifyInventory(event.getEventId(), event.getStatus(), capacityDelta);
+                        indexEvent(copyOf(event));
+                    }
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error updating event: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -203,17 +567,50 @@ public class EventDAO {
      * @return true if deletion successful, false otherwise
      */
     public boolean deleteEvent(int eventId) {
-        String sql = "UPDATE events SET status = 'cancelled' WHERE event_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, eventId);
-            
-            int result = pst.executeUpdate();
-            return result > 0;
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.deleteEvent")) {
+            String sql = "UPDATE events SET status = 'cancelled' WHERE event_id = ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error deleting event: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                    String oldStatus = lockEventStatus(conn, eventId);
+                    if (oldStatus == null) {
+                        conn.rollback();
+                        return false;
+                    }
+                    
+                    pst.setInt(1, eventId);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    EVENT_CACHE.invalidate(eventId);
+                    StatsStore.eventChanged(oldStatus, "cancelled");
+                    notifyInventory(eventId, "cancelled", 0);
+                    unindexEvent(eventId);
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error deleting event: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Lock an event row for the current transaction and read its status
+     * @return Status before the caller's update, or null if the event does not exist
+     */
+    private static String lockEventStatus(Connection conn, int eventId) throws SQLException {
+        try (PreparedStatement lock = conn.prepareStatement("SELECT status FROM events WHERE event_id = ? FOR UPDATE")) {
+            lock.setInt(1, eventId);
+            ResultSet rs = lock.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
         }
     }
     
@@ -224,22 +621,188 @@ public class EventDAO {
      * @return true if update successful, false otherwise
      */
     public boolean updateTicketAvailability(int eventId, int ticketsToReduce) {
-        String sql = "UPDATE events SET tickets_available = tickets_available - ? WHERE event_id = ? AND tickets_available >= ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, ticketsToReduce);
-            pst.setInt(2, eventId);
-            pst.setInt(3, ticketsToReduce);
-            
-            int result = pst.executeUpdate();
-            return result > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating ticket availability: " + e.getMessage());
-            return false;
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.updateTicketAvailability")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(UPDATE_TICKETS_SQL)) {
+                pst.setInt(1, ticketsToReduce);
+                pst.setInt(2, eventId);
+                pst.setInt(3, ticketsToReduce);
+                
+                int result = pst.executeUpdate();
+                EVENT_CACHE.invalidate(eventId);
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error updating ticket availability: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Get current ticket availability of every active event
+     * @return Map of event ID to tickets available
+     */
+    public Map<Integer, Integer> getActiveTicketAvailability() {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.getActiveTicketAvailability")) {
+            Map<Integer, Integer> availability = new HashMap<>();
+            String sql = "SELECT event_id, tickets_available FROM events WHERE status = 'active'";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    availability.put(rs.getInt(1), rs.getInt(2));
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving ticket availability: " + e.getMessage());
+            }
+            return availability;
+        }
+    }
+
+    /**
+     * Apply several ticket decrements in one batch, in one transaction:
+     * either every decrement is applied or none is, so a failed batch can
+     * be retried whole without applying part of it twice
+     * @param decrements Map of event ID to number of tickets to reduce
+     * @return true if the batch was applied, false if nothing was applied
+     */
+    public boolean applyTicketDecrements(Map<Integer, Integer> decrements) {
+        try (MethodStats.Sample sample = Metrics.start("EventDAO.applyTicketDecrements")) {
+            String sql = "UPDATE events SET tickets_available = tickets_available - ? WHERE event_id = ?";
+
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                    for (Map.Entry<Integer, Integer> entry : decrements.entrySet()) {
+                        pst.setInt(1, entry.getValue());
+                        pst.setInt(2, entry.getKey());
+                        pst.addBatch();
+                    }
+                    pst.executeBatch();
+                    conn.commit();
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                for (Integer eventId : decrements.keySet()) {
+                    EVENT_CACHE.invalidate(eventId);
+                }
+                return true;
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error applying ticket decrements: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Get the search index, building it from the active events on first use
+     */
+    private EventSearchIndex searchIndex() {
+        EventSearchIndex index = searchIndex;
+        if (index == null) {
+            synchronized (SEARCH_INDEX_LOCK) {
+                index = searchIndex;
+                if (index == null) {
+                    long start = System.nanoTime();
+                    index = new EventSearchIndex();
+                    for (Event event : getAllActiveEvents()) {
+                        index.upsert(event);
+                    }
+                    searchIndex = index;
+                    System.out.println("✓ Event search index built: " + index.size() + " events in " +
+                                       (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Add or refresh an event in the search index, if the index has been built
+     */
+    private static void indexEvent(Event event) {
+        synchronized (SEARCH_INDEX_LOCK) {
+            if (searchIndex != null) {
+                searchIndex.upsert(event);
+            }
+        }
+    }
+    
+    private static void unindexEvent(int eventId) {
+        synchronized (SEARCH_INDEX_LOCK) {
+            if (searchIndex != null) {
+                searchIndex.remove(eventId);
+            }
+        }
+    }
+    
+    /**
+     * Register the inventory to tell about event writes (one per process)
+     * @param listener Listener, or null to stop notifications
+     */
+    public static void setInventoryListener(InventoryListener listener) {
+        inventoryListener = listener;
+    }
+    
+    private static void notifyInventory(int eventId, String status, int capacityDelta) {
+        InventoryListener listener = inventoryListener;
+        if (listener != null) {
+            listener.eventChanged(eventId, "active".equalsIgnoreCase(status), capacityDelta);
         }
     }
     
+    /**
+     * Drop a cached event after another DAO changed its row
+     * @param eventId Event ID
+     */
+    static void invalidateCachedEvent(int eventId) {
+        EVENT_CACHE.invalidate(eventId);
+    }
+    
+    /**
+     * Event cache statistics
+     */
+    public static EntityCache<Integer, Event> getCache() {
+        return EVENT_CACHE;
+    }
+    
+    /**
+     * Copy a cached event so callers can modify their instance freely
+     */
+    private static Event copyOf(Event e) {
+        return new Event(e.getEventId(), e.getEventName(), e.getDescription(), e.getEventDate(),
+                         e.getEventTime(), e.getLocation(), e.getCategory(), e.getTotalTickets(),
+                         e.getTicketsAvailable(), e.getTicketPrice(), e.getOrganizerId(),
+                         e.getOrganizerName(), e.getStatus(), e.getCreatedAt());
+    }
+    
+    /**
+     * Helper method to map a SUMMARY_COLUMNS row to an EventSummary, by column index
+     */
+    private EventSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        return new EventSummary(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getInt(7),
+            rs.getInt(8),
+            rs.getDouble(9),
+            rs.getString(10)
+        );
+    }
+    
     /**
      * Helper method to map ResultSet to Event object
      */
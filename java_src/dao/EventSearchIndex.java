@@ -0,0 +1,460 @@
+package dao;
+
+import model.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Event Search Index
+ * In-memory inverted index over the name, category, location and
+ * description of active events.
+ *
+ * Each term maps to a posting list of event IDs sorted ascending, with a
+ * field-weighted term frequency per event. A query is split into terms
+ * that must all match (AND); the last term also matches as a prefix so
+ * the index can answer search-as-you-type. Results are ranked by TF-IDF,
+ * then by event date.
+ *
+ * Documents are stored in arrays indexed by event ID, which works well
+ * because event IDs are AUTO_INCREMENT and therefore dense. Ticket
+ * availability in the stored events is a snapshot; callers that show it
+ * should overlay the live count.
+ */
+class EventSearchIndex {
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 3;
+    private static final int LOCATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term -> posting list; sorted so prefixes can be expanded with subMap
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+
+    // Event ID -> indexed event, its date as yyyymmdd, and the terms it was indexed under
+    private Event[] documents = new Event[1024];
+    private int[] dateKeys = new int[1024];
+    private String[][] documentTerms = new String[1024][];
+    private int documentCount;
+
+    /**
+     * Add or replace an event. Events that are not active are removed.
+     * @param event Event to index
+     */
+    void upsert(Event event) {
+        lock.writeLock().lock();
+        try {
+            int eventId = event.getEventId();
+            removeLocked(eventId);
+            if (!"active".equalsIgnoreCase(event.getStatus())) {
+                return;
+            }
+
+            Map<String, Integer> weights = new HashMap<>();
+            addTerms(weights, event.getEventName(), NAME_WEIGHT);
+            addTerms(weights, event.getCategory(), CATEGORY_WEIGHT);
+            addTerms(weights, event.getLocation(), LOCATION_WEIGHT);
+            addTerms(weights, event.getDescription(), DESCRIPTION_WEIGHT);
+
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new PostingList()).add(eventId, entry.getValue());
+            }
+            ensureCapacity(eventId);
+            documents[eventId] = event;
+            dateKeys[eventId] = dateKey(event.getEventDate());
+            documentTerms[eventId] = weights.keySet().toArray(new String[0]);
+            documentCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an event from the index
+     * @param eventId Event ID
+     */
+    void remove(int eventId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(eventId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int eventId) {
+        if (eventId < 0 || eventId >= documents.length || documents[eventId] == null) {
+            return;
+        }
+        for (String term : documentTerms[eventId]) {
+            PostingList list = postings.get(term);
+            if (list != null && list.remove(eventId) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        documents[eventId] = null;
+        documentTerms[eventId] = null;
+        documentCount--;
+    }
+
+    private void ensureCapacity(int eventId) {
+        if (eventId >= documents.length) {
+            int capacity = Math.max(eventId + 1, documents.length * 2);
+            documents = Arrays.copyOf(documents, capacity);
+            dateKeys = Arrays.copyOf(dateKeys, capacity);
+            documentTerms = Arrays.copyOf(documentTerms, capacity);
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search active events
+     * @param query Free-text query; a blank query returns every active event
+     * @param limit Maximum number of results, or 0 for no limit
+     * @return Matching events, best match first
+     */
+    List<Event> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+
+        lock.readLock().lock();
+        try {
+            Ranker ranker = new Ranker(limit);
+
+            if (terms.isEmpty()) {
+                for (int id = 0; id < documents.length; id++) {
+                    if (documents[id] != null) {
+                        ranker.offer(id, 0);
+                    }
+                }
+                return ranker.results();
+            }
+
+            // Resolve every term to its scored posting list
+            ScoredDocs[] perTerm = new ScoredDocs[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = i == terms.size() - 1;
+                perTerm[i] = prefix ? lookupPrefix(terms.get(i)) : lookupExact(terms.get(i));
+                if (perTerm[i].size == 0) {
+                    return new ArrayList<>();
+                }
+            }
+
+            // Intersect, driving from the shortest list and galloping through the others
+            Arrays.sort(perTerm, (a, b) -> Integer.compare(a.size, b.size));
+            ScoredDocs driver = perTerm[0];
+            int[] cursors = new int[perTerm.length];
+            outer:
+            for (int i = 0; i < driver.size; i++) {
+                int eventId = driver.ids[i];
+                double score = driver.score(i);
+                for (int t = 1; t < perTerm.length; t++) {
+                    ScoredDocs other = perTerm[t];
+                    int pos = advance(other, cursors[t], eventId);
+                    if (pos >= other.size) {
+                        break outer;
+                    }
+                    cursors[t] = pos;
+                    if (other.ids[pos] != eventId) {
+                        continue outer;
+                    }
+                    score += other.score(pos);
+                }
+                ranker.offer(eventId, score);
+            }
+            return ranker.results();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index of the first ID >= target at or after from, found by galloping
+     */
+    private static int advance(ScoredDocs docs, int from, int target) {
+        int[] ids = docs.ids;
+        if (from >= docs.size || ids[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < docs.size && ids[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, docs.size - 1);
+        int pos = Arrays.binarySearch(ids, low + 1, high + 1, target);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private ScoredDocs lookupExact(String term) {
+        PostingList list = postings.get(term);
+        if (list == null) {
+            return ScoredDocs.EMPTY;
+        }
+        return list.scored(idf(list.size));
+    }
+
+    private ScoredDocs lookupPrefix(String prefix) {
+        NavigableMap<String, PostingList> matches = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matches.isEmpty()) {
+            return ScoredDocs.EMPTY;
+        }
+        if (matches.size() == 1) {
+            PostingList list = matches.firstEntry().getValue();
+            return list.scored(idf(list.size));
+        }
+        return union(matches.values());
+    }
+
+    /**
+     * Merge several posting lists, keeping the best score per event.
+     * Entries are packed as (id, score bits) longs so a primitive sort
+     * groups them by ID without boxing.
+     */
+    private ScoredDocs union(Collection<PostingList> lists) {
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size;
+        }
+        long[] packed = new long[total];
+        int n = 0;
+        for (PostingList list : lists) {
+            double idf = idf(list.size);
+            for (int i = 0; i < list.size; i++) {
+                float score = (float) (list.weights[i] * idf);
+                packed[n++] = ((long) list.ids[i] << 32) | (Float.floatToIntBits(score) & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] ids = new int[total];
+        double[] scores = new double[total];
+        int size = 0;
+        for (long entry : packed) {
+            int id = (int) (entry >>> 32);
+            double score = Float.intBitsToFloat((int) entry);
+            if (size > 0 && ids[size - 1] == id) {
+                // Same event: entries are sorted by score bits, so this one is higher
+                scores[size - 1] = score;
+            } else {
+                ids[size] = id;
+                scores[size] = score;
+                size++;
+            }
+        }
+        return new ScoredDocs(ids, scores, size);
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1.0 + (double) documentCount / documentFrequency);
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Turn a yyyy-mm-dd date into a sortable int; unknown dates sort last
+     */
+    private static int dateKey(String date) {
+        if (date == null || date.length() < 10) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.parseInt(date.substring(0, 4)) * 10000 +
+                   Integer.parseInt(date.substring(5, 7)) * 100 +
+                   Integer.parseInt(date.substring(8, 10));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Split text into lower-case alphanumeric terms
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Collects matches in rank order: best score first, then earliest date,
+     * then lowest ID. With a limit it keeps only the best `limit` matches in
+     * a bounded heap and rejects worse candidates without allocating.
+     */
+    private final class Ranker {
+
+        private final int limit;
+        private final PriorityQueue<Hit> worstFirst;
+        private final List<Hit> all;
+
+        Ranker(int limit) {
+            this.limit = limit;
+            this.worstFirst = limit > 0 ? new PriorityQueue<>(limit + 1, (a, b) -> compare(b, a)) : null;
+            this.all = limit > 0 ? null : new ArrayList<>();
+        }
+
+        void offer(int eventId, double score) {
+            if (worstFirst == null) {
+                all.add(new Hit(eventId, score, dateKeys[eventId]));
+                return;
+            }
+            if (worstFirst.size() == limit) {
+                if (compare(score, dateKeys[eventId], eventId, worstFirst.peek()) >= 0) {
+                    return;
+                }
+                worstFirst.poll();
+            }
+            worstFirst.add(new Hit(eventId, score, dateKeys[eventId]));
+        }
+
+        List<Event> results() {
+            List<Hit> hits = worstFirst != null ? new ArrayList<>(worstFirst) : all;
+            hits.sort(this::compare);
+            List<Event> events = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                events.add(documents[hit.eventId]);
+            }
+            return events;
+        }
+
+        private int compare(Hit a, Hit b) {
+            return compare(a.score, a.dateKey, a.eventId, b);
+        }
+
+        private int compare(double score, int dateKey, int eventId, Hit other) {
+            int byScore = Double.compare(other.score, score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byDate = Integer.compare(dateKey, other.dateKey);
+            return byDate != 0 ? byDate : Integer.compare(eventId, other.eventId);
+        }
+    }
+
+    private static final class Hit {
+        final int eventId;
+        final double score;
+        final int dateKey;
+
+        Hit(int eventId, double score, int dateKey) {
+            this.eventId = eventId;
+            this.score = score;
+            this.dateKey = dateKey;
+        }
+    }
+
+    /**
+     * Event IDs (ascending) with a score each. Single-term lists share the
+     * posting arrays and compute scores on demand instead of copying them.
+     */
+    private static final class ScoredDocs {
+        static final ScoredDocs EMPTY = new ScoredDocs(new int[0], new double[0], 0);
+
+        final int[] ids;
+        final int size;
+        private final double[] scores;
+        private final int[] weights;
+        private final double idf;
+
+        ScoredDocs(int[] ids, double[] scores, int size) {
+            this.ids = ids;
+            this.scores = scores;
+            this.size = size;
+            this.weights = null;
+            this.idf = 0;
+        }
+
+        ScoredDocs(int[] ids, int[] weights, int size, double idf) {
+            this.ids = ids;
+            this.weights = weights;
+            this.size = size;
+            this.idf = idf;
+            this.scores = null;
+        }
+
+        double score(int i) {
+            return scores != null ? scores[i] : weights[i] * idf;
+        }
+    }
+
+    /**
+     * Growable posting list: event IDs kept sorted, with a weight per event.
+     * New events get increasing IDs, so adds are almost always appends.
+     */
+    private static final class PostingList {
+        int[] ids = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        void add(int eventId, int weight) {
+            int pos = Arrays.binarySearch(ids, 0, size, eventId);
+            if (pos >= 0) {
+                weights[pos] = weight;
+                return;
+            }
+            int insertAt = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = eventId;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        boolean remove(int eventId) {
+            int pos = Arrays.binarySearch(ids, 0, size, eventId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        ScoredDocs scored(double idf) {
+            return new ScoredDocs(ids, weights, size, idf);
+        }
+    }
+}
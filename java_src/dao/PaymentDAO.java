@@ -1,11 +1,19 @@
 package dao;
 
 import model.Payment;
+import model.Page;
+import model.ExportFilter;
 import utils.DBConnection;
+import utils.GroupCommitWriter;
+import utils.IdempotencyCache;
+import utils.ExportWriter;
+import utils.MethodStats;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Payment DAO Class
@@ -13,58 +21,190 @@ import java.util.List;
  */
 public class PaymentDAO {
     
-    private Connection connection;
+    private static final String SELECT_PAYMENT_BY_ID_SQL =
+            "SELECT * FROM payments WHERE payment_id = ?";
     
-    public PaymentDAO() throws SQLException {
-        this.connection = DBConnection.getConnection();
+    private static final String LOCK_PAYMENT_SQL =
+            "SELECT status, amount FROM payments WHERE payment_id = ? FOR UPDATE";
+    
+    private static final String UPDATE_PAYMENT_STATUS_SQL =
+            "UPDATE payments SET status = ? WHERE payment_id = ?";
+    
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (booking_id, user_id, amount, payment_method, transaction_id, status, idempotency_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    // Recent idempotency keys -> payment ID, shared across DAO instances
+    private static final IdempotencyCache IDEMPOTENCY_KEYS = IdempotencyCache.fromSystemProperties("payment");
+    
+    // Created on first use so the writer thread only starts in group-commit mode
+    private static class BatchWriterHolder {
+        static final GroupCommitWriter<Payment> WRITER =
+                GroupCommitWriter.fromSystemProperties("payments", INSERT_PAYMENT_SQL, PaymentDAO::bindPayment);
     }
     
     /**
      * Record a new payment
-     * @param payment Payment object to record
+     * @param payment Payment object to record; its paymentId is set on success
      * @return true if recording successful, false otherwise
      */
     public boolean recordPayment(Payment payment) {
-        String sql = "INSERT INTO payments (booking_id, user_id, amount, payment_method, transaction_id, status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, payment.getBookingId());
-            pst.setInt(2, payment.getUserId());
-            pst.setDouble(3, payment.getAmount());
-            pst.setString(4, payment.getPaymentMethod());
-            pst.setString(5, payment.getTransactionId());
-            pst.setString(6, payment.getStatus());
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.recordPayment")) {
+            if (GroupCommitWriter.isEnabled()) {
+                try {
+                    payment.setPaymentId(BatchWriterHolder.WRITER.write(payment));
+                    StatsStore.paymentChanged(null, payment.getStatus(), payment.getAmount());
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (SQLException e) {
+                    sample.fail();
+                    System.err.println("Error recording payment: " + e.getMessage());
+                    return false;
+                }
+            }
             
-            int result = pst.executeUpdate();
-            return result > 0;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(INSERT_PAYMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindPayment(pst, payment);
+                
+                int result = pst.executeUpdate();
+                if (result > 0) {
+                    ResultSet keys = pst.getGeneratedKeys();
+                    if (keys.next()) {
+                        payment.setPaymentId(keys.getInt(1));
+                    }
+                    StatsStore.paymentChanged(null, payment.getStatus(), payment.getAmount());
+                }
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error recording payment: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Record a payment at most once per idempotency key. A retry with the
+     * same key gets the payment the first attempt recorded, from memory
+     * within the idempotency.payment.windowSeconds window and from the
+     * payments table after that, without inserting again. Keys are scoped
+     * to the paying user.
+     * @param payment Payment object to record; its paymentId is set on success
+     * @param idempotencyKey Client-chosen key, at most 64 characters; null records unconditionally
+     * @return true if the payment is recorded, by this call or an earlier one with the same key
+     * @throws IllegalArgumentException if the key is invalid, or was already used for a
+     *         payment of a different booking or amount
+     */
+    public boolean recordPayment(Payment payment, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return recordPayment(payment);
+        }
+        IdempotencyCache.validateKey(idempotencyKey);
+        return Metrics.time("PaymentDAO.recordPayment(Payment,String)", () -> {
+            payment.setIdempotencyKey(idempotencyKey);
+            int paymentId = IDEMPOTENCY_KEYS.execute(payment.getUserId() + ":" + idempotencyKey,
+                    payment.getBookingId() + ":" + IdempotencyCache.cents(payment.getAmount()),
+                    () -> {
+                        Payment earlier = getPaymentByIdempotencyKey(payment.getUserId(), idempotencyKey);
+                        if (earlier == null) {
+                            return 0;
+                        }
+                        if (earlier.getBookingId() != payment.getBookingId()
+                                || IdempotencyCache.cents(earlier.getAmount()) != IdempotencyCache.cents(payment.getAmount())) {
+                            throw new IllegalArgumentException("Idempotency key " + idempotencyKey
+                                    + " was already used for a different payment");
+                        }
+                        return earlier.getPaymentId();
+                    },
+                    () -> recordPayment(payment) ? payment.getPaymentId() : -1);
+            if (paymentId <= 0) {
+                return false;
+            }
+            payment.setPaymentId(paymentId);
+            return true;
+        });
+    }
+    
+    /**
+     * Find the payment a user's idempotency key recorded
+     * @param userId User ID; keys are unique per user
+     * @param idempotencyKey Key given when the payment was recorded
+     * @return Payment object if found, null otherwise
+     */
+    public Payment getPaymentByIdempotencyKey(int userId, String idempotencyKey) {
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getPaymentByIdempotencyKey")) {
+            String sql = "SELECT * FROM payments WHERE user_id = ? AND idempotency_key = ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error recording payment: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, userId);
+                pst.setString(2, idempotencyKey);
+                
+                ResultSet rs = pst.executeQuery();
+                return rs.next() ? mapResultSetToPayment(rs) : null;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error looking up idempotency key: " + e.getMessage());
+                return null;
+            }
         }
     }
     
+    /**
+     * Idempotency key window statistics
+     */
+    public static IdempotencyCache getIdempotencyKeys() {
+        return IDEMPOTENCY_KEYS;
+    }
+    
+    /**
+     * Queue a payment insert for the next group commit
+     * @param payment Payment object to record
+     * @return Future completed with the new payment ID
+     */
+    public CompletableFuture<Integer> recordPaymentAsync(Payment payment) {
+        return Metrics.time("PaymentDAO.recordPaymentAsync", () -> {
+            return BatchWriterHolder.WRITER.submit(payment).thenApply(paymentId -> {
+                StatsStore.paymentChanged(null, payment.getStatus(), payment.getAmount());
+                return paymentId;
+            });
+        });
+    }
+    
+    /**
+     * Group-commit writer for payment inserts (flush-size and latency histograms)
+     */
+    public static GroupCommitWriter<Payment> getBatchWriter() {
+        return BatchWriterHolder.WRITER;
+    }
+    
     /**
      * Get payment by ID
      * @param paymentId Payment ID
      * @return Payment object if found, null otherwise
      */
     public Payment getPaymentById(int paymentId) {
-        String sql = "SELECT * FROM payments WHERE payment_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, paymentId);
-            
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToPayment(rs);
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getPaymentById")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(SELECT_PAYMENT_BY_ID_SQL)) {
+                pst.setInt(1, paymentId);
+                
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return mapResultSetToPayment(rs);
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving payment: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving payment: " + e.getMessage());
+            return null;
         }
-        return null;
     }
     
     /**
@@ -73,21 +213,25 @@ public class PaymentDAO {
      * @return List of user's payments
      */
     public List<Payment> getUserPayments(int userId) {
-        List<Payment> payments = new ArrayList<>();
-        String sql = "SELECT * FROM payments WHERE user_id = ? ORDER BY payment_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, userId);
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getUserPayments")) {
+            List<Payment> payments = new ArrayList<>();
+            String sql = "SELECT * FROM payments WHERE user_id = ? ORDER BY payment_date DESC";
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                payments.add(mapResultSetToPayment(rs));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, userId);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    payments.add(mapResultSetToPayment(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving user payments: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving user payments: " + e.getMessage());
+            return payments;
         }
-        return payments;
     }
     
     /**
@@ -96,21 +240,25 @@ public class PaymentDAO {
      * @return List of booking payments
      */
     public List<Payment> getBookingPayments(int bookingId) {
-        List<Payment> payments = new ArrayList<>();
-        String sql = "SELECT * FROM payments WHERE booking_id = ? ORDER BY payment_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, bookingId);
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getBookingPayments")) {
+            List<Payment> payments = new ArrayList<>();
+            String sql = "SELECT * FROM payments WHERE booking_id = ? ORDER BY payment_date DESC";
             
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                payments.add(mapResultSetToPayment(rs));
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, bookingId);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    payments.add(mapResultSetToPayment(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving booking payments: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving booking payments: " + e.getMessage());
+            return payments;
         }
-        return payments;
     }
     
     /**
@@ -118,19 +266,81 @@ public class PaymentDAO {
      * @return List of all payments
      */
     public List<Payment> getAllPayments() {
-        List<Payment> payments = new ArrayList<>();
-        String sql = "SELECT * FROM payments ORDER BY payment_date DESC";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                payments.add(mapResultSetToPayment(rs));
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getAllPayments()")) {
+            List<Payment> payments = new ArrayList<>();
+            String sql = "SELECT * FROM payments ORDER BY payment_date DESC";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    payments.add(mapResultSetToPayment(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving payments: " + e.getMessage());
             }
+            return payments;
+        }
+    }
+    
+    /**
+     * Get one page of all payments, newest first.
+     * Uses keyset pagination on payment_id, so a deep page costs the same as the first one.
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of rows per page
+     * @return Page of payments
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<Payment> getAllPayments(String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getAllPayments(String,int)")) {
+            int afterId = Page.parseIdCursor(cursor, pageSize);
+            List<Payment> payments = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT * FROM payments ORDER BY payment_id DESC LIMIT ?"
+                    : "SELECT * FROM payments WHERE payment_id < ? ORDER BY payment_id DESC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving payments: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (cursor != null) {
+                    pst.setInt(index++, afterId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    payments.add(mapResultSetToPayment(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving payments: " + e.getMessage());
+            }
+            return Page.of(payments, pageSize, last -> String.valueOf(last.getPaymentId()));
         }
-        return payments;
+    }
+    
+    /**
+     * Stream payments matching a filter to a CSV or NDJSON writer.
+     * The event filter goes through the payment's booking; the date range
+     * applies to created_at.
+     * @param filter Filters, or null to export every payment
+     * @param out Destination writer
+     * @return Number of rows written, or -1 on failure
+     */
+    public long exportPayments(ExportFilter filter, ExportWriter out) {
+        return Metrics.time("PaymentDAO.exportPayments", () -> {
+            StringBuilder sql = new StringBuilder(
+                    "SELECT p.payment_id, p.booking_id, b.event_id, p.user_id, p.amount, p.payment_method, " +
+                    "p.transaction_id, p.payment_date, p.payment_time, p.status, p.remarks, p.created_at " +
+                    "FROM payments p JOIN bookings b ON b.booking_id = p.booking_id WHERE 1 = 1");
+            List<Object> params = new ArrayList<>();
+            StreamingExport.appendFilter(sql, params, filter, "b.event_id", "p.created_at", "p.status");
+            sql.append(" ORDER BY p.payment_id");
+            return StreamingExport.stream(sql.toString(), params, out, "payments");
+        });
     }
     
     /**
@@ -140,18 +350,38 @@ public class PaymentDAO {
      * @return true if update successful, false otherwise
      */
     public boolean updatePaymentStatus(int paymentId, String status) {
-        String sql = "UPDATE payments SET status = ? WHERE payment_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, status);
-            pst.setInt(2, paymentId);
-            
-            int result = pst.executeUpdate();
-            return result > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating payment status: " + e.getMessage());
-            return false;
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.updatePaymentStatus")) {
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement lock = conn.prepareStatement(LOCK_PAYMENT_SQL);
+                     PreparedStatement pst = conn.prepareStatement(UPDATE_PAYMENT_STATUS_SQL)) {
+                    lock.setInt(1, paymentId);
+                    ResultSet rs = lock.executeQuery();
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    String oldStatus = rs.getString("status");
+                    double amount = rs.getDouble("amount");
+                    
+                    pst.setString(1, status);
+                    pst.setInt(2, paymentId);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    StatsStore.paymentChanged(oldStatus, status, amount);
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error updating payment status: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -160,18 +390,22 @@ public class PaymentDAO {
      * @return Total payments count
      */
     public int getTotalPaymentsCount() {
-        String sql = "SELECT COUNT(*) FROM payments";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        try (MethodStats.Sample sample = Metrics.start("PaymentDAO.getTotalPaymentsCount")) {
+            String sql = "SELECT COUNT(*) FROM payments";
             
-        } catch (SQLException e) {
-            System.err.println("Error getting payments count: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error getting payments count: " + e.getMessage());
+            }
+            return 0;
         }
-        return 0;
     }
     
     /**
@@ -179,25 +413,27 @@ public class PaymentDAO {
      * @return Total amount from successful payments
      */
     public double getTotalPaymentsAmount() {
-        String sql = "SELECT SUM(amount) FROM payments WHERE status = 'success'";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting total payments amount: " + e.getMessage());
-        }
-        return 0;
+        return Metrics.time("PaymentDAO.getTotalPaymentsAmount", () -> StatsStore.getInstance().getSuccessfulPaymentsAmount());
+    }
+    
+    /**
+     * Helper method to bind a Payment to INSERT_PAYMENT_SQL
+     */
+    private static void bindPayment(PreparedStatement pst, Payment payment) throws SQLException {
+        pst.setInt(1, payment.getBookingId());
+        pst.setInt(2, payment.getUserId());
+        pst.setDouble(3, payment.getAmount());
+        pst.setString(4, payment.getPaymentMethod());
+        pst.setString(5, payment.getTransactionId());
+        pst.setString(6, payment.getStatus());
+        pst.setString(7, payment.getIdempotencyKey());
     }
     
     /**
      * Helper method to map ResultSet to Payment object
      */
     private Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
-        return new Payment(
+        Payment payment = new Payment(
             rs.getInt("payment_id"),
             rs.getInt("booking_id"),
             rs.getInt("user_id"),
@@ -209,5 +445,7 @@ public class PaymentDAO {
             rs.getString("status"),
             rs.getString("remarks")
         );
+        payment.setIdempotencyKey(rs.getString("idempotency_key"));
+        return payment;
     }
 }
@@ -0,0 +1,359 @@
+package dao;
+
+import model.Principal;
+import model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session Store
+ * Issues opaque session tokens at login and maps them to a Principal, so
+ * checking who is calling and whether they are an admin needs no query
+ * after the login itself.
+ *
+ * Sessions expire after session.ttlMinutes without use; every lookup
+ * pushes the expiry back. At most session.maxSessions are kept: when the
+ * store is full the least recently used sessions are dropped to make
+ * room. UserDAO.updateUser and deleteUser end every session of the user
+ * they change, so a deactivated user or a changed role takes effect on
+ * the next request. A login racing such a change is caught too: login
+ * notes a change counter before reading the user and re-reads them if
+ * any user changed before the session was registered, so a stale role
+ * cannot slip in after the sessions were ended. Expired sessions are
+ * purged in the background.
+ *
+ * Settings (system properties):
+ *   session.ttlMinutes        Idle time before a session expires (default 30)
+ *   session.maxSessions       Sessions kept at most (default 100000)
+ *   session.purgeIntervalMs   Expired session purge interval (default 60000)
+ */
+public class SessionStore {
+
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("session.ttlMinutes", 30));
+    private static final int MAX_SESSIONS = Integer.getInteger("session.maxSessions", 100_000);
+    private static final long PURGE_INTERVAL_MS = Long.getLong("session.purgeIntervalMs", 60_000);
+
+    // Share of the cap freed at once when full, so a burst of logins does not scan per login
+    private static final int EVICTION_BATCH = Math.max(1, MAX_SESSIONS / 100);
+
+    private static volatile SessionStore instance = null;
+
+    // Bumped before a changed user's sessions are ended, so a login can tell it may have read a stale user
+    private static final AtomicLong USER_CHANGES = new AtomicLong();
+
+    private static final class Session {
+        final String token;
+        final Principal principal;
+        volatile long expiresAt;
+
+        Session(String token, Principal principal, long expiresAt) {
+            this.token = token;
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // User ID -> that user's session tokens
+    private final ConcurrentHashMap<Integer, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final UserDAO userDAO = new UserDAO();
+    private final ScheduledExecutorService purger;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Get the shared session store
+     * @return SessionStore
+     */
+    public static SessionStore getInstance() {
+        SessionStore current = instance;
+        if (current == null) {
+            synchronized (SessionStore.class) {
+                current = instance;
+                if (current == null) {
+                    current = new SessionStore();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private SessionStore() {
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-purger");
+            t.setDaemon(true);
+            return t;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_MS, PURGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Check a username and password and start a session
+     * @param username Username
+     * @param password Password
+     * @return Session token, or null if the credentials are invalid
+     */
+    public String login(String username, String password) {
+        long stamp = USER_CHANGES.get();
+        User user = userDAO.loginUser(username, password);
+        return user != null ? createSession(user, stamp) : null;
+    }
+
+    /**
+     * Start a session for an authenticated user. The user must have been
+     * read just now: a change made before this call is not detected, so
+     * prefer login(), which checks for one.
+     * @param user User who logged in
+     * @return Session token
+     */
+    public String createSession(User user) {
+        return createSession(user, USER_CHANGES.get());
+    }
+
+    /**
+     * Register a session, then check no change to any user landed since the
+     * stamp was taken. A change after the check ends this session itself,
+     * since it bumps the counter before ending sessions.
+     * @return Session token, or null if the re-read user is gone or inactive
+     */
+    private String createSession(User user, long stamp) {
+        while (true) {
+            Session session = register(user);
+            long now = USER_CHANGES.get();
+            if (now == stamp) {
+                return session.token;
+            }
+            // A user changed while this one logged in, perhaps this one; re-read it
+            remove(session);
+            stamp = now;
+            user = userDAO.getUserById(user.getUserId());
+            if (user == null || !user.isActive()) {
+                return null;
+            }
+        }
+    }
+
+    private Session register(User user) {
+        if (sessions.size() >= MAX_SESSIONS) {
+            makeRoom();
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(token, Principal.of(user), System.nanoTime() + TTL_NANOS);
+        sessions.put(token, session);
+        // remove() drops a user's set once it is empty; retry if ours was dropped under us
+        Set<String> tokens;
+        do {
+            tokens = sessionsByUser.computeIfAbsent(user.getUserId(), k -> ConcurrentHashMap.newKeySet());
+            tokens.add(token);
+        } while (sessionsByUser.get(user.getUserId()) != tokens);
+        created.increment();
+        return session;
+    }
+
+    /**
+     * Look up the user behind a token and extend the session
+     * @param token Session token
+     * @return Principal, or null if the token is unknown or expired
+     */
+    public Principal getPrincipal(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.expiresAt >= 0) {
+            remove(session);
+            expired.increment();
+            return null;
+        }
+        session.expiresAt = now + TTL_NANOS;
+        return session.principal;
+    }
+
+    /**
+     * Check that a token belongs to a logged-in administrator
+     * @param token Session token
+     * @return true if the session is valid and its user is an admin
+     */
+    public boolean isAdmin(String token) {
+        Principal principal = getPrincipal(token);
+        return principal != null && principal.isAdmin();
+    }
+
+    /**
+     * End a session
+     * @param token Session token
+     */
+    public void logout(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    /**
+     * End every session of a user
+     * @param userId User ID
+     * @return Number of sessions ended
+     */
+    public int endSessions(int userId) {
+        Set<String> tokens = sessionsByUser.remove(userId);
+        if (tokens == null) {
+            return 0;
+        }
+        int ended = 0;
+        for (String token : tokens) {
+            if (sessions.remove(token) != null) {
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    // Write-path hook: a changed user must log in again to get a fresh principal.
+    // Until the store is first used there are no sessions to end.
+
+    static void userChanged(int userId) {
+        USER_CHANGES.incrementAndGet();
+        SessionStore store = instance;
+        if (store != null) {
+            store.endSessions(userId);
+        }
+    }
+
+    private void remove(Session session) {
+        if (sessions.remove(session.token, session)) {
+            int userId = session.principal.getUserId();
+            Set<String> tokens = sessionsByUser.get(userId);
+            if (tokens != null) {
+                tokens.remove(session.token);
+                if (tokens.isEmpty()) {
+                    sessionsByUser.remove(userId, tokens);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop expired sessions
+     * @return Number of sessions dropped
+     */
+    public int purgeExpired() {
+        long now = System.nanoTime();
+        int purged = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            Session session = it.next();
+            if (now - session.expiresAt >= 0) {
+                remove(session);
+                purged++;
+            }
+        }
+        expired.add(purged);
+        return purged;
+    }
+
+    /**
+     * Free space when full: drop expired sessions, then the least recently used
+     */
+    private synchronized void makeRoom() {
+        if (sessions.size() < MAX_SESSIONS) {
+            return;
+        }
+        purgeExpired();
+        if (sessions.size() < MAX_SESSIONS) {
+            return;
+        }
+        // The sessions expiring soonest are the ones used least recently
+        Session[] oldest = new Session[EVICTION_BATCH];
+        int count = 0;
+        for (Session session : sessions.values()) {
+            if (count < oldest.length) {
+                oldest[count++] = session;
+                siftUp(oldest, count - 1);
+            } else if (session.expiresAt - oldest[0].expiresAt < 0) {
+                oldest[0] = session;
+                siftDown(oldest, count);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(oldest[i]);
+        }
+        evicted.add(count);
+    }
+
+    // Max-heap on expiresAt, so oldest[0] is the newest of the sessions selected for eviction
+
+    private static void siftUp(Session[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[i].expiresAt - heap[parent].expiresAt <= 0) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(Session[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left].expiresAt - heap[largest].expiresAt > 0) {
+                largest = left;
+            }
+            if (right < size && heap[right].expiresAt - heap[largest].expiresAt > 0) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(heap, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(Session[] heap, int i, int j) {
+        Session tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Count of sessions per user, for spotting shared or leaked accounts
+     */
+    public int getSessionCount(int userId) {
+        Set<String> tokens = sessionsByUser.get(userId);
+        return tokens != null ? tokens.size() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SessionStore[active=%d/%d, created=%d, expired=%d, evicted=%d]",
+                sessions.size(), MAX_SESSIONS, created.sum(), expired.sum(), evicted.sum());
+    }
+}
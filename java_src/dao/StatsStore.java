@@ -0,0 +1,186 @@
+package dao;
+
+import utils.DBConnection;
+
+import java.sql.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stats Store
+ * Keeps the dashboard aggregates (active users, active events, confirmed
+ * bookings, revenue) as in-memory counters so reading them is O(1) instead
+ * of a COUNT/SUM over a whole table. The DAO write paths apply a delta for
+ * every row they change; a background job reconciles the counters against
+ * the database so drift from writes made outside this process, or racing
+ * a reconcile, is corrected within one interval.
+ *
+ * Money is counted in cents so repeated deltas do not accumulate rounding error.
+ */
+public class StatsStore {
+
+    private static final long RECONCILE_INTERVAL_MS = Long.getLong("stats.reconcileIntervalMs", 60_000);
+
+    private static final String RECONCILE_SQL =
+            "SELECT (SELECT COUNT(*) FROM users WHERE is_active = true), " +
+            "(SELECT COUNT(*) FROM events WHERE status = 'active'), " +
+            "(SELECT COUNT(*) FROM bookings WHERE status = 'confirmed'), " +
+            "(SELECT COALESCE(SUM(total_amount), 0) FROM bookings WHERE payment_status = 'paid'), " +
+            "(SELECT COALESCE(SUM(amount), 0) FROM payments WHERE status = 'success')";
+
+    private static volatile StatsStore instance = null;
+
+    private final AtomicLong activeUsers = new AtomicLong();
+    private final AtomicLong activeEvents = new AtomicLong();
+    private final AtomicLong confirmedBookings = new AtomicLong();
+    private final AtomicLong paidBookingCents = new AtomicLong();
+    private final AtomicLong successfulPaymentCents = new AtomicLong();
+
+    private volatile long lastReconciledAt;
+    private final ScheduledExecutorService reconciler;
+
+    /**
+     * Get the shared stats store, loading it from the database on first use
+     * @return StatsStore
+     */
+    public static StatsStore getInstance() {
+        StatsStore current = instance;
+        if (current == null) {
+            synchronized (StatsStore.class) {
+                current = instance;
+                if (current == null) {
+                    current = new StatsStore(RECONCILE_INTERVAL_MS);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private StatsStore(long reconcileIntervalMs) {
+        reconcile();
+
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reload every counter from the database
+     * @return true if the counters were refreshed, false on error
+     */
+    public boolean reconcile() {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(RECONCILE_SQL)) {
+            ResultSet rs = pst.executeQuery();
+            if (rs.next()) {
+                activeUsers.set(rs.getLong(1));
+                activeEvents.set(rs.getLong(2));
+                confirmedBookings.set(rs.getLong(3));
+                paidBookingCents.set(toCents(rs.getDouble(4)));
+                successfulPaymentCents.set(toCents(rs.getDouble(5)));
+                lastReconciledAt = System.currentTimeMillis();
+                return true;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reconciling stats: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // Write-path deltas. Until the store is first read there is nothing to
+    // keep up to date: its initial reconcile picks up every committed row.
+
+    static void userChanged(boolean wasActive, boolean isActive) {
+        StatsStore stats = instance;
+        if (stats != null) {
+            stats.activeUsers.addAndGet(flag(isActive) - flag(wasActive));
+        }
+    }
+
+    static void eventChanged(String oldStatus, String newStatus) {
+        StatsStore stats = instance;
+        if (stats != null) {
+            stats.activeEvents.addAndGet(flag("active".equalsIgnoreCase(newStatus)) - flag("active".equalsIgnoreCase(oldStatus)));
+        }
+    }
+
+    /**
+     * Apply a booking's status change; pass null old values for a new booking
+     */
+    static void bookingChanged(String oldStatus, String oldPaymentStatus,
+                               String newStatus, String newPaymentStatus, double totalAmount) {
+        StatsStore stats = instance;
+        if (stats == null) {
+            return;
+        }
+        stats.confirmedBookings.addAndGet(flag("confirmed".equalsIgnoreCase(newStatus)) - flag("confirmed".equalsIgnoreCase(oldStatus)));
+        long paid = flag("paid".equalsIgnoreCase(newPaymentStatus)) - flag("paid".equalsIgnoreCase(oldPaymentStatus));
+        if (paid != 0) {
+            stats.paidBookingCents.addAndGet(paid * toCents(totalAmount));
+        }
+    }
+
+    /**
+     * Apply a payment's status change; pass a null old status for a new payment
+     */
+    static void paymentChanged(String oldStatus, String newStatus, double amount) {
+        StatsStore stats = instance;
+        if (stats == null) {
+            return;
+        }
+        long success = flag("success".equalsIgnoreCase(newStatus)) - flag("success".equalsIgnoreCase(oldStatus));
+        if (success != 0) {
+            stats.successfulPaymentCents.addAndGet(success * toCents(amount));
+        }
+    }
+
+    private static long flag(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    // O(1) reads
+
+    public long getActiveUsers() {
+        return activeUsers.get();
+    }
+
+    public long getActiveEvents() {
+        return activeEvents.get();
+    }
+
+    public long getConfirmedBookings() {
+        return confirmedBookings.get();
+    }
+
+    /**
+     * Sum of total_amount over bookings whose payment_status is 'paid'
+     */
+    public double getPaidBookingRevenue() {
+        return paidBookingCents.get() / 100.0;
+    }
+
+    /**
+     * Sum of amount over payments whose status is 'success'
+     */
+    public double getSuccessfulPaymentsAmount() {
+        return successfulPaymentCents.get() / 100.0;
+    }
+
+    /**
+     * Time of the last successful reconcile, in epoch milliseconds
+     */
+    public long getLastReconciledAt() {
+        return lastReconciledAt;
+    }
+}
@@ -0,0 +1,83 @@
+package dao;
+
+import model.ExportFilter;
+import utils.DBConnection;
+import utils.ExportWriter;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Streaming Export
+ * Runs an export query on a forward-only, read-only cursor with MySQL's
+ * row-by-row streaming fetch size, handing each row to an ExportWriter as
+ * it arrives. Nothing is collected into a List, so heap use stays flat no
+ * matter how many rows match.
+ */
+class StreamingExport {
+
+    private StreamingExport() {
+    }
+
+    /**
+     * Append the filter conditions to a query
+     * @param sql Query up to and including its WHERE clause's first condition
+     * @param params Receives the bind values, in order
+     * @param eventColumn Column holding the event ID
+     * @param dateColumn Timestamp column the date range applies to
+     * @param statusColumn Column holding the status
+     */
+    static void appendFilter(StringBuilder sql, List<Object> params, ExportFilter filter,
+                             String eventColumn, String dateColumn, String statusColumn) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getEventId() != null) {
+            sql.append(" AND ").append(eventColumn).append(" = ?");
+            params.add(filter.getEventId());
+        }
+        if (filter.getFromDate() != null) {
+            sql.append(" AND ").append(dateColumn).append(" >= ?");
+            params.add(Date.valueOf(filter.getFromDate()));
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" AND ").append(dateColumn).append(" < DATE_ADD(?, INTERVAL 1 DAY)");
+            params.add(Date.valueOf(filter.getToDate()));
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" AND ").append(statusColumn).append(" = ?");
+            params.add(filter.getStatus());
+        }
+    }
+
+    /**
+     * Stream every row of a query to the writer
+     * @param sql Query
+     * @param params Bind values
+     * @param out Destination
+     * @param what Label for error messages
+     * @return Number of rows written, or -1 on failure
+     */
+    static long stream(String sql, List<Object> params, ExportWriter out, String what) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Integer.MIN_VALUE tells Connector/J to stream rows instead of buffering the whole result
+            pst.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                pst.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pst.executeQuery()) {
+                long rows = out.writeAll(rs);
+                out.finish();
+                return rows;
+            }
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting " + what + ": " + e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package dao;
 
 import model.User;
+import model.Page;
 import utils.DBConnection;
+import utils.EntityCache;
+import utils.MethodStats;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * User DAO Class
@@ -13,11 +22,24 @@ import java.util.List;
  */
 public class UserDAO {
     
-    private Connection connection;
+    private static final String LOGIN_SQL =
+            "SELECT * FROM users WHERE username = ? AND password = ? AND is_active = true";
     
-    public UserDAO() throws SQLException {
-        this.connection = DBConnection.getConnection();
-    }
+    private static final String SELECT_USER_BY_ID_SQL =
+            "SELECT * FROM users WHERE user_id = ?";
+    
+    private static final String USERNAME_EXISTS_SQL =
+            "SELECT COUNT(*) FROM users WHERE username = ?";
+    
+    private static final String EMAIL_EXISTS_SQL =
+            "SELECT COUNT(*) FROM users WHERE email = ?";
+    
+    // Shared across DAO instances; written entities are invalidated below
+    private static final EntityCache<Integer, User> USER_CACHE =
+            EntityCache.fromSystemProperties("user", 10_000, 300);
+    
+    // Values per IN list in findExistingUsernames/findExistingEmails
+    private static final int EXISTS_BATCH_SIZE = 500;
     
     /**
      * Insert a new user into the database
@@ -25,24 +47,32 @@ public class UserDAO {
      * @return true if insertion successful, false otherwise
      */
     public boolean registerUser(User user) {
-        String sql = "INSERT INTO users (username, email, password, full_name, phone, role, is_active) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, user.getUsername());
-            pst.setString(2, user.getEmail());
-            pst.setString(3, user.getPassword());
-            pst.setString(4, user.getFullName());
-            pst.setString(5, user.getPhone());
-            pst.setString(6, user.getRole());
-            pst.setBoolean(7, user.isActive());
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.registerUser")) {
+            String sql = "INSERT INTO users (username, email, password, full_name, phone, role, is_active) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?)";
             
-            int result = pst.executeUpdate();
-            return result > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error registering user: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setString(1, user.getUsername());
+                pst.setString(2, user.getEmail());
+                pst.setString(3, user.getPassword());
+                pst.setString(4, user.getFullName());
+                pst.setString(5, user.getPhone());
+                pst.setString(6, user.getRole());
+                pst.setBoolean(7, user.isActive());
+                
+                int result = pst.executeUpdate();
+                if (result > 0) {
+                    StatsStore.userChanged(false, user.isActive());
+                    UserExistenceFilter.added(user.getUsername(), user.getEmail());
+                }
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error registering user: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -53,21 +83,23 @@ public class UserDAO {
      * @return User object if login successful, null otherwise
      */
     public User loginUser(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ? AND is_active = true";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, username);
-            pst.setString(2, password);
-            
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToUser(rs);
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.loginUser")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(LOGIN_SQL)) {
+                pst.setString(1, username);
+                pst.setString(2, password);
+                
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return mapResultSetToUser(rs);
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error during login: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error during login: " + e.getMessage());
+            return null;
         }
-        return null;
     }
     
     /**
@@ -76,9 +108,15 @@ public class UserDAO {
      * @return User object if found, null otherwise
      */
     public User getUserById(int userId) {
-        String sql = "SELECT * FROM users WHERE user_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
+        return Metrics.time("UserDAO.getUserById", () -> {
+            User cached = USER_CACHE.get(userId, this::loadUserById);
+            return cached != null ? copyOf(cached) : null;
+        });
+    }
+    
+    private User loadUserById(int userId) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pst = conn.prepareStatement(SELECT_USER_BY_ID_SQL)) {
             pst.setInt(1, userId);
             
             ResultSet rs = pst.executeQuery();
@@ -97,19 +135,60 @@ public class UserDAO {
      * @return List of all users
      */
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            ResultSet rs = pst.executeQuery();
-            while (rs.next()) {
-                users.add(mapResultSetToUser(rs));
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.getAllUsers()")) {
+            List<User> users = new ArrayList<>();
+            String sql = "SELECT * FROM users";
+            
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    users.add(mapResultSetToUser(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving users: " + e.getMessage());
             }
+            return users;
+        }
+    }
+    
+    /**
+     * Get one page of all users ordered by ID.
+     * Uses keyset pagination on user_id, so a deep page costs the same as the first one.
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of rows per page
+     * @return Page of users
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public Page<User> getAllUsers(String cursor, int pageSize) {
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.getAllUsers(String,int)")) {
+            int afterId = Page.parseIdCursor(cursor, pageSize);
+            List<User> users = new ArrayList<>();
+            String sql = cursor == null
+                    ? "SELECT * FROM users ORDER BY user_id ASC LIMIT ?"
+                    : "SELECT * FROM users WHERE user_id > ? ORDER BY user_id ASC LIMIT ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error retrieving users: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (cursor != null) {
+                    pst.setInt(index++, afterId);
+                }
+                pst.setInt(index, pageSize + 1);
+                
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    users.add(mapResultSetToUser(rs));
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving users: " + e.getMessage());
+            }
+            return Page.of(users, pageSize, last -> String.valueOf(last.getUserId()));
         }
-        return users;
     }
     
     /**
@@ -118,22 +197,31 @@ public class UserDAO {
      * @return true if update successful, false otherwise
      */
     public boolean updateUser(User user) {
-        String sql = "UPDATE users SET username = ?, email = ?, full_name = ?, phone = ?, role = ? WHERE user_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, user.getUsername());
-            pst.setString(2, user.getEmail());
-            pst.setString(3, user.getFullName());
-            pst.setString(4, user.getPhone());
-            pst.setString(5, user.getRole());
-            pst.setInt(6, user.getUserId());
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.updateUser")) {
+            String sql = "UPDATE users SET username = ?, email = ?, full_name = ?, phone = ?, role = ? WHERE user_id = ?";
             
-            int result = pst.executeUpdate();
-            return result > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating user: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setString(1, user.getUsername());
+                pst.setString(2, user.getEmail());
+                pst.setString(3, user.getFullName());
+                pst.setString(4, user.getPhone());
+                pst.setString(5, user.getRole());
+                pst.setInt(6, user.getUserId());
+                
+                int result = pst.executeUpdate();
+                USER_CACHE.invalidate(user.getUserId());
+                SessionStore.userChanged(user.getUserId());
+                if (result > 0) {
+                    UserExistenceFilter.added(user.getUsername(), user.getEmail());
+                }
+                return result > 0;
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error updating user: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -143,17 +231,41 @@ public class UserDAO {
      * @return true if deletion successful, false otherwise
      */
     public boolean deleteUser(int userId) {
-        String sql = "UPDATE users SET is_active = false WHERE user_id = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setInt(1, userId);
-            
-            int result = pst.executeUpdate();
-            return result > 0;
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.deleteUser")) {
+            String lockSql = "SELECT is_active FROM users WHERE user_id = ? FOR UPDATE";
+            String sql = "UPDATE users SET is_active = false WHERE user_id = ?";
             
-        } catch (SQLException e) {
-            System.err.println("Error deleting user: " + e.getMessage());
-            return false;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement lock = conn.prepareStatement(lockSql);
+                     PreparedStatement pst = conn.prepareStatement(sql)) {
+                    lock.setInt(1, userId);
+                    ResultSet rs = lock.executeQuery();
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    boolean wasActive = rs.getBoolean(1);
+                    
+                    pst.setInt(1, userId);
+                    int result = pst.executeUpdate();
+                    conn.commit();
+                    
+                    USER_CACHE.invalidate(userId);
+                    SessionStore.userChanged(userId);
+                    StatsStore.userChanged(wasActive, false);
+                    return result > 0;
+                    
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error deleting user: " + e.getMessage());
+                return false;
+            }
         }
     }
     
@@ -163,20 +275,27 @@ public class UserDAO {
      * @return true if exists, false otherwise
      */
     public boolean isUsernameExists(String username) {
-        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, username);
-            
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.isUsernameExists")) {
+            UserExistenceFilter filter = UserExistenceFilter.get();
+            if (filter != null && !filter.mightContainUsername(username)) {
+                return false;
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error checking username: " + e.getMessage());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(USERNAME_EXISTS_SQL)) {
+                pst.setString(1, username);
+                
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error checking username: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
     
     /**
@@ -185,20 +304,135 @@ public class UserDAO {
      * @return true if exists, false otherwise
      */
     public boolean isEmailExists(String email) {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
-        
-        try (PreparedStatement pst = connection.prepareStatement(sql)) {
-            pst.setString(1, email);
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.isEmailExists")) {
+            UserExistenceFilter filter = UserExistenceFilter.get();
+            if (filter != null && !filter.mightContainEmail(email)) {
+                return false;
+            }
             
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(EMAIL_EXISTS_SQL)) {
+                pst.setString(1, email);
+                
+                ResultSet rs = pst.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
+                
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error checking email: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Find which of several usernames are already taken, e.g. before a bulk import
+     * @param usernames Usernames to check
+     * @return The given usernames that exist, as passed in; null on failure
+     */
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.findExistingUsernames")) {
+            Set<String> existing = findExisting("username", usernames);
+            if (existing == null) {
+                sample.fail();
+            }
+            return existing;
+        }
+    }
+    
+    /**
+     * Find which of several emails are already registered, e.g. before a bulk import
+     * @param emails Emails to check
+     * @return The given emails that exist, as passed in; null on failure
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        try (MethodStats.Sample sample = Metrics.start("UserDAO.findExistingEmails")) {
+            Set<String> existing = findExisting("email", emails);
+            if (existing == null) {
+                sample.fail();
+            }
+            return existing;
+        }
+    }
+    
+    /**
+     * Look up values of a unique column: the existence filter rules out
+     * most new values, and the rest are checked with IN queries of up to
+     * EXISTS_BATCH_SIZE values each
+     */
+    private Set<String> findExisting(String column, Collection<String> values) {
+        UserExistenceFilter filter = UserExistenceFilter.get();
+        
+        // Normalized key -> values passed in with that key
+        Map<String, List<String>> candidates = new HashMap<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
             }
+            boolean mightExist = filter == null || ("username".equals(column)
+                    ? filter.mightContainUsername(value) : filter.mightContainEmail(value));
+            if (mightExist) {
+                candidates.computeIfAbsent(UserExistenceFilter.normalize(value), k -> new ArrayList<>()).add(value);
+            }
+        }
+        
+        Set<String> existing = new HashSet<>();
+        List<String> keys = new ArrayList<>(candidates.keySet());
+        try (Connection conn = DBConnection.getConnection()) {
+            for (int from = 0; from < keys.size(); from += EXISTS_BATCH_SIZE) {
+                List<String> batch = keys.subList(from, Math.min(keys.size(), from + EXISTS_BATCH_SIZE));
+                StringBuilder sql = new StringBuilder("SELECT ").append(column)
+                        .append(" FROM users WHERE ").append(column).append(" IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(')');
+                
+                try (PreparedStatement pst = conn.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        // One representative per key; the collation matches the rest
+                        pst.setString(i + 1, candidates.get(batch.get(i)).get(0));
+                    }
+                    ResultSet rs = pst.executeQuery();
+                    while (rs.next()) {
+                        List<String> matches = candidates.get(UserExistenceFilter.normalize(rs.getString(1)));
+                        if (matches != null) {
+                            existing.addAll(matches);
+                        }
+                    }
+                }
+            }
+            return existing;
             
         } catch (SQLException e) {
-            System.err.println("Error checking email: " + e.getMessage());
+            System.err.println("Error checking existing " + column + "s: " + e.getMessage());
+            return null;
         }
-        return false;
+    }
+    
+    /**
+     * Existence filter size, estimated false positive rate and the number
+     * of username/email queries it saved
+     */
+    public static String getExistenceFilterStats() {
+        return UserExistenceFilter.getStats();
+    }
+    
+    /**
+     * User cache statistics
+     */
+    public static EntityCache<Integer, User> getCache() {
+        return USER_CACHE;
+    }
+    
+    /**
+     * Copy a cached user so callers can modify their instance freely
+     */
+    private static User copyOf(User u) {
+        return new User(u.getUserId(), u.getUsername(), u.getEmail(), u.getPassword(), u.getFullName(),
+                        u.getPhone(), u.getRole(), u.getCreatedAt(), u.isActive());
     }
     
     /**
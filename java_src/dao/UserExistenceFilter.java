@@ -0,0 +1,203 @@
+package dao;
+
+import utils.BloomFilter;
+import utils.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * User Existence Filter
+ * Bloom filters over every username and email in the users table, so
+ * registration checks can answer "definitely not taken" without a query.
+ * A positive answer may be a false positive and still goes to the
+ * database.
+ *
+ * The filters are loaded in the background on first use; until then, or
+ * if loading fails, get() returns null and callers query as before. Rows
+ * inserted while a load is running are added to both the filter in use
+ * and the one being loaded, so the new filter cannot miss them. Once more
+ * strings have been added than the filter was sized for, a larger one is
+ * loaded to replace it.
+ *
+ * Keys are compared the way the users table's case- and accent-insensitive
+ * collation compares them. Should a key still slip through as absent, the
+ * UNIQUE constraints reject the insert, so the filter can never let a
+ * duplicate in.
+ *
+ * Settings (system properties):
+ *   user.filter.enabled               Use the filters (default true)
+ *   user.filter.expectedInsertions    Minimum size per filter (default 1000000)
+ *   user.filter.falsePositiveRate     Target false positive rate (default 0.01)
+ */
+class UserExistenceFilter {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("user.filter.enabled", "true"));
+    private static final long MIN_EXPECTED_INSERTIONS = Long.getLong("user.filter.expectedInsertions", 1_000_000);
+    private static final double FALSE_POSITIVE_RATE =
+            Double.parseDouble(System.getProperty("user.filter.falsePositiveRate", "0.01"));
+    private static final long RETRY_AFTER_FAILURE_NANOS = 30_000_000_000L;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Filter answering lookups, and the one most recently loaded or being loaded
+    private static volatile UserExistenceFilter current = null;
+    private static volatile UserExistenceFilter loading = null;
+    private static final AtomicBoolean LOAD_RUNNING = new AtomicBoolean();
+    private static volatile long lastFailure = 0;
+
+    private static final LongAdder SKIPPED_QUERIES = new LongAdder();
+    private static final LongAdder PASSED_TO_DATABASE = new LongAdder();
+
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+
+    private UserExistenceFilter(long expectedInsertions) {
+        this.usernames = new BloomFilter(expectedInsertions, FALSE_POSITIVE_RATE);
+        this.emails = new BloomFilter(expectedInsertions, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Get the loaded filter, starting a load if there is none yet
+     * @return Filter, or null while it is loading or if it is disabled
+     */
+    static UserExistenceFilter get() {
+        if (!ENABLED) {
+            return null;
+        }
+        UserExistenceFilter filter = current;
+        if (filter == null || filter.isOverCapacity()) {
+            startLoad(filter);
+        }
+        return filter;
+    }
+
+    /**
+     * Record a username and email written to the users table
+     */
+    static void added(String username, String email) {
+        UserExistenceFilter filter = current;
+        if (filter != null) {
+            filter.add(username, email);
+        }
+        UserExistenceFilter next = loading;
+        if (next != null && next != filter) {
+            next.add(username, email);
+        }
+    }
+
+    boolean mightContainUsername(String username) {
+        return count(usernames.mightContain(normalize(username)));
+    }
+
+    boolean mightContainEmail(String email) {
+        return count(emails.mightContain(normalize(email)));
+    }
+
+    private static boolean count(boolean mightContain) {
+        (mightContain ? PASSED_TO_DATABASE : SKIPPED_QUERIES).increment();
+        return mightContain;
+    }
+
+    private void add(String username, String email) {
+        if (username != null) {
+            usernames.put(normalize(username));
+        }
+        if (email != null) {
+            emails.put(normalize(email));
+        }
+    }
+
+    private boolean isOverCapacity() {
+        return usernames.getInsertions() > usernames.getExpectedInsertions();
+    }
+
+    /**
+     * Lower case, accents removed, trailing spaces dropped, as MySQL's
+     * default _ai_ci collations with PAD SPACE compare strings
+     */
+    static String normalize(String value) {
+        String folded = Normalizer.normalize(value, Normalizer.Form.NFD);
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+        int end = folded.length();
+        while (end > 0 && folded.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return folded.substring(0, end);
+    }
+
+    private static void startLoad(UserExistenceFilter replacing) {
+        if (replacing == null && System.nanoTime() - lastFailure < RETRY_AFTER_FAILURE_NANOS && lastFailure != 0) {
+            return;
+        }
+        if (!LOAD_RUNNING.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                load(replacing);
+            } finally {
+                LOAD_RUNNING.set(false);
+            }
+        }, "user-existence-filter-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private static void load(UserExistenceFilter replacing) {
+        long start = System.nanoTime();
+        try (Connection conn = DBConnection.getConnection()) {
+            long rows;
+            try (PreparedStatement pst = conn.prepareStatement("SELECT COUNT(*) FROM users");
+                 ResultSet rs = pst.executeQuery()) {
+                rows = rs.next() ? rs.getLong(1) : 0;
+            }
+            long expected = Math.max(MIN_EXPECTED_INSERTIONS, rows * 2);
+            if (replacing != null) {
+                expected = Math.max(expected, replacing.usernames.getExpectedInsertions() * 2);
+            }
+
+            // Published before the scan: a row committed after the scan starts is added by added()
+            UserExistenceFilter filter = new UserExistenceFilter(expected);
+            loading = filter;
+            try (PreparedStatement pst = conn.prepareStatement("SELECT username, email FROM users",
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Integer.MIN_VALUE tells Connector/J to stream rows instead of buffering the whole result
+                pst.setFetchSize(Integer.MIN_VALUE);
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        filter.add(rs.getString(1), rs.getString(2));
+                    }
+                }
+            }
+            // loading keeps pointing at it: a writer may still be between reading current and loading
+            current = filter;
+            System.out.printf("User existence filter loaded: %d users in %d ms, %s%n",
+                    rows, (System.nanoTime() - start) / 1_000_000, filter.usernames);
+
+        } catch (SQLException e) {
+            loading = current;
+            lastFailure = System.nanoTime();
+            System.err.println("Error loading user existence filter: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Summary of the filter and how many lookups it answered
+     */
+    static String getStats() {
+        UserExistenceFilter filter = current;
+        String state = filter == null ? (ENABLED ? "not loaded" : "disabled")
+                : "usernames " + filter.usernames + ", emails " + filter.emails;
+        return String.format("UserExistenceFilter[%s; queries skipped=%d, passed to database=%d]",
+                state, SKIPPED_QUERIES.sum(), PASSED_TO_DATABASE.sum());
+    }
+}
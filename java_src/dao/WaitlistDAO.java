@@ -0,0 +1,253 @@
+package dao;
+
+import model.Booking;
+import model.WaitlistEntry;
+import utils.DBConnection;
+import utils.MethodStats;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Waitlist DAO Class
+ * Handles all database operations for the waitlist of sold-out events
+ */
+public class WaitlistDAO {
+
+    private static final String INSERT_WAITLIST_SQL =
+            "INSERT INTO waitlist (user_id, user_name, event_id, tickets_requested, priority, status) " +
+            "VALUES (?, ?, ?, ?, ?, 'waiting')";
+
+    private static final String PROMOTE_WAITLIST_SQL =
+            "UPDATE waitlist SET status = 'promoted', booking_id = ? WHERE waitlist_id = ? AND status = 'waiting'";
+
+    /**
+     * Add a user to an event's waitlist
+     * @param entry Waitlist entry; its waitlistId is set on success
+     * @return true if added, false otherwise
+     */
+    public boolean joinWaitlist(WaitlistEntry entry) {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.joinWaitlist")) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(INSERT_WAITLIST_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                pst.setInt(1, entry.getUserId());
+                pst.setString(2, entry.getUserName());
+                pst.setInt(3, entry.getEventId());
+                pst.setInt(4, entry.getTicketsRequested());
+                pst.setInt(5, entry.getPriority());
+
+                if (pst.executeUpdate() == 0) {
+                    return false;
+                }
+                ResultSet keys = pst.getGeneratedKeys();
+                if (keys.next()) {
+                    entry.setWaitlistId(keys.getInt(1));
+                }
+                return true;
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error joining waitlist: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take a user off a waitlist
+     * @param waitlistId Waitlist entry ID
+     * @return true if the entry was still waiting and is now cancelled
+     */
+    public boolean leaveWaitlist(int waitlistId) {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.leaveWaitlist")) {
+            String sql = "UPDATE waitlist SET status = 'cancelled' WHERE waitlist_id = ? AND status = 'waiting'";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, waitlistId);
+                return pst.executeUpdate() > 0;
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error leaving waitlist: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take everyone off the waitlist of a cancelled event
+     * @param eventId Event ID
+     * @return Number of entries cancelled, or -1 on error
+     */
+    public int cancelEventWaitlist(int eventId) {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.cancelEventWaitlist")) {
+            String sql = "UPDATE waitlist SET status = 'cancelled' WHERE event_id = ? AND status = 'waiting'";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, eventId);
+                return pst.executeUpdate();
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error cancelling event waitlist: " + e.getMessage());
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Get every entry still waiting, oldest first
+     * @return List of waiting entries
+     */
+    public List<WaitlistEntry> getWaitingEntries() {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.getWaitingEntries")) {
+            List<WaitlistEntry> entries = new ArrayList<>();
+            String sql = "SELECT * FROM waitlist WHERE status = 'waiting' ORDER BY waitlist_id";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    entries.add(mapResultSetToEntry(rs));
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving waitlist: " + e.getMessage());
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Get a user's waitlist entries, newest first
+     * @param userId User ID
+     * @return List of the user's entries, including promoted and cancelled ones
+     */
+    public List<WaitlistEntry> getUserEntries(int userId) {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.getUserEntries")) {
+            List<WaitlistEntry> entries = new ArrayList<>();
+            String sql = "SELECT * FROM waitlist WHERE user_id = ? ORDER BY waitlist_id DESC";
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, userId);
+
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    entries.add(mapResultSetToEntry(rs));
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error retrieving user waitlist: " + e.getMessage());
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Promote waiters of one event into pending bookings, in one transaction:
+     * one ticket decrement for the whole batch, one batched booking insert and
+     * one batched waitlist update. Either every waiter in the batch gets a
+     * booking or none does.
+     * @param eventId Event ID
+     * @param entries Waitlist entries to promote; their bookingId and status are set on success.
+     *                Entries the table no longer has as waiting fail the batch and are marked cancelled
+     * @param bookings Pending booking for each entry, in the same order; their bookingId is set on success
+     * @return true if promoted, false if the event no longer has the tickets, an entry
+     *         is no longer waiting, or on error
+     */
+    public boolean promoteEntries(int eventId, List<WaitlistEntry> entries, List<Booking> bookings) {
+        try (MethodStats.Sample sample = Metrics.start("WaitlistDAO.promoteEntries")) {
+            int tickets = 0;
+            for (Booking booking : bookings) {
+                tickets += booking.getTicketsBooked();
+            }
+
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement decrement = conn.prepareStatement(BookingDAO.RESERVE_TICKETS_SQL);
+                     PreparedStatement insert = conn.prepareStatement(BookingDAO.INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement promote = conn.prepareStatement(PROMOTE_WAITLIST_SQL)) {
+                    decrement.setInt(1, tickets);
+                    decrement.setInt(2, eventId);
+                    decrement.setInt(3, tickets);
+                    if (decrement.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
+
+                    for (Booking booking : bookings) {
+                        BookingDAO.bindBooking(insert, booking);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    ResultSet keys = insert.getGeneratedKeys();
+                    for (Booking booking : bookings) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for promoted booking");
+                        }
+                        booking.setBookingId(keys.getInt(1));
+                    }
+
+                    for (int i = 0; i < entries.size(); i++) {
+                        promote.setInt(1, bookings.get(i).getBookingId());
+                        promote.setInt(2, entries.get(i).getWaitlistId());
+                        promote.addBatch();
+                    }
+                    int[] counts = promote.executeBatch();
+                    boolean stale = false;
+                    for (int i = 0; i < counts.length && i < entries.size(); i++) {
+                        if (counts[i] == 0) {
+                            entries.get(i).setStatus("cancelled");
+                            stale = true;
+                        }
+                    }
+                    if (stale) {
+                        conn.rollback();
+                        return false;
+                    }
+                    conn.commit();
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+
+            } catch (SQLException e) {
+                sample.fail();
+                System.err.println("Error promoting waitlist: " + e.getMessage());
+                return false;
+            }
+
+            EventDAO.invalidateCachedEvent(eventId);
+            for (int i = 0; i < entries.size(); i++) {
+                BookingDAO.bookingCreated(bookings.get(i));
+                entries.get(i).setStatus("promoted");
+                entries.get(i).setBookingId(bookings.get(i).getBookingId());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Helper method to map ResultSet to WaitlistEntry object
+     */
+    private WaitlistEntry mapResultSetToEntry(ResultSet rs) throws SQLException {
+        return new WaitlistEntry(
+            rs.getInt("waitlist_id"),
+            rs.getInt("user_id"),
+            rs.getString("user_name"),
+            rs.getInt("event_id"),
+            rs.getInt("tickets_requested"),
+            rs.getInt("priority"),
+            rs.getString("status"),
+            rs.getInt("booking_id")
+        );
+    }
+}
@@ -1,13 +1,32 @@
 package gui;
 
+import dao.BookingDAO;
+import dao.SessionStore;
+import model.ActivityReport;
+import model.Booking;
+import model.BookingSummary;
+import model.EventSummary;
+import model.Page;
+import model.Principal;
+import model.WaitlistEntry;
+import service.ActivityReportService;
+import service.EventService;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Main GUI Application Frame
- * Entry point for the GUI application
+ * Entry point for the GUI application.
+ * Database work never runs on the event dispatch thread: one-off calls go
+ * through runInBackground and the list screens use PagedTableModel, which
+ * fetches rows page by page as the table is scrolled.
  */
 public class MainFrame extends JFrame {
     
@@ -15,6 +34,44 @@ public class MainFrame extends JFrame {
     private JPanel mainPanel;
     private JPanel currentPanel;
     
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private EventService eventService;
+    private String sessionToken;
+    
+    private JLabel welcomeLabel;
+    private JLabel adminStatsLabel;
+    private JTable eventsTable;
+    private JTable bookingsTable;
+    private final PagedTableModel<EventSummary> eventsModel = new PagedTableModel<>(
+        PagedTableModel.<EventSummary>column("ID", Integer.class, EventSummary::getEventId),
+        PagedTableModel.<EventSummary>column("Event", String.class, EventSummary::getEventName),
+        PagedTableModel.<EventSummary>column("Date", String.class, EventSummary::getEventDate),
+        PagedTableModel.<EventSummary>column("Time", String.class, EventSummary::getEventTime),
+        PagedTableModel.<EventSummary>column("Location", String.class, EventSummary::getLocation),
+        PagedTableModel.<EventSummary>column("Category", String.class, EventSummary::getCategory),
+        PagedTableModel.<EventSummary>column("Available", Integer.class, EventSummary::getTicketsAvailable),
+        PagedTableModel.<EventSummary>column("Price", Double.class, EventSummary::getTicketPrice)
+    );
+    private final PagedTableModel<BookingSummary> bookingsModel = new PagedTableModel<>(
+        PagedTableModel.<BookingSummary>column("ID", Integer.class, BookingSummary::getBookingId),
+        PagedTableModel.<BookingSummary>column("Event", String.class, BookingSummary::getEventName),
+        PagedTableModel.<BookingSummary>column("Tickets", Integer.class, BookingSummary::getTicketsBooked),
+        PagedTableModel.<BookingSummary>column("Amount", Double.class, BookingSummary::getTotalAmount),
+        PagedTableModel.<BookingSummary>column("Booked On", String.class, BookingSummary::getBookingDate),
+        PagedTableModel.<BookingSummary>column("Status", String.class, BookingSummary::getStatus),
+        PagedTableModel.<BookingSummary>column("Payment", String.class, BookingSummary::getPaymentStatus)
+    );
+    private final PagedTableModel<Booking> allBookingsModel = new PagedTableModel<>(
+        PagedTableModel.<Booking>column("ID", Integer.class, Booking::getBookingId),
+        PagedTableModel.<Booking>column("User", String.class, Booking::getUserName),
+        PagedTableModel.<Booking>column("Event", String.class, Booking::getEventName),
+        PagedTableModel.<Booking>column("Tickets", Integer.class, Booking::getTicketsBooked),
+        PagedTableModel.<Booking>column("Amount", Double.class, Booking::getTotalAmount),
+        PagedTableModel.<Booking>column("Booked On", String.class, Booking::getBookingDate),
+        PagedTableModel.<Booking>column("Status", String.class, Booking::getStatus),
+        PagedTableModel.<Booking>column("Payment", String.class, Booking::getPaymentStatus)
+    );
+    
     public MainFrame() {
         setTitle("Event Management System - EventFlow");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -29,6 +86,9 @@ public class MainFrame extends JFrame {
         // Add panels
         addLoginPanel();
         addDashboardPanel();
+        addEventsPanel();
+        addBookingsPanel();
+        addAdminPanel();
         
         add(mainPanel);
         
@@ -97,11 +157,25 @@ public class MainFrame extends JFrame {
                         "Input Error", 
                         JOptionPane.ERROR_MESSAGE);
                 } else {
-                    JOptionPane.showMessageDialog(MainFrame.this, 
-                        "Login successful! Welcome, " + username, 
-                        "Success", 
-                        JOptionPane.INFORMATION_MESSAGE);
-                    cardLayout.show(mainPanel, "dashboard");
+                    loginBtn.setEnabled(false);
+                    runInBackground(() -> SessionStore.getInstance().login(username, password), token -> {
+                        loginBtn.setEnabled(true);
+                        if (token == null) {
+                            JOptionPane.showMessageDialog(MainFrame.this, 
+                                "Invalid username or password!", 
+                                "Login Failed", 
+                                JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                        sessionToken = token;
+                        passwordField.setText("");
+                        welcomeLabel.setText("Dashboard - Welcome, " + username);
+                        JOptionPane.showMessageDialog(MainFrame.this, 
+                            "Login successful! Welcome, " + username, 
+                            "Success", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                        cardLayout.show(mainPanel, "dashboard");
+                    });
                 }
             }
         });
@@ -138,7 +212,7 @@ public class MainFrame extends JFrame {
         topBar.setBackground(new Color(0, 102, 204));
         topBar.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
-        JLabel welcomeLabel = new JLabel("Dashboard - Welcome to EventFlow");
+        welcomeLabel = new JLabel("Dashboard - Welcome to EventFlow");
         welcomeLabel.setFont(new Font("Arial", Font.BOLD, 18));
         welcomeLabel.setForeground(Color.WHITE);
         
@@ -151,6 +225,8 @@ public class MainFrame extends JFrame {
         logoutBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                SessionStore.getInstance().logout(sessionToken);
+                sessionToken = null;
                 cardLayout.show(mainPanel, "login");
             }
         });
@@ -164,10 +240,51 @@ public class MainFrame extends JFrame {
         contentPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
         // Dashboard cards
-        contentPanel.add(createDashboardCard("Browse Events", "Browse and search for upcoming events"));
-        contentPanel.add(createDashboardCard("My Bookings", "View and manage your event bookings"));
-        contentPanel.add(createDashboardCard("Create Event", "Organize and create new events"));
-        contentPanel.add(createDashboardCard("Admin Panel", "Manage users, events, and payments"));
+        contentPanel.add(createDashboardCard("Browse Events", "Browse and search for upcoming events", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                eventsModel.load((cursor, size) -> eventService().getAvailableEvents(cursor, size));
+                cardLayout.show(mainPanel, "events");
+            }
+        }));
+        contentPanel.add(createDashboardCard("My Bookings", "View and manage your event bookings", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Principal principal = currentPrincipal();
+                if (principal == null) {
+                    return;
+                }
+                final int userId = principal.getUserId();
+                bookingsModel.load((cursor, size) -> eventService().getBookingHistory(userId, cursor, size));
+                cardLayout.show(mainPanel, "bookings");
+            }
+        }));
+        contentPanel.add(createDashboardCard("Create Event", "Organize and create new events", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JOptionPane.showMessageDialog(MainFrame.this, 
+                    "Event creation feature coming soon!", 
+                    "Info", 
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+        }));
+        contentPanel.add(createDashboardCard("Admin Panel", "Manage users, events, and payments", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Principal principal = currentPrincipal();
+                if (principal == null) {
+                    return;
+                }
+                if (!principal.isAdmin()) {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        "The admin panel is only available to administrators.", 
+                        "Access Denied", 
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                openAdminPanel();
+            }
+        }));
         
         dashboardPanel.add(topBar, BorderLayout.NORTH);
         dashboardPanel.add(contentPanel, BorderLayout.CENTER);
@@ -178,7 +295,7 @@ public class MainFrame extends JFrame {
     /**
      * Create a dashboard card
      */
-    private JPanel createDashboardCard(String title, String description) {
+    private JPanel createDashboardCard(String title, String description, ActionListener onOpen) {
         JPanel card = new JPanel(new BorderLayout(5, 5));
         card.setBackground(Color.WHITE);
         card.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 2));
@@ -199,6 +316,7 @@ public class MainFrame extends JFrame {
         actionBtn.setFont(new Font("Arial", Font.BOLD, 12));
         actionBtn.setBackground(new Color(0, 153, 0));
         actionBtn.setForeground(Color.WHITE);
+        actionBtn.addActionListener(onOpen);
         
         card.add(titleLabel, BorderLayout.NORTH);
         card.add(descLabel, BorderLayout.CENTER);
@@ -206,4 +324,343 @@ public class MainFrame extends JFrame {
         
         return card;
     }
+    
+    /**
+     * Add browse events panel
+     */
+    private void addEventsPanel() {
+        JPanel eventsPanel = new JPanel(new BorderLayout(10, 10));
+        eventsPanel.setBackground(new Color(245, 245, 245));
+        
+        JTextField searchField = new JTextField(20);
+        JButton searchBtn = new JButton("Search");
+        JButton showAllBtn = new JButton("Show All");
+        
+        searchBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                final String keyword = searchField.getText().trim();
+                if (keyword.isEmpty()) {
+                    eventsModel.load((cursor, size) -> eventService().getAvailableEvents(cursor, size));
+                } else {
+                    // Search answers from the in-memory index in one go
+                    eventsModel.load((cursor, size) -> new Page<>(eventService().searchEvents(keyword), null));
+                }
+            }
+        });
+        
+        showAllBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchField.setText("");
+                eventsModel.load((cursor, size) -> eventService().getAvailableEvents(cursor, size));
+            }
+        });
+        
+        JPanel searchBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        searchBar.setBackground(new Color(245, 245, 245));
+        searchBar.add(new JLabel("Keyword:"));
+        searchBar.add(searchField);
+        searchBar.add(searchBtn);
+        searchBar.add(showAllBtn);
+        
+        eventsTable = createTable(eventsModel);
+        
+        JButton bookBtn = createActionButton("Book Tickets", new Color(0, 153, 0));
+        bookBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                EventSummary event = selectedRow(eventsTable, eventsModel);
+                Principal principal = event != null ? currentPrincipal() : null;
+                if (principal == null) {
+                    return;
+                }
+                String input = JOptionPane.showInputDialog(MainFrame.this, 
+                    "Number of tickets for " + event.getEventName() + ":", "1");
+                if (input == null) {
+                    return;
+                }
+                int parsed;
+                try {
+                    parsed = Integer.parseInt(input.trim());
+                } catch (NumberFormatException ex) {
+                    parsed = 0;
+                }
+                final int tickets = parsed;
+                if (tickets <= 0) {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        "Please enter a positive number of tickets!", 
+                        "Input Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                
+                Booking booking = new Booking(principal.getUserId(), principal.getUsername(), 
+                    event.getEventId(), event.getEventName(), tickets, event.getTicketPrice() * tickets);
+                runInBackground(() -> eventService().bookEvent(booking), booked -> {
+                    if (booked) {
+                        JOptionPane.showMessageDialog(MainFrame.this, 
+                            "Booked " + tickets + " ticket(s) for " + event.getEventName(), 
+                            "Success", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                        eventsModel.reload();
+                    } else if (JOptionPane.showConfirmDialog(MainFrame.this, 
+                            "Not enough tickets available for " + event.getEventName() + ".\n" +
+                            "Join the waitlist? Tickets that come back are held for you to confirm.", 
+                            "Booking Failed", 
+                            JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                        WaitlistEntry entry = new WaitlistEntry(principal.getUserId(), principal.getUsername(), 
+                            event.getEventId(), tickets, 0);
+                        runInBackground(() -> eventService().joinWaitlist(entry), joined -> {
+                            if (joined) {
+                                JOptionPane.showMessageDialog(MainFrame.this, 
+                                    "You are on the waitlist for " + event.getEventName(), 
+                                    "Waitlist", 
+                                    JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(MainFrame.this, 
+                                    "Could not join the waitlist. You may already be on it, or tickets are available again.", 
+                                    "Waitlist", 
+                                    JOptionPane.ERROR_MESSAGE);
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        
+        JPanel north = new JPanel(new BorderLayout());
+        north.add(createScreenBar("Browse Events"), BorderLayout.NORTH);
+        north.add(searchBar, BorderLayout.SOUTH);
+        
+        eventsPanel.add(north, BorderLayout.NORTH);
+        eventsPanel.add(new JScrollPane(eventsTable), BorderLayout.CENTER);
+        eventsPanel.add(createButtonBar(bookBtn), BorderLayout.SOUTH);
+        
+        mainPanel.add(eventsPanel, "events");
+    }
+    
+    /**
+     * Add my bookings panel
+     */
+    private void addBookingsPanel() {
+        JPanel bookingsPanel = new JPanel(new BorderLayout(10, 10));
+        bookingsPanel.setBackground(new Color(245, 245, 245));
+        
+        bookingsTable = createTable(bookingsModel);
+        
+        JButton cancelBtn = createActionButton("Cancel Booking", new Color(200, 50, 50));
+        cancelBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                BookingSummary booking = selectedRow(bookingsTable, bookingsModel);
+                if (booking == null) {
+                    return;
+                }
+                int confirm = JOptionPane.showConfirmDialog(MainFrame.this, 
+                    "Cancel booking #" + booking.getBookingId() + " for " + booking.getEventName() + "?", 
+                    "Confirm Cancellation", 
+                    JOptionPane.YES_NO_OPTION);
+                if (confirm != JOptionPane.YES_OPTION) {
+                    return;
+                }
+                runInBackground(() -> eventService().cancelBooking(booking.getBookingId()), cancelled -> {
+                    if (!cancelled) {
+                        JOptionPane.showMessageDialog(MainFrame.this, 
+                            "Booking could not be cancelled.", 
+                            "Cancellation Failed", 
+                            JOptionPane.ERROR_MESSAGE);
+                    }
+                    bookingsModel.reload();
+                });
+            }
+        });
+        
+        bookingsPanel.add(createScreenBar("My Bookings"), BorderLayout.NORTH);
+        bookingsPanel.add(new JScrollPane(bookingsTable), BorderLayout.CENTER);
+        bookingsPanel.add(createButtonBar(cancelBtn), BorderLayout.SOUTH);
+        
+        mainPanel.add(bookingsPanel, "bookings");
+    }
+    
+    /**
+     * Add admin panel
+     */
+    private void addAdminPanel() {
+        JPanel adminPanel = new JPanel(new BorderLayout(10, 10));
+        adminPanel.setBackground(new Color(245, 245, 245));
+        
+        adminStatsLabel = new JLabel(" ");
+        adminStatsLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+        adminStatsLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        
+        JButton refreshBtn = createActionButton("Refresh", new Color(0, 102, 204));
+        refreshBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openAdminPanel();
+            }
+        });
+        
+        JPanel north = new JPanel(new BorderLayout());
+        north.add(createScreenBar("Admin Panel - All Bookings"), BorderLayout.NORTH);
+        north.add(adminStatsLabel, BorderLayout.SOUTH);
+        
+        adminPanel.add(north, BorderLayout.NORTH);
+        adminPanel.add(new JScrollPane(createTable(allBookingsModel)), BorderLayout.CENTER);
+        adminPanel.add(createButtonBar(refreshBtn), BorderLayout.SOUTH);
+        
+        mainPanel.add(adminPanel, "admin");
+    }
+    
+    /**
+     * Show the admin panel and load its stats and booking list in the background
+     */
+    private void openAdminPanel() {
+        adminStatsLabel.setText("Loading statistics...");
+        runInBackground(() -> ActivityReportService.getInstance().getLatestReport(), report -> {
+            adminStatsLabel.setText(formatStats(report));
+        });
+        allBookingsModel.load(bookingDAO::getAllBookings);
+        cardLayout.show(mainPanel, "admin");
+    }
+    
+    private String formatStats(ActivityReport report) {
+        return String.format("Users: %d   Events: %d   Bookings: %d   Revenue: $%.2f   (as of %ds ago)", 
+            report.getTotalUsers(), 
+            report.getTotalEvents(), 
+            report.getTotalBookings(), 
+            report.getTotalRevenue(), 
+            report.getAgeMillis() / 1000);
+    }
+    
+    /**
+     * Create the title bar shared by the list screens, with a button back to the dashboard
+     */
+    private JPanel createScreenBar(String title) {
+        JPanel bar = new JPanel(new BorderLayout(10, 10));
+        bar.setBackground(new Color(0, 102, 204));
+        bar.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        titleLabel.setForeground(Color.WHITE);
+        
+        JButton backBtn = new JButton("Back");
+        backBtn.setFont(new Font("Arial", Font.BOLD, 12));
+        backBtn.setPreferredSize(new Dimension(100, 30));
+        backBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cardLayout.show(mainPanel, "dashboard");
+            }
+        });
+        
+        bar.add(titleLabel, BorderLayout.WEST);
+        bar.add(backBtn, BorderLayout.EAST);
+        return bar;
+    }
+    
+    private JTable createTable(PagedTableModel<?> model) {
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 12));
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        return table;
+    }
+    
+    private JButton createActionButton(String text, Color background) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setPreferredSize(new Dimension(150, 32));
+        button.setBackground(background);
+        button.setForeground(Color.WHITE);
+        return button;
+    }
+    
+    private JPanel createButtonBar(JButton button) {
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        bar.setBackground(new Color(245, 245, 245));
+        bar.add(button);
+        return bar;
+    }
+    
+    /**
+     * Get the row selected in a paged table, telling the user if nothing is selected
+     */
+    private <T> T selectedRow(JTable table, PagedTableModel<T> model) {
+        int row = table.getSelectedRow();
+        T value = row < 0 ? null : model.getRow(table.convertRowIndexToModel(row));
+        if (value == null) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select a row first!", 
+                "Input Error", 
+                JOptionPane.ERROR_MESSAGE);
+        }
+        return value;
+    }
+    
+    /**
+     * Event service, created on first use. Its constructor loads the ticket
+     * inventory, so call this only from background tasks.
+     */
+    private synchronized EventService eventService() {
+        if (eventService == null) {
+            try {
+                eventService = new EventService();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not start event service: " + e.getMessage(), e);
+            }
+        }
+        return eventService;
+    }
+    
+    /**
+     * Get the logged-in user from the session store; no query is needed.
+     * If the session has expired or was ended, go back to the login screen.
+     * @return Principal, or null if the user must log in again
+     */
+    private Principal currentPrincipal() {
+        Principal principal = SessionStore.getInstance().getPrincipal(sessionToken);
+        if (principal == null) {
+            sessionToken = null;
+            JOptionPane.showMessageDialog(MainFrame.this, 
+                "Your session has ended. Please log in again.", 
+                "Session Expired", 
+                JOptionPane.WARNING_MESSAGE);
+            cardLayout.show(mainPanel, "login");
+        }
+        return principal;
+    }
+    
+    /**
+     * Run a database call on a background thread and hand its result to the
+     * event dispatch thread, so the window keeps repainting while it runs
+     * @param task Work to run off the EDT
+     * @param onSuccess Called on the EDT with the task's result
+     */
+    private <T> void runInBackground(Callable<T> task, Consumer<T> onSuccess) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return task.call();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    onSuccess.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("Background task failed: " + e.getCause().getMessage());
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        e.getCause().getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
 }
@@ -0,0 +1,206 @@
+package gui;
+
+import model.Page;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Paged Table Model
+ * Table model over a keyset-paginated DAO method. Rows are fetched one
+ * page at a time on a SwingWorker, never on the event dispatch thread;
+ * the next page is requested when the table renders a row near the end of
+ * what has been loaded, so scrolling down pulls data in as it is needed.
+ * JTable only renders the visible rows, so a 100k-row result stays cheap
+ * to display.
+ *
+ * While more pages exist the model ends with one placeholder row that
+ * shows "Loading...". All methods must be called on the event dispatch thread.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_PAGE_SIZE = 200;
+
+    /**
+     * Fetches one page; runs on a background thread
+     */
+    public interface PageLoader<T> {
+        Page<T> load(String cursor, int pageSize);
+    }
+
+    /**
+     * One table column: header, value type and how to read it from a row
+     */
+    public static class Column<T> {
+        private final String name;
+        private final Class<?> type;
+        private final Function<T, Object> value;
+
+        public Column(String name, Class<?> type, Function<T, Object> value) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    public static <T> Column<T> column(String name, Class<?> type, Function<T, Object> value) {
+        return new Column<>(name, type, value);
+    }
+
+    private final List<Column<T>> columns;
+    private final int pageSize;
+    private final int prefetchRows;
+    private final List<T> rows = new ArrayList<>();
+
+    private PageLoader<T> loader;
+    private String nextCursor;
+    private boolean exhausted = true;
+    private SwingWorker<Page<T>, Void> pending;
+    private int generation;
+
+    @SafeVarargs
+    public PagedTableModel(Column<T>... columns) {
+        this(DEFAULT_PAGE_SIZE, columns);
+    }
+
+    @SafeVarargs
+    public PagedTableModel(int pageSize, Column<T>... columns) {
+        this.columns = new ArrayList<>(columns.length);
+        for (Column<T> column : columns) {
+            this.columns.add(column);
+        }
+        this.pageSize = pageSize;
+        this.prefetchRows = pageSize / 4;
+    }
+
+    /**
+     * Drop the loaded rows and start again from the first page
+     * @param loader Source of pages, e.g. (cursor, size) -> dao.getAllBookings(cursor, size)
+     */
+    public void load(PageLoader<T> loader) {
+        this.loader = loader;
+        reload();
+    }
+
+    /**
+     * Drop the loaded rows and fetch the first page again from the current loader
+     */
+    public void reload() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        rows.clear();
+        nextCursor = null;
+        exhausted = loader == null;
+        fireTableDataChanged();
+        fetchNextPage();
+    }
+
+    /**
+     * Get a loaded row
+     * @param rowIndex Model row index
+     * @return Row, or null for the loading placeholder
+     */
+    public T getRow(int rowIndex) {
+        return rowIndex < rows.size() ? rows.get(rowIndex) : null;
+    }
+
+    public int getLoadedRowCount() {
+        return rows.size();
+    }
+
+    public boolean isFullyLoaded() {
+        return exhausted;
+    }
+
+    @Override
+    public int getRowCount() {
+        return exhausted ? rows.size() : rows.size() + 1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        // The placeholder row holds a String in every column type
+        return exhausted ? columns.get(column).type : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (rowIndex >= rows.size() - prefetchRows) {
+            fetchNextPage();
+        }
+        if (rowIndex >= rows.size()) {
+            return columnIndex == 0 ? "Loading..." : null;
+        }
+        return columns.get(columnIndex).value.apply(rows.get(rowIndex));
+    }
+
+    private void fetchNextPage() {
+        if (exhausted || pending != null) {
+            return;
+        }
+        final int requestedIn = generation;
+        final PageLoader<T> source = loader;
+        final String cursor = nextCursor;
+
+        pending = new SwingWorker<Page<T>, Void>() {
+            @Override
+            protected Page<T> doInBackground() {
+                return source.load(cursor, pageSize);
+            }
+
+            @Override
+            protected void done() {
+                if (requestedIn != generation || isCancelled()) {
+                    return;
+                }
+                pending = null;
+                try {
+                    appendPage(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("Error loading table page: " + e.getCause().getMessage());
+                    exhausted = true;
+                    fireTableDataChanged();
+                }
+            }
+        };
+        pending.execute();
+    }
+
+    private void appendPage(Page<T> page) {
+        int first = rows.size();
+        boolean wasExhausted = exhausted;
+        rows.addAll(page.getItems());
+        nextCursor = page.getNextCursor();
+        exhausted = !page.hasMore();
+
+        if (exhausted != wasExhausted) {
+            // Placeholder row removed and column classes changed
+            fireTableDataChanged();
+        } else if (rows.size() > first) {
+            // The placeholder moved down; the old placeholder index is now a real row
+            fireTableRowsUpdated(first, first);
+            fireTableRowsInserted(first + 1, rows.size());
+        }
+    }
+}
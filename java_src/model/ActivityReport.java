@@ -0,0 +1,93 @@
+package model;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Activity Report Model Class
+ * Snapshot of the admin dashboard figures and when they were generated
+ */
+public class ActivityReport {
+
+    private final int totalUsers;
+    private final int totalEvents;
+    private final int totalBookings;
+    private final double totalRevenue;
+    private final Map<String, Integer> usersByRole;
+    private final List<String> topEvents;
+    private final long generatedAt; // epoch milliseconds
+
+    public ActivityReport(int totalUsers, int totalEvents, int totalBookings, double totalRevenue,
+                          Map<String, Integer> usersByRole, List<String> topEvents, long generatedAt) {
+        this.totalUsers = totalUsers;
+        this.totalEvents = totalEvents;
+        this.totalBookings = totalBookings;
+        this.totalRevenue = totalRevenue;
+        this.usersByRole = usersByRole;
+        this.topEvents = topEvents;
+        this.generatedAt = generatedAt;
+    }
+
+    // Getters
+
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+
+    public int getTotalEvents() {
+        return totalEvents;
+    }
+
+    public int getTotalBookings() {
+        return totalBookings;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public Map<String, Integer> getUsersByRole() {
+        return usersByRole;
+    }
+
+    public List<String> getTopEvents() {
+        return topEvents;
+    }
+
+    public long getGeneratedAt() {
+        return generatedAt;
+    }
+
+    /**
+     * Age of this snapshot in milliseconds
+     */
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - generatedAt;
+    }
+
+    /**
+     * Report in the text layout shown on the admin dashboard
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        StringBuilder roles = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : usersByRole.entrySet()) {
+            roles.append(entry.getKey()).append(": ").append(entry.getValue()).append(", ");
+        }
+
+        report.append("===== ACTIVITY REPORT =====\n");
+        report.append("Total Users: ").append(totalUsers).append("\n");
+        report.append("Total Events: ").append(totalEvents).append("\n");
+        report.append("Total Bookings: ").append(totalBookings).append("\n");
+        report.append("Total Revenue: ₹").append(String.format("%.2f", totalRevenue)).append("\n");
+        report.append("User Statistics: ").append(roles).append("\n");
+        report.append("Top Events: ").append(topEvents).append("\n");
+        report.append("Generated At: ")
+              .append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(generatedAt))).append("\n");
+
+        return report.toString();
+    }
+}
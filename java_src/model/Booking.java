@@ -17,6 +17,7 @@ public class Booking {
     private String bookingTime;
     private String status; // "confirmed", "cancelled", "pending"
     private String paymentStatus; // "paid", "unpaid", "refunded"
+    private String idempotencyKey; // Client-chosen key for retries, or null
     
     // Constructor with all fields
     public Booking(int bookingId, int userId, String userName, int eventId, 
@@ -138,6 +139,14 @@ public class Booking {
         this.paymentStatus = paymentStatus;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     @Override
     public String toString() {
         return "Booking{" +
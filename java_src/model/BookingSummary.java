@@ -0,0 +1,76 @@
+package model;
+
+/**
+ * Booking Summary Model Class
+ * The columns a booking history list shows, loaded with an explicit
+ * column list. Load the full Booking for the detail view.
+ */
+public class BookingSummary {
+
+    private final int bookingId;
+    private final int eventId;
+    private final String eventName;
+    private final int ticketsBooked;
+    private final double totalAmount;
+    private final String bookingDate;
+    private final String status;
+    private final String paymentStatus;
+
+    // Constructor with all fields
+    public BookingSummary(int bookingId, int eventId, String eventName, int ticketsBooked,
+                          double totalAmount, String bookingDate, String status, String paymentStatus) {
+        this.bookingId = bookingId;
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.ticketsBooked = ticketsBooked;
+        this.totalAmount = totalAmount;
+        this.bookingDate = bookingDate;
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+    }
+
+    // Getters
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public int getTicketsBooked() {
+        return ticketsBooked;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getBookingDate() {
+        return bookingDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingSummary{" +
+                "bookingId=" + bookingId +
+                ", eventName='" + eventName + '\'' +
+                ", ticketsBooked=" + ticketsBooked +
+                ", totalAmount=" + totalAmount +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package model;
+
+/**
+ * Event Cancellation Model Class
+ * Progress of cancelling an event's bookings and refunding its payments;
+ * also the checkpoint the cascade resumes from after a crash
+ */
+public class EventCancellation {
+
+    private int eventId;
+    private int lastBookingId; // Bookings up to and including this ID are done
+    private int bookingsCancelled;
+    private int paymentsRefunded;
+    private String status; // "running", "completed"
+
+    // Constructor with all fields
+    public EventCancellation(int eventId, int lastBookingId, int bookingsCancelled,
+                             int paymentsRefunded, String status) {
+        this.eventId = eventId;
+        this.lastBookingId = lastBookingId;
+        this.bookingsCancelled = bookingsCancelled;
+        this.paymentsRefunded = paymentsRefunded;
+        this.status = status;
+    }
+
+    // Getters and Setters
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public int getLastBookingId() {
+        return lastBookingId;
+    }
+
+    public void setLastBookingId(int lastBookingId) {
+        this.lastBookingId = lastBookingId;
+    }
+
+    public int getBookingsCancelled() {
+        return bookingsCancelled;
+    }
+
+    public void setBookingsCancelled(int bookingsCancelled) {
+        this.bookingsCancelled = bookingsCancelled;
+    }
+
+    public int getPaymentsRefunded() {
+        return paymentsRefunded;
+    }
+
+    public void setPaymentsRefunded(int paymentsRefunded) {
+        this.paymentsRefunded = paymentsRefunded;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isCompleted() {
+        return "completed".equalsIgnoreCase(status);
+    }
+
+    @Override
+    public String toString() {
+        return "EventCancellation{" +
+                "eventId=" + eventId +
+                ", lastBookingId=" + lastBookingId +
+                ", bookingsCancelled=" + bookingsCancelled +
+                ", paymentsRefunded=" + paymentsRefunded +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
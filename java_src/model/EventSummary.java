@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * Event Summary Model Class
+ * The columns an event list shows. Loaded with an explicit column list so
+ * list queries skip the description and audit columns; load the full
+ * Event for the detail view.
+ */
+public class EventSummary {
+
+    private final int eventId;
+    private final String eventName;
+    private final String eventDate;
+    private final String eventTime;
+    private final String location;
+    private final String category;
+    private final int totalTickets;
+    private int ticketsAvailable;
+    private final double ticketPrice;
+    private final String status;
+
+    // Constructor with all fields
+    public EventSummary(int eventId, String eventName, String eventDate, String eventTime,
+                        String location, String category, int totalTickets, int ticketsAvailable,
+                        double ticketPrice, String status) {
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.eventDate = eventDate;
+        this.eventTime = eventTime;
+        this.location = location;
+        this.category = category;
+        this.totalTickets = totalTickets;
+        this.ticketsAvailable = ticketsAvailable;
+        this.ticketPrice = ticketPrice;
+        this.status = status;
+    }
+
+    /**
+     * Summarize a fully loaded event
+     */
+    public static EventSummary of(Event event) {
+        return new EventSummary(event.getEventId(), event.getEventName(), event.getEventDate(),
+                event.getEventTime(), event.getLocation(), event.getCategory(), event.getTotalTickets(),
+                event.getTicketsAvailable(), event.getTicketPrice(), event.getStatus());
+    }
+
+    // Getters
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public String getEventDate() {
+        return eventDate;
+    }
+
+    public String getEventTime() {
+        return eventTime;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    public int getTicketsAvailable() {
+        return ticketsAvailable;
+    }
+
+    // Set from the live ticket inventory when the list is served
+    public void setTicketsAvailable(int ticketsAvailable) {
+        this.ticketsAvailable = ticketsAvailable;
+    }
+
+    public double getTicketPrice() {
+        return ticketPrice;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSummary{" +
+                "eventId=" + eventId +
+                ", eventName='" + eventName + '\'' +
+                ", eventDate='" + eventDate + '\'' +
+                ", location='" + location + '\'' +
+                ", ticketsAvailable=" + ticketsAvailable +
+                ", ticketPrice=" + ticketPrice +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+/**
+ * Export Filter Model Class
+ * Optional filters for booking and payment exports. A null field means
+ * "no filter" on that column.
+ */
+public class ExportFilter {
+
+    private Integer eventId;
+    private String fromDate; // yyyy-mm-dd, inclusive
+    private String toDate;   // yyyy-mm-dd, inclusive
+    private String status;
+
+    // Constructor for an unfiltered export
+    public ExportFilter() {
+    }
+
+    // Constructor with all fields
+    public ExportFilter(Integer eventId, String fromDate, String toDate, String status) {
+        this.eventId = eventId;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.status = status;
+    }
+
+    // Getters and Setters
+
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(String fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public String getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(String toDate) {
+        this.toDate = toDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportFilter{" +
+                "eventId=" + eventId +
+                ", fromDate='" + fromDate + '\'' +
+                ", toDate='" + toDate + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page Model Class
+ * One page of a keyset-paginated list. Pass nextCursor back to the same
+ * DAO method to fetch the following page.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor; // null on the last page
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Build a page from a query that fetched pageSize + 1 rows; the extra
+     * row only signals that another page exists and is dropped
+     * @param rows Rows fetched, at most pageSize + 1
+     * @param pageSize Requested page size
+     * @param cursorOf Builds the cursor from the last row of the page
+     * @return Page
+     */
+    public static <T> Page<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)));
+    }
+
+    /**
+     * Check a requested page size
+     * @throws IllegalArgumentException if pageSize is not positive
+     */
+    public static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+    }
+
+    /**
+     * Check the arguments of a page request whose cursor is a row ID
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Requested page size
+     * @return Row ID from the cursor, or 0 for the first page
+     * @throws IllegalArgumentException if pageSize is not positive or the cursor is not a row ID
+     */
+    public static int parseIdCursor(String cursor, int pageSize) {
+        checkPageSize(pageSize);
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            int id = Integer.parseInt(cursor);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+    }
+    
+    // Getters
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Opaque cursor for the next page
+     * @return Cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
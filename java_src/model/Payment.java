@@ -16,6 +16,7 @@ public class Payment {
     private String paymentTime;
     private String status; // "success", "failed", "pending", "refunded"
     private String remarks;
+    private String idempotencyKey; // Client-chosen key for retries, or null
     
     // Constructor with all fields
     public Payment(int paymentId, int bookingId, int userId, double amount,
@@ -126,6 +127,14 @@ public class Payment {
         this.remarks = remarks;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     @Override
     public String toString() {
         return "Payment{" +
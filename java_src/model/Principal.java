@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Principal Model Class
+ * The authenticated user behind a session: just what authorization checks
+ * and greetings need, so sessions stay small and never hold the password.
+ */
+public class Principal {
+
+    private final int userId;
+    private final String username;
+    private final String fullName;
+    private final String role;
+
+    // Constructor with all fields
+    public Principal(int userId, String username, String fullName, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.fullName = fullName;
+        this.role = role;
+    }
+
+    /**
+     * Build the principal for a logged-in user
+     */
+    public static Principal of(User user) {
+        return new Principal(user.getUserId(), user.getUsername(), user.getFullName(), user.getRole());
+    }
+
+    // Getters
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return "admin".equalsIgnoreCase(role);
+    }
+
+    @Override
+    public String toString() {
+        return "Principal{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role='" + role + '\'' +
+                '}';
+    }
+}
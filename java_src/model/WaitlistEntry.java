@@ -0,0 +1,98 @@
+package model;
+
+/**
+ * Waitlist Entry Model Class
+ * A user waiting for tickets to a sold-out event
+ */
+public class WaitlistEntry {
+
+    private int waitlistId;
+    private int userId;
+    private String userName;
+    private int eventId;
+    private int ticketsRequested;
+    private int priority; // Higher tiers are served first; FIFO within a tier
+    private String status; // "waiting", "promoted", "cancelled"
+    private int bookingId; // Pending booking created on promotion, 0 until then
+
+    // Constructor with all fields
+    public WaitlistEntry(int waitlistId, int userId, String userName, int eventId,
+                         int ticketsRequested, int priority, String status, int bookingId) {
+        this.waitlistId = waitlistId;
+        this.userId = userId;
+        this.userName = userName;
+        this.eventId = eventId;
+        this.ticketsRequested = ticketsRequested;
+        this.priority = priority;
+        this.status = status;
+        this.bookingId = bookingId;
+    }
+
+    // Constructor for joining a waitlist (without waitlistId)
+    public WaitlistEntry(int userId, String userName, int eventId, int ticketsRequested, int priority) {
+        this.userId = userId;
+        this.userName = userName;
+        this.eventId = eventId;
+        this.ticketsRequested = ticketsRequested;
+        this.priority = priority;
+        this.status = "waiting";
+    }
+
+    // Getters and Setters
+
+    public int getWaitlistId() {
+        return waitlistId;
+    }
+
+    public void setWaitlistId(int waitlistId) {
+        this.waitlistId = waitlistId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public int getTicketsRequested() {
+        return ticketsRequested;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(int bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    @Override
+    public String toString() {
+        return "WaitlistEntry{" +
+                "waitlistId=" + waitlistId +
+                ", userId=" + userId +
+                ", eventId=" + eventId +
+                ", ticketsRequested=" + ticketsRequested +
+                ", priority=" + priority +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
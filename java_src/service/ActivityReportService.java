@@ -0,0 +1,82 @@
+package service;
+
+import dao.AdminDAO;
+import model.ActivityReport;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Activity Report Service
+ * Keeps a recent activity report in memory and rebuilds it in the
+ * background, so the admin dashboard gets an answer immediately instead
+ * of waiting on the report queries. Each report carries the time it was
+ * generated.
+ */
+public class ActivityReportService {
+
+    private static final long REFRESH_INTERVAL_MS = Long.getLong("report.refreshIntervalMs", 60_000);
+
+    private static volatile ActivityReportService instance = null;
+
+    private final AdminDAO adminDAO;
+    private final ScheduledExecutorService refresher;
+    private volatile ActivityReport latest;
+
+    /**
+     * Get the shared report service, building the first report on first use
+     * @return ActivityReportService
+     */
+    public static ActivityReportService getInstance() {
+        ActivityReportService current = instance;
+        if (current == null) {
+            synchronized (ActivityReportService.class) {
+                current = instance;
+                if (current == null) {
+                    current = new ActivityReportService(new AdminDAO(), REFRESH_INTERVAL_MS);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public ActivityReportService(AdminDAO adminDAO, long refreshIntervalMs) {
+        this.adminDAO = adminDAO;
+        this.latest = adminDAO.buildActivityReport();
+
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "activity-report-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rebuild the cached report now
+     * @return The new report
+     */
+    public ActivityReport refresh() {
+        try {
+            latest = adminDAO.buildActivityReport();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot; the next run tries again
+            System.err.println("Error refreshing activity report: " + e.getMessage());
+        }
+        return latest;
+    }
+
+    /**
+     * Get the most recent report without touching the database
+     * @return Cached report; see getGeneratedAt() for its age
+     */
+    public ActivityReport getLatestReport() {
+        return latest;
+    }
+
+    public void shutdown() {
+        refresher.shutdown();
+    }
+}
@@ -0,0 +1,159 @@
+package service;
+
+import model.Booking;
+import model.BookingSummary;
+import model.Event;
+import model.EventSummary;
+import utils.Deadline;
+import utils.PoolConfig;
+import utils.TaskExecutors;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Async Event Service
+ * Non-blocking facade over EventService. Every method returns a
+ * CompletableFuture, so callers can fan out e.g. event details, booking
+ * history and availability at once and combine the results.
+ *
+ * Calls run on virtual threads where the JVM has them (a small platform
+ * thread pool otherwise). At most as many calls as the connection pool has
+ * connections run at once; the rest wait their turn here instead of piling
+ * up inside the pool. Each call has a deadline: it bounds the wait for a
+ * slot and a connection, becomes the JDBC query timeout, and completes the
+ * future with a TimeoutException when it passes.
+ */
+public class AsyncEventService {
+
+    private static final long DEFAULT_TIMEOUT_MS = Long.getLong("service.async.timeoutMs", 5000);
+
+    // Shared by every facade so the concurrency bound is process-wide
+    private static class Shared {
+        static final int MAX_CONCURRENCY = PoolConfig.fromSystemProperties().getMaxSize();
+        static final Semaphore SLOTS = new Semaphore(MAX_CONCURRENCY, true);
+        static final ExecutorService EXECUTOR =
+                TaskExecutors.newBlockingTaskExecutor("async-event-service", MAX_CONCURRENCY);
+        static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "async-event-service-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private final EventService eventService;
+    private final long timeoutNanos;
+
+    public AsyncEventService(EventService eventService) {
+        this(eventService, TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIMEOUT_MS));
+    }
+
+    private AsyncEventService(EventService eventService, long timeoutNanos) {
+        this.eventService = eventService;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Get a view of this facade whose calls use a different deadline
+     * @param timeout Time allowed per call, from submission to result
+     * @param unit Unit of timeout
+     * @return AsyncEventService sharing this one's executor and concurrency bound
+     */
+    public AsyncEventService withTimeout(long timeout, TimeUnit unit) {
+        return new AsyncEventService(eventService, unit.toNanos(timeout));
+    }
+
+    public CompletableFuture<List<EventSummary>> getAvailableEvents() {
+        return submit("getAvailableEvents", eventService::getAvailableEvents);
+    }
+
+    public CompletableFuture<List<EventSummary>> searchEvents(String keyword) {
+        return submit("searchEvents", () -> eventService.searchEvents(keyword));
+    }
+
+    public CompletableFuture<List<EventSummary>> getEventsByCategory(String category) {
+        return submit("getEventsByCategory", () -> eventService.getEventsByCategory(category));
+    }
+
+    public CompletableFuture<Event> getEventDetails(int eventId) {
+        return submit("getEventDetails", () -> eventService.getEventDetails(eventId));
+    }
+
+    public CompletableFuture<Integer> getTicketsAvailable(int eventId) {
+        return submit("getTicketsAvailable", () -> eventService.getTicketsAvailable(eventId));
+    }
+
+    public CompletableFuture<Boolean> bookEvent(Booking booking) {
+        return submit("bookEvent", () -> eventService.bookEvent(booking));
+    }
+
+    /**
+     * Idempotent booking; a call timed out by its deadline can be retried with the same key
+     */
+    public CompletableFuture<Boolean> bookEvent(Booking booking, String idempotencyKey) {
+        return submit("bookEvent", () -> eventService.bookEvent(booking, idempotencyKey));
+    }
+
+    public CompletableFuture<List<BookingSummary>> getBookingHistory(int userId) {
+        return submit("getBookingHistory", () -> eventService.getBookingHistory(userId));
+    }
+
+    public CompletableFuture<Boolean> cancelBooking(int bookingId) {
+        return submit("cancelBooking", () -> eventService.cancelBooking(bookingId));
+    }
+
+    public CompletableFuture<Boolean> validateBooking(int eventId, int ticketsRequired) {
+        return submit("validateBooking", () -> eventService.validateBooking(eventId, ticketsRequired));
+    }
+
+    public CompletableFuture<Double> calculateBookingCost(int eventId, int numberOfTickets) {
+        return submit("calculateBookingCost", () -> eventService.calculateBookingCost(eventId, numberOfTickets));
+    }
+
+    /**
+     * Run a blocking call under this facade's deadline and concurrency bound
+     */
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> call) {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task = Shared.EXECUTOR.submit(() -> {
+            boolean acquired = false;
+            try {
+                long remaining = deadline - System.nanoTime();
+                acquired = remaining > 0 && Shared.SLOTS.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    result.completeExceptionally(new TimeoutException(operation + " timed out waiting for a slot"));
+                } else if (!result.isDone()) {
+                    result.complete(Deadline.runWithin(deadline, call));
+                }
+            } catch (InterruptedException e) {
+                result.completeExceptionally(new TimeoutException(operation + " was interrupted"));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                if (acquired) {
+                    Shared.SLOTS.release();
+                }
+            }
+        });
+
+        ScheduledFuture<?> timer = Shared.TIMER.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(operation + " exceeded its deadline"))) {
+                task.cancel(true);
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((value, error) -> timer.cancel(false));
+
+        return result;
+    }
+}
@@ -0,0 +1,134 @@
+package service;
+
+import dao.EventCancellationDAO;
+import dao.EventDAO;
+import model.EventCancellation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event Cancellation Service
+ * Cancels an event together with everything sold for it: every booking is
+ * cancelled and every successful payment marked refunded. Bookings are
+ * walked in booking ID order in chunks of cancel.chunkSize; each chunk is
+ * one transaction that also advances the event's checkpoint, so a 5,000
+ * seat event takes ten transactions instead of thousands of single-row
+ * updates, and a run that dies halfway resumes after the last committed
+ * chunk. Waiters on the event's waitlist are dropped at the end.
+ *
+ * Command line: java service.EventCancellationService EVENT_ID... | resume
+ *
+ * Settings (system properties):
+ *   cancel.chunkSize            Bookings per transaction (default 500)
+ *   cancel.progressIntervalMs   Progress report interval (default 5000, 0 disables)
+ */
+public class EventCancellationService {
+
+    private static final int CHUNK_SIZE = Integer.getInteger("cancel.chunkSize", 500);
+    private static final long PROGRESS_INTERVAL_MS = Long.getLong("cancel.progressIntervalMs", 5000);
+
+    private EventDAO eventDAO;
+    private EventCancellationDAO cancellationDAO;
+
+    public EventCancellationService() {
+        this.eventDAO = new EventDAO();
+        this.cancellationDAO = new EventCancellationDAO();
+    }
+
+    /**
+     * Cancel an event, its bookings and its payments, or finish an
+     * interrupted run for the same event
+     * @param eventId Event ID
+     * @return Final progress; not completed if a chunk failed, in which case
+     *         calling again resumes. Null if the event does not exist or on error
+     */
+    public EventCancellation cancelEvent(int eventId) {
+        // Cancelled first, so no new bookings arrive behind the cursor
+        if (!eventDAO.deleteEvent(eventId)) {
+            return null;
+        }
+        EventCancellation progress = cancellationDAO.startCancellation(eventId);
+        if (progress == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        long lastReport = start;
+        int startCancelled = progress.getBookingsCancelled();
+        while (!progress.isCompleted()) {
+            if (!cancellationDAO.cancelBookingsChunk(progress, CHUNK_SIZE)) {
+                System.err.println("Cancellation of event " + eventId + " stopped after booking " +
+                                   progress.getLastBookingId() + "; run again to resume");
+                return progress;
+            }
+            long now = System.nanoTime();
+            if (PROGRESS_INTERVAL_MS > 0 && now - lastReport >= PROGRESS_INTERVAL_MS * 1_000_000) {
+                lastReport = now;
+                double seconds = (now - start) / 1e9;
+                System.out.printf("Event %d: %d bookings cancelled, %d payments refunded, %.0f bookings/sec%n",
+                        eventId, progress.getBookingsCancelled(), progress.getPaymentsRefunded(),
+                        (progress.getBookingsCancelled() - startCancelled) / seconds);
+            }
+        }
+
+        WaitlistService.getInstance().eventCancelled(eventId);
+        return progress;
+    }
+
+    /**
+     * Finish every cancellation a crash or error left unfinished
+     * @return Final progress of each resumed cancellation
+     */
+    public List<EventCancellation> resumeUnfinished() {
+        List<EventCancellation> results = new ArrayList<>();
+        for (EventCancellation unfinished : cancellationDAO.getUnfinishedCancellations()) {
+            System.out.println("Resuming cancellation of event " + unfinished.getEventId() +
+                               " after booking " + unfinished.getLastBookingId());
+            EventCancellation result = cancelEvent(unfinished.getEventId());
+            results.add(result != null ? result : unfinished);
+        }
+        return results;
+    }
+
+    /**
+     * Get the progress of an event's cancellation
+     * @param eventId Event ID
+     * @return Progress, or null if the event was never cancelled this way
+     */
+    public EventCancellation getProgress(int eventId) {
+        return cancellationDAO.getCancellation(eventId);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java service.EventCancellationService EVENT_ID... | resume");
+            System.exit(1);
+        }
+        EventCancellationService service = new EventCancellationService();
+        List<EventCancellation> results = new ArrayList<>();
+        if (args.length == 1 && "resume".equals(args[0])) {
+            results.addAll(service.resumeUnfinished());
+        } else {
+            for (String arg : args) {
+                int eventId = Integer.parseInt(arg);
+                EventCancellation result = service.cancelEvent(eventId);
+                if (result == null) {
+                    System.err.println("Could not cancel event " + eventId);
+                    System.exit(1);
+                }
+                results.add(result);
+            }
+        }
+
+        boolean unfinished = false;
+        for (EventCancellation result : results) {
+            System.out.println("Event " + result.getEventId() + ": " + result.getBookingsCancelled() +
+                               " bookings cancelled, " + result.getPaymentsRefunded() + " payments refunded" +
+                               (result.isCompleted() ? "" : " (unfinished)"));
+            unfinished |= !result.isCompleted();
+        }
+        if (unfinished) {
+            System.exit(1);
+        }
+    }
+}
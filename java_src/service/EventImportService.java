@@ -0,0 +1,476 @@
+package service;
+
+import dao.EventDAO;
+import model.Event;
+import utils.ExportWriter;
+import utils.ImportReader;
+import utils.PoolConfig;
+import utils.TaskExecutors;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event Import Service
+ * Bulk-loads events from a CSV or NDJSON file, the counterpart of
+ * ExportService. The file is streamed: one thread splits it into records
+ * and hands out chunks of import.batchSize records; worker threads parse
+ * and validate each chunk and insert its valid rows with one
+ * EventDAO.createEvents batch and commit. A row that fails validation or
+ * its insert is reported with its line number and the load carries on.
+ * At most import.threads chunks are in flight, so heap use is bounded
+ * by the batch size rather than the file size.
+ *
+ * Columns (CSV header or JSON keys): event_name, description, event_date
+ * (yyyy-mm-dd), event_time (HH:mm[:ss]), location, category, total_tickets,
+ * ticket_price, and optionally tickets_available, status, organizer_id and
+ * organizer_name, which default to total_tickets, active and the organizer
+ * given to the import.
+ *
+ * Command line: java service.EventImportService csv|ndjson FILE ORGANIZER_ID ORGANIZER_NAME
+ *               [errors=FILE]
+ *
+ * Settings (system properties):
+ *   import.batchSize          Rows per batch insert and commit (default 1000)
+ *   import.threads            Parallel parse/insert workers (default: CPUs, at most db.pool.maxSize)
+ *   import.progressIntervalMs Progress report interval (default 5000, 0 disables)
+ */
+public class EventImportService {
+
+    private static final int BATCH_SIZE = Integer.getInteger("import.batchSize", 1000);
+    private static final int THREADS = Integer.getInteger("import.threads",
+            Math.min(Runtime.getRuntime().availableProcessors(), PoolConfig.fromSystemProperties().getMaxSize()));
+    private static final long PROGRESS_INTERVAL_MS = Long.getLong("import.progressIntervalMs", 5000);
+
+    // Errors kept in the result; the rest only go to the errors file
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String[] REQUIRED_COLUMNS = {
+        "event_name", "event_date", "event_time", "location", "category", "total_tickets", "ticket_price"
+    };
+
+    /**
+     * Outcome of one import
+     */
+    public static final class ImportResult {
+        private final long rows;
+        private final long imported;
+        private final long elapsedNanos;
+        private final List<String> errors;
+
+        ImportResult(long rows, long imported, long elapsedNanos, List<String> errors) {
+            this.rows = rows;
+            this.imported = imported;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getFailed() {
+            return rows - imported;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * The first row errors, as "line N: message"
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d imported, %d failed in %d ms (%.0f rows/sec)",
+                    rows, imported, getFailed(), getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+
+    private EventDAO eventDAO;
+
+    public EventImportService() {
+        this.eventDAO = new EventDAO();
+    }
+
+    /**
+     * Import events from a file
+     * @param file Source file, UTF-8
+     * @param format CSV or NDJSON
+     * @param organizerId Organizer for rows without an organizer_id
+     * @param organizerName Organizer name for rows without an organizer_name
+     * @param errorsOut Receives every row error, or null to keep only the first few in the result
+     * @return Import result, or null if the file could not be read
+     */
+    public ImportResult importEvents(Path file, ExportWriter.Format format, int organizerId,
+                                     String organizerName, PrintWriter errorsOut) {
+        Load load = new Load(format, organizerId, organizerName, errorsOut);
+        ExecutorService workers = TaskExecutors.newBlockingTaskExecutor("event-import", THREADS);
+        Semaphore inFlight = new Semaphore(THREADS);
+        ScheduledExecutorService progress = startProgress(load);
+
+        try (ImportReader reader = new ImportReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), format)) {
+            if (format == ExportWriter.Format.CSV && !load.readHeader(reader.next())) {
+                return null;
+            }
+
+            List<ImportReader.Record> chunk = new ArrayList<>(BATCH_SIZE);
+            ImportReader.Record record;
+            while ((record = reader.next()) != null) {
+                load.read.increment();
+                chunk.add(record);
+                if (chunk.size() == BATCH_SIZE) {
+                    submit(workers, inFlight, load, chunk);
+                    chunk = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(workers, inFlight, load, chunk);
+            }
+            // Every permit back means every chunk has finished
+            inFlight.acquire(THREADS);
+            return load.result();
+
+        } catch (IOException e) {
+            System.err.println("Error reading import file " + file + ": " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Import of " + file + " interrupted");
+            return null;
+        } finally {
+            workers.shutdown();
+            if (progress != null) {
+                progress.shutdownNow();
+            }
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, Load load,
+                        List<ImportReader.Record> chunk) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            workers.execute(() -> {
+                try {
+                    importChunk(load, chunk);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Parse, validate and insert one chunk of records
+     */
+    private void importChunk(Load load, List<ImportReader.Record> chunk) {
+        List<Event> events = new ArrayList<>(chunk.size());
+        List<ImportReader.Record> sources = new ArrayList<>(chunk.size());
+        for (ImportReader.Record record : chunk) {
+            try {
+                events.add(load.toEvent(record));
+                sources.add(record);
+            } catch (IllegalArgumentException e) {
+                load.error(record.getLine(), e.getMessage());
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        String[] errors;
+        try {
+            errors = eventDAO.createEvents(events);
+        } catch (RuntimeException e) {
+            errors = null;
+        }
+        for (int i = 0; i < events.size(); i++) {
+            if (errors == null) {
+                load.error(sources.get(i).getLine(), "batch could not be written to the database");
+            } else if (errors[i] != null) {
+                load.error(sources.get(i).getLine(), errors[i]);
+            } else {
+                load.imported.increment();
+            }
+        }
+    }
+
+    private static ScheduledExecutorService startProgress(Load load) {
+        if (PROGRESS_INTERVAL_MS <= 0) {
+            return null;
+        }
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "event-import-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        progress.scheduleAtFixedRate(() -> {
+            double seconds = (System.nanoTime() - load.start) / 1e9;
+            long done = load.imported.sum() + load.failed.sum();
+            System.out.printf("Imported %d rows (%d failed) of %d read, %.0f rows/sec%n",
+                    load.imported.sum(), load.failed.sum(), load.read.sum(), done / seconds);
+        }, PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return progress;
+    }
+
+    /**
+     * State of one import, shared by the reader and the workers
+     */
+    private static final class Load {
+        final long start = System.nanoTime();
+        final ExportWriter.Format format;
+        final int organizerId;
+        final String organizerName;
+        final PrintWriter errorsOut;
+        final LongAdder read = new LongAdder();
+        final LongAdder imported = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final List<String> firstErrors = Collections.synchronizedList(new ArrayList<>());
+        String[] header;
+
+        Load(ExportWriter.Format format, int organizerId, String organizerName, PrintWriter errorsOut) {
+            this.format = format;
+            this.organizerId = organizerId;
+            this.organizerName = organizerName;
+            this.errorsOut = errorsOut;
+        }
+
+        boolean readHeader(ImportReader.Record record) {
+            if (record == null) {
+                System.err.println("Import file is empty");
+                return false;
+            }
+            try {
+                header = ImportReader.parseCsv(record.getText());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid CSV header: " + e.getMessage());
+                return false;
+            }
+            for (int i = 0; i < header.length; i++) {
+                String name = header[i] == null ? "" : header[i].trim();
+                // Spreadsheet tools like to start UTF-8 files with a byte order mark
+                header[i] = i == 0 && name.startsWith("\uFEFF") ? name.substring(1) : name;
+            }
+            List<String> present = Arrays.asList(header);
+            for (String column : REQUIRED_COLUMNS) {
+                if (!present.contains(column)) {
+                    System.err.println("CSV header is missing column " + column);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void error(long line, String message) {
+            failed.increment();
+            String entry = "line " + line + ": " + message;
+            if (firstErrors.size() < MAX_REPORTED_ERRORS) {
+                firstErrors.add(entry);
+            }
+            if (errorsOut != null) {
+                synchronized (errorsOut) {
+                    errorsOut.println(entry);
+                }
+            }
+        }
+
+        ImportResult result() {
+            List<String> errors;
+            synchronized (firstErrors) {
+                errors = new ArrayList<>(firstErrors.subList(0, Math.min(firstErrors.size(), MAX_REPORTED_ERRORS)));
+            }
+            return new ImportResult(read.sum(), imported.sum(), System.nanoTime() - start, errors);
+        }
+
+        /**
+         * Parse and validate one record
+         * @throws IllegalArgumentException describing the first problem found
+         */
+        Event toEvent(ImportReader.Record record) {
+            Map<String, String> row;
+            if (format == ExportWriter.Format.CSV) {
+                String[] fields = ImportReader.parseCsv(record.getText());
+                if (fields.length != header.length) {
+                    throw new IllegalArgumentException("expected " + header.length + " fields but found " + fields.length);
+                }
+                row = new HashMap<>();
+                for (int i = 0; i < fields.length; i++) {
+                    row.put(header[i], fields[i]);
+                }
+            } else {
+                row = ImportReader.parseJson(record.getText());
+            }
+
+            Event event = new Event(
+                text(row, "event_name", 150, true),
+                text(row, "description", Integer.MAX_VALUE, false),
+                date(row, "event_date"),
+                time(row, "event_time"),
+                text(row, "location", 200, true),
+                text(row, "category", 50, true),
+                number(row, "total_tickets", 1, Integer.MAX_VALUE, null),
+                price(row, "ticket_price"),
+                number(row, "organizer_id", 1, Integer.MAX_VALUE, organizerId),
+                row.get("organizer_name") != null ? text(row, "organizer_name", 100, true) : organizerName);
+            event.setTicketsAvailable(number(row, "tickets_available", 0, event.getTotalTickets(), event.getTotalTickets()));
+
+            String status = row.get("status");
+            if (status != null) {
+                status = status.trim().toLowerCase();
+                if (!"active".equals(status) && !"cancelled".equals(status) && !"completed".equals(status)) {
+                    throw new IllegalArgumentException("status must be active, cancelled or completed");
+                }
+                event.setStatus(status);
+            }
+            return event;
+        }
+
+        private static String text(Map<String, String> row, String column, int maxLength, boolean required) {
+            String value = row.get(column);
+            if (value == null || value.trim().isEmpty()) {
+                if (required) {
+                    throw new IllegalArgumentException(column + " is required");
+                }
+                return value;
+            }
+            value = value.trim();
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+            }
+            return value;
+        }
+
+        private static String date(Map<String, String> row, String column) {
+            String value = text(row, column, 10, true);
+            try {
+                return LocalDate.parse(value).toString();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(column + " '" + value + "' is not a yyyy-mm-dd date");
+            }
+        }
+
+        private static String time(Map<String, String> row, String column) {
+            String value = text(row, column, 8, true);
+            try {
+                LocalTime time = LocalTime.parse(value);
+                return String.format("%02d:%02d:%02d", time.getHour(), time.getMinute(), time.getSecond());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(column + " '" + value + "' is not an HH:mm[:ss] time");
+            }
+        }
+
+        private static int number(Map<String, String> row, String column, int min, int max, Integer defaultValue) {
+            String value = row.get(column);
+            if (value == null || value.trim().isEmpty()) {
+                if (defaultValue == null) {
+                    throw new IllegalArgumentException(column + " is required");
+                }
+                return defaultValue;
+            }
+            int number;
+            try {
+                number = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " '" + value + "' is not a whole number");
+            }
+            if (number < min || number > max) {
+                throw new IllegalArgumentException(column + " must be between " + min + " and " + max);
+            }
+            return number;
+        }
+
+        private static double price(Map<String, String> row, String column) {
+            String value = text(row, column, 20, true);
+            double price;
+            try {
+                price = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " '" + value + "' is not a number");
+            }
+            // DECIMAL(10, 2)
+            if (!(price >= 0 && price < 1e8)) {
+                throw new IllegalArgumentException(column + " must be between 0 and 99999999.99");
+            }
+            return price;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Usage: java service.EventImportService csv|ndjson FILE ORGANIZER_ID ORGANIZER_NAME " +
+                               "[errors=FILE]");
+            System.exit(1);
+        }
+        ExportWriter.Format format = ExportWriter.Format.valueOf(args[0].toUpperCase());
+        Path file = Paths.get(args[1]);
+        int organizerId = Integer.parseInt(args[2]);
+        String errorsFile = null;
+        for (int i = 4; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if ("errors".equals(option[0]) && option.length == 2) {
+                errorsFile = option[1];
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                System.exit(1);
+            }
+        }
+
+        ImportResult result;
+        try (PrintWriter errorsOut = errorsFile == null ? null
+                : new PrintWriter(Files.newBufferedWriter(Paths.get(errorsFile), StandardCharsets.UTF_8))) {
+            result = new EventImportService().importEvents(file, format, organizerId, args[3], errorsOut);
+        } catch (IOException e) {
+            System.err.println("Error opening errors file " + errorsFile + ": " + e.getMessage());
+            result = null;
+        }
+        if (result == null) {
+            System.exit(1);
+        }
+        System.out.println("Imported events from " + file + ": " + result);
+        if (errorsFile == null) {
+            for (String error : result.getErrors()) {
+                System.out.println("  " + error);
+            }
+            if (result.getFailed() > result.getErrors().size()) {
+                System.out.println("  ... " + (result.getFailed() - result.getErrors().size()) +
+                                   " more; pass errors=FILE to keep them all");
+            }
+        } else if (result.getFailed() > 0) {
+            System.out.println("Row errors written to " + errorsFile);
+        }
+    }
+}
@@ -2,11 +2,21 @@ package service;
 
 import dao.EventDAO;
 import dao.BookingDAO;
+import dao.WaitlistDAO;
 import model.Event;
 import model.Booking;
+import model.EventCancellation;
+import model.BookingSummary;
+import model.EventSummary;
+import model.Page;
+import model.WaitlistEntry;
+import utils.IdempotencyCache;
+import utils.Metrics;
 
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Event Service Class
@@ -14,97 +24,317 @@ import java.util.List;
  */
 public class EventService {
     
+    private static final boolean WRITE_BEHIND = Boolean.getBoolean("inventory.writeBehind");
+    
+    // Recent idempotency keys -> booking ID, shared across service instances
+    private static final IdempotencyCache BOOKING_KEYS = IdempotencyCache.fromSystemProperties("booking");
+    
     private EventDAO eventDAO;
     private BookingDAO bookingDAO;
+    private TicketInventory inventory;
+    private WaitlistDAO waitlistDAO;
     
     public EventService() throws SQLException {
         this.eventDAO = new EventDAO();
         this.bookingDAO = new BookingDAO();
+        this.inventory = TicketInventory.getInstance();
+        this.waitlistDAO = new WaitlistDAO();
+        // Re-arms the expiry of holds left pending by an earlier run
+        SeatHolds.getInstance();
     }
     
     /**
      * Get all available events for users to browse
-     * @return List of active events
+     * @return List of active event summaries; use getEventDetails for the full event
+     */
+    public List<EventSummary> getAvailableEvents() {
+        return Metrics.time("EventService.getAvailableEvents()", () -> withLiveAvailability(eventDAO.getActiveEventSummaries()));
+    }
+    
+    /**
+     * Get one page of available events, soonest first
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of events per page
+     * @return Page of active event summaries
      */
-    public List<Event> getAvailableEvents() {
-        return eventDAO.getAllActiveEvents();
+    public Page<EventSummary> getAvailableEvents(String cursor, int pageSize) {
+        return Metrics.time("EventService.getAvailableEvents(String,int)", () -> {
+            Page<EventSummary> page = eventDAO.getActiveEventSummaries(cursor, pageSize);
+            withLiveAvailability(page.getItems());
+            return page;
+        });
     }
     
     /**
      * Search events by keyword
      * @param keyword Search keyword
-     * @return List of matching events
+     * @return List of matching event summaries
      */
-    public List<Event> searchEvents(String keyword) {
-        return eventDAO.searchEvents(keyword);
+    public List<EventSummary> searchEvents(String keyword) {
+        return Metrics.time("EventService.searchEvents", () -> withLiveAvailability(eventDAO.searchEventSummaries(keyword, 0)));
     }
     
     /**
      * Get events by category
      * @param category Event category
-     * @return List of events in category
+     * @return List of event summaries in category
      */
-    public List<Event> getEventsByCategory(String category) {
-        return eventDAO.getEventsByCategory(category);
+    public List<EventSummary> getEventsByCategory(String category) {
+        return Metrics.time("EventService.getEventsByCategory", () -> withLiveAvailability(eventDAO.getEventSummariesByCategory(category)));
     }
     
     /**
      * Get event details
      * @param eventId Event ID
-     * @return Event object
+     * @return Event object with every column loaded
      */
     public Event getEventDetails(int eventId) {
-        return eventDAO.getEventById(eventId);
+        return Metrics.time("EventService.getEventDetails", () -> {
+            Event event = eventDAO.getEventById(eventId);
+            if (event != null) {
+                applyLiveAvailability(event);
+            }
+            return event;
+        });
+    }
+    
+    /**
+     * Get tickets currently available for an event
+     * @param eventId Event ID
+     * @return Tickets available, or -1 if the event is not bookable
+     */
+    public int getTicketsAvailable(int eventId) {
+        return Metrics.time("EventService.getTicketsAvailable", () -> inventory.getAvailable(eventId));
     }
     
     /**
-     * Book event for user
+     * Book event for user.
+     * Tickets are reserved in memory first so sold-out events are rejected
+     * without a DB round trip; the booking insert and the ticket decrement
+     * then run in one transaction. With -Dinventory.writeBehind=true only the
+     * insert runs and the decrement is flushed to the DB asynchronously.
      * @param booking Booking object
      * @return true if booking successful, false otherwise
      */
     public boolean bookEvent(Booking booking) {
-        // Check if event has available tickets
-        Event event = eventDAO.getEventById(booking.getEventId());
-        if (event != null && event.getTicketsAvailable() >= booking.getTicketsBooked()) {
-            // Create booking
-            if (bookingDAO.createBooking(booking)) {
-                // Update ticket availability
-                return eventDAO.updateTicketAvailability(booking.getEventId(), booking.getTicketsBooked());
+        return Metrics.time("EventService.bookEvent", () -> {
+            int eventId = booking.getEventId();
+            int tickets = booking.getTicketsBooked();
+            
+            if (!inventory.tryReserve(eventId, tickets)) {
+                return false;
+            }
+            
+            if (WRITE_BEHIND) {
+                if (bookingDAO.createBooking(booking)) {
+                    inventory.commitReservation(eventId, tickets);
+                    return true;
+                }
+            } else if (bookingDAO.createBookingWithTickets(booking)) {
+                return true;
             }
+            
+            inventory.release(eventId, tickets);
+            return false;
+        });
+    }
+    
+    /**
+     * Book event for user at most once per idempotency key.
+     * A retry with the same key gets the booking the first attempt made,
+     * from memory within the idempotency.booking.windowSeconds window and
+     * from the bookings table after that, without reserving tickets again.
+     * Keys are scoped to the booking user.
+     * @param booking Booking object; its bookingId is set on success
+     * @param idempotencyKey Client-chosen key, at most 64 characters; null books unconditionally
+     * @return true if booked, by this call or an earlier one with the same key
+     * @throws IllegalArgumentException if the key is invalid, or was already used for a
+     *         booking of a different event, ticket count or amount
+     */
+    public boolean bookEvent(Booking booking, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return bookEvent(booking);
         }
-        return false;
+        IdempotencyCache.validateKey(idempotencyKey);
+        return Metrics.time("EventService.bookEvent(Booking,String)", () -> {
+            booking.setIdempotencyKey(idempotencyKey);
+            int bookingId = BOOKING_KEYS.execute(booking.getUserId() + ":" + idempotencyKey,
+                    booking.getEventId() + ":" + booking.getTicketsBooked() + ":" + IdempotencyCache.cents(booking.getTotalAmount()),
+                    () -> {
+                        Booking earlier = bookingDAO.getBookingByIdempotencyKey(booking.getUserId(), idempotencyKey);
+                        if (earlier == null) {
+                            return 0;
+                        }
+                        if (earlier.getEventId() != booking.getEventId()
+                                || earlier.getTicketsBooked() != booking.getTicketsBooked()
+                                || IdempotencyCache.cents(earlier.getTotalAmount()) != IdempotencyCache.cents(booking.getTotalAmount())) {
+                            throw new IllegalArgumentException("Idempotency key " + idempotencyKey
+                                    + " was already used for a different booking");
+                        }
+                        return earlier.getBookingId();
+                    },
+                    () -> bookEvent(booking) ? booking.getBookingId() : -1);
+            if (bookingId <= 0) {
+                return false;
+            }
+            booking.setBookingId(bookingId);
+            return true;
+        });
+    }
+    
+    /**
+     * Idempotency key window statistics for bookings
+     */
+    public static IdempotencyCache getBookingIdempotencyKeys() {
+        return BOOKING_KEYS;
     }
     
     /**
      * Get booking history for user
      * @param userId User ID
-     * @return List of user's bookings
+     * @return List of the user's booking summaries, newest first
+     */
+    public List<BookingSummary> getBookingHistory(int userId) {
+        return Metrics.time("EventService.getBookingHistory(int)", () -> bookingDAO.getUserBookingSummaries(userId));
+    }
+    
+    /**
+     * Get one page of a user's booking history, newest first
+     * @param userId User ID
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of bookings per page
+     * @return Page of booking summaries
      */
-    public List<Booking> getBookingHistory(int userId) {
-        return bookingDAO.getUserBookings(userId);
+    public Page<BookingSummary> getBookingHistory(int userId, String cursor, int pageSize) {
+        return Metrics.time("EventService.getBookingHistory(int,String,int)", () -> bookingDAO.getUserBookingSummaries(userId, cursor, pageSize));
     }
     
     /**
-     * Cancel a booking
+     * Cancel a booking and return its tickets to the event
      * @param bookingId Booking ID
      * @return true if cancellation successful, false otherwise
      */
     public boolean cancelBooking(int bookingId) {
-        // Get booking details
-        Booking booking = bookingDAO.getBookingById(bookingId);
-        if (booking != null) {
-            // Cancel booking
-            if (bookingDAO.cancelBooking(bookingId)) {
-                // Restore ticket availability
-                Event event = eventDAO.getEventById(booking.getEventId());
-                if (event != null) {
-                    String sql = "UPDATE events SET tickets_available = tickets_available + ? WHERE event_id = ?";
-                    // This would be executed directly, but for now we return success
-                    return true;
-                }
+        return Metrics.time("EventService.cancelBooking", () -> {
+            // Get booking details
+            Booking booking = bookingDAO.getBookingById(bookingId);
+            if (booking != null && bookingDAO.cancelBookingWithRestock(bookingId)) {
+                inventory.release(booking.getEventId(), booking.getTicketsBooked());
+                WaitlistService.getInstance().ticketsReleased(booking.getEventId());
+                return true;
             }
-        }
-        return false;
+            return false;
+        });
+    }
+    
+    /**
+     * Hold tickets for a user while they pay.
+     * The tickets are taken from the event at once, in memory and in the DB,
+     * and the booking is written as pending. Unless confirmHold is called
+     * within hold.ttlSeconds, the hold expires and the tickets go back on sale.
+     * @param booking Booking object; its status is set to pending and its bookingId on success
+     * @return true if the tickets are held, false if sold out or on error
+     */
+    public boolean holdTickets(Booking booking) {
+        return Metrics.time("EventService.holdTickets", () -> {
+            int eventId = booking.getEventId();
+            int tickets = booking.getTicketsBooked();
+            
+            if (!inventory.tryReserve(eventId, tickets)) {
+                return false;
+            }
+            
+            // Always written through, so an expiring hold has a DB decrement to undo
+            booking.setStatus("pending");
+            booking.setPaymentStatus("unpaid");
+            if (bookingDAO.createBookingWithTickets(booking)) {
+                SeatHolds.getInstance().hold(booking.getBookingId());
+                return true;
+            }
+            
+            inventory.release(eventId, tickets);
+            return false;
+        });
+    }
+    
+    /**
+     * Turn a seat hold into a confirmed booking
+     * @param bookingId Booking ID of the hold
+     * @return true if confirmed, false if the hold expired or was released
+     */
+    public boolean confirmHold(int bookingId) {
+        return Metrics.time("EventService.confirmHold", () -> {
+            if (bookingDAO.confirmPendingBooking(bookingId, SeatHolds.getInstance().getHoldTtlSeconds())) {
+                SeatHolds.getInstance().cancel(bookingId);
+                return true;
+            }
+            return false;
+        });
+    }
+    
+    /**
+     * Give up a seat hold before it expires
+     * @param bookingId Booking ID of the hold
+     * @return true if the hold was released, false if it was already gone
+     */
+    public boolean releaseHold(int bookingId) {
+        return Metrics.time("EventService.releaseHold", () -> {
+            // Only cancels while still pending, so a hold confirmed meanwhile stays sold
+            Map<Integer, Integer> released = bookingDAO.expirePendingBookings(Collections.singletonList(bookingId));
+            if (released == null) {
+                // Leave the expiry timer armed so the hold is still released when it runs out
+                return false;
+            }
+            SeatHolds.getInstance().cancel(bookingId);
+            if (released.isEmpty()) {
+                return false;
+            }
+            for (Map.Entry<Integer, Integer> entry : released.entrySet()) {
+                inventory.release(entry.getKey(), entry.getValue());
+                WaitlistService.getInstance().ticketsReleased(entry.getKey());
+            }
+            return true;
+        });
+    }
+    
+    /**
+     * Cancel an event with all its bookings and refund its payments, in
+     * checkpointed chunks; see EventCancellationService
+     * @param eventId Event ID
+     * @return Final progress, not completed if the run stopped early (call
+     *         again to resume), or null if the event does not exist
+     */
+    public EventCancellation cancelEvent(int eventId) {
+        return Metrics.time("EventService.cancelEvent", () -> new EventCancellationService().cancelEvent(eventId));
+    }
+    
+    /**
+     * Put a user on the waitlist of a sold-out event.
+     * When tickets come back the user is given a seat hold to confirm;
+     * see WaitlistService.
+     * @param entry Waitlist entry; its waitlistId is set on success
+     * @return true if the user is now waiting, false otherwise
+     */
+    public boolean joinWaitlist(WaitlistEntry entry) {
+        return Metrics.time("EventService.joinWaitlist", () -> WaitlistService.getInstance().join(entry));
+    }
+    
+    /**
+     * Take a user off a waitlist
+     * @param waitlistId Waitlist entry ID
+     * @return true if the user was still waiting, false otherwise
+     */
+    public boolean leaveWaitlist(int waitlistId) {
+        return Metrics.time("EventService.leaveWaitlist", () -> WaitlistService.getInstance().leave(waitlistId));
+    }
+    
+    /**
+     * Get a user's waitlist entries; promoted ones carry the booking ID of their hold
+     * @param userId User ID
+     * @return List of the user's waitlist entries, newest first
+     */
+    public List<WaitlistEntry> getWaitlistEntries(int userId) {
+        return Metrics.time("EventService.getWaitlistEntries", () -> waitlistDAO.getUserEntries(userId));
     }
     
     /**
@@ -114,12 +344,10 @@ public class EventService {
      * @return true if booking is possible, false otherwise
      */
     public boolean validateBooking(int eventId, int ticketsRequired) {
-        Event event = eventDAO.getEventById(eventId);
-        if (event != null) {
-            return event.getTicketsAvailable() >= ticketsRequired && 
-                   event.getStatus().equalsIgnoreCase("active");
-        }
-        return false;
+        return Metrics.time("EventService.validateBooking", () -> {
+            // Only active events are tracked by the inventory
+            return inventory.hasAvailable(eventId, ticketsRequired);
+        });
     }
     
     /**
@@ -129,10 +357,32 @@ public class EventService {
      * @return Total cost
      */
     public double calculateBookingCost(int eventId, int numberOfTickets) {
-        Event event = eventDAO.getEventById(eventId);
-        if (event != null) {
-            return event.getTicketPrice() * numberOfTickets;
+        return Metrics.time("EventService.calculateBookingCost", () -> {
+            Event event = eventDAO.getEventById(eventId);
+            if (event != null) {
+                return event.getTicketPrice() * numberOfTickets;
+            }
+            return 0.0;
+        });
+    }
+    
+    /**
+     * Replace DB ticket counts in a list with the live inventory counts
+     */
+    private List<EventSummary> withLiveAvailability(List<EventSummary> events) {
+        for (EventSummary event : events) {
+            int live = inventory.getAvailable(event.getEventId());
+            if (live >= 0) {
+                event.setTicketsAvailable(live);
+            }
+        }
+        return events;
+    }
+    
+    private void applyLiveAvailability(Event event) {
+        int live = inventory.getAvailable(event.getEventId());
+        if (live >= 0) {
+            event.setTicketsAvailable(live);
         }
-        return 0;
     }
 }
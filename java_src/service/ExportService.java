@@ -0,0 +1,140 @@
+package service;
+
+import dao.BookingDAO;
+import dao.PaymentDAO;
+import model.ExportFilter;
+import utils.ExportWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Export Service
+ * Streams bookings and payments to CSV or NDJSON files and reports
+ * throughput. Rows go from the database cursor to the file without being
+ * collected in memory, so large exports run in constant heap.
+ *
+ * Command line: java service.ExportService bookings|payments csv|ndjson FILE
+ *               [event=ID] [from=yyyy-mm-dd] [to=yyyy-mm-dd] [status=STATUS]
+ */
+public class ExportService {
+
+    /**
+     * Outcome of one export
+     */
+    public static final class ExportResult {
+        private final long rows;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        ExportResult(long rows, long bytes, long elapsedNanos) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %.1f MB in %d ms (%.0f rows/sec)",
+                    rows, bytes / (1024.0 * 1024.0), getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+
+    private BookingDAO bookingDAO;
+    private PaymentDAO paymentDAO;
+
+    public ExportService() {
+        this.bookingDAO = new BookingDAO();
+        this.paymentDAO = new PaymentDAO();
+    }
+
+    /**
+     * Export bookings to a file
+     * @param file Destination file, replaced if it exists
+     * @param format CSV or NDJSON
+     * @param filter Filters, or null to export everything
+     * @return Export result, or null on failure
+     */
+    public ExportResult exportBookings(Path file, ExportWriter.Format format, ExportFilter filter) {
+        return export(file, format, filter, true);
+    }
+
+    /**
+     * Export payments to a file
+     * @param file Destination file, replaced if it exists
+     * @param format CSV or NDJSON
+     * @param filter Filters, or null to export everything
+     * @return Export result, or null on failure
+     */
+    public ExportResult exportPayments(Path file, ExportWriter.Format format, ExportFilter filter) {
+        return export(file, format, filter, false);
+    }
+
+    private ExportResult export(Path file, ExportWriter.Format format, ExportFilter filter, boolean bookings) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ExportWriter out = new ExportWriter(channel, format);
+            long rows = bookings ? bookingDAO.exportBookings(filter, out) : paymentDAO.exportPayments(filter, out);
+            if (rows < 0) {
+                return null;
+            }
+            return new ExportResult(rows, out.getBytesWritten(), System.nanoTime() - start);
+
+        } catch (IOException e) {
+            System.err.println("Error writing export file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3 || !("bookings".equals(args[0]) || "payments".equals(args[0]))) {
+            System.err.println("Usage: java service.ExportService bookings|payments csv|ndjson FILE " +
+                               "[event=ID] [from=yyyy-mm-dd] [to=yyyy-mm-dd] [status=STATUS]");
+            System.exit(1);
+        }
+        ExportWriter.Format format = ExportWriter.Format.valueOf(args[1].toUpperCase());
+        ExportFilter filter = new ExportFilter();
+        for (int i = 3; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            switch (option[0]) {
+                case "event":  filter.setEventId(Integer.valueOf(option[1])); break;
+                case "from":   filter.setFromDate(option[1]); break;
+                case "to":     filter.setToDate(option[1]); break;
+                case "status": filter.setStatus(option[1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        ExportService service = new ExportService();
+        Path file = Paths.get(args[2]);
+        ExportResult result = "payments".equals(args[0])
+                ? service.exportPayments(file, format, filter)
+                : service.exportBookings(file, format, filter);
+        if (result == null) {
+            System.exit(1);
+        }
+        System.out.println("Exported " + args[0] + " to " + file + ": " + result);
+    }
+}
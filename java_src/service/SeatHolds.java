@@ -0,0 +1,167 @@
+package service;
+
+import dao.BookingDAO;
+import utils.TimingWheel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seat Holds
+ * Expiry timers for pending bookings. EventService.holdTickets takes the
+ * tickets and writes a pending booking, then registers the hold here;
+ * confirming or releasing the booking cancels the timer. A hold that is
+ * still pending when its timer fires is cancelled and its tickets go back
+ * to the event, in the database and in TicketInventory.
+ *
+ * Timers live in a TimingWheel, so holding and confirming are O(1) with
+ * millions of holds outstanding. Holds expiring on the same tick are
+ * released together, at most hold.releaseBatchSize per transaction, on a
+ * separate release thread so database latency never delays the wheel; a
+ * batch that fails is retried after hold.retryDelayMs. EventService
+ * creates the holds at startup, when every pending booking in the
+ * database gets a timer for the rest of its hold, so holds taken before a
+ * restart still expire.
+ *
+ * Settings (system properties):
+ *   hold.ttlSeconds         How long a hold lasts (default 600)
+ *   hold.tickMs             Expiry timer resolution (default 100)
+ *   hold.wheelSize          Timer wheel buckets (default 8192)
+ *   hold.releaseBatchSize   Holds released per transaction (default 500)
+ *   hold.retryDelayMs       Delay before retrying a failed release (default 5000)
+ */
+public class SeatHolds {
+
+    private static final long TTL_SECONDS = Long.getLong("hold.ttlSeconds", 600);
+    private static final long TICK_MS = Long.getLong("hold.tickMs", 100);
+    private static final int WHEEL_SIZE = Integer.getInteger("hold.wheelSize", 8192);
+    private static final int RELEASE_BATCH_SIZE = Integer.getInteger("hold.releaseBatchSize", 500);
+    private static final long RETRY_DELAY_MS = Long.getLong("hold.retryDelayMs", 5000);
+
+    private static volatile SeatHolds instance = null;
+
+    private final BookingDAO bookingDAO;
+    private final TicketInventory inventory;
+    private final TimingWheel<Integer> wheel;
+    private final ExecutorService releaser;
+
+    // Booking ID -> its expiry timer
+    private final ConcurrentHashMap<Integer, TimingWheel<Integer>.Timeout> timers = new ConcurrentHashMap<>();
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder ticketsReleased = new LongAdder();
+    private final LongAdder failedReleases = new LongAdder();
+
+    /**
+     * Get the shared hold timers, re-arming pending bookings on first use
+     * @return SeatHolds
+     */
+    public static SeatHolds getInstance() {
+        SeatHolds current = instance;
+        if (current == null) {
+            synchronized (SeatHolds.class) {
+                current = instance;
+                if (current == null) {
+                    current = new SeatHolds(new BookingDAO(), TicketInventory.getInstance());
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private SeatHolds(BookingDAO bookingDAO, TicketInventory inventory) {
+        this.bookingDAO = bookingDAO;
+        this.inventory = inventory;
+        this.releaser = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-release");
+            t.setDaemon(true);
+            return t;
+        });
+        this.wheel = new TimingWheel<>("seat-hold-expiry", TICK_MS, TimeUnit.MILLISECONDS, WHEEL_SIZE,
+                bookingIds -> releaser.execute(() -> expire(bookingIds)));
+
+        Map<Integer, Long> pending = bookingDAO.getPendingBookingAges();
+        for (Map.Entry<Integer, Long> entry : pending.entrySet()) {
+            arm(entry.getKey(), TimeUnit.SECONDS.toMillis(TTL_SECONDS - entry.getValue()));
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("✓ Re-armed " + pending.size() + " seat holds");
+        }
+    }
+
+    /**
+     * Start the expiry timer of a new pending booking
+     * @param bookingId Booking ID
+     */
+    public void hold(int bookingId) {
+        arm(bookingId, TimeUnit.SECONDS.toMillis(TTL_SECONDS));
+    }
+
+    /**
+     * Stop the expiry timer of a booking that was confirmed or cancelled
+     * @param bookingId Booking ID
+     * @return true if a timer was pending
+     */
+    public boolean cancel(int bookingId) {
+        TimingWheel<Integer>.Timeout timer = timers.remove(bookingId);
+        return timer != null && timer.cancel();
+    }
+
+    private void arm(int bookingId, long delayMs) {
+        // Scheduled inside compute, so the timer is registered before expire() can look for it
+        timers.compute(bookingId, (id, previous) -> {
+            if (previous != null) {
+                previous.cancel();
+            }
+            return wheel.schedule(id, delayMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Release the holds that expired on one tick, in batches, on the release thread
+     */
+    private void expire(List<Integer> bookingIds) {
+        for (int from = 0; from < bookingIds.size(); from += RELEASE_BATCH_SIZE) {
+            List<Integer> batch = bookingIds.subList(from, Math.min(bookingIds.size(), from + RELEASE_BATCH_SIZE));
+            for (Integer bookingId : batch) {
+                timers.remove(bookingId);
+            }
+
+            // Bookings confirmed or cancelled in the meantime are skipped by the DAO
+            Map<Integer, Integer> released = bookingDAO.expirePendingBookings(batch);
+            if (released == null) {
+                failedReleases.add(batch.size());
+                for (Integer bookingId : batch) {
+                    arm(bookingId, RETRY_DELAY_MS);
+                }
+                continue;
+            }
+            for (Map.Entry<Integer, Integer> entry : released.entrySet()) {
+                inventory.release(entry.getKey(), entry.getValue());
+                ticketsReleased.add(entry.getValue());
+                WaitlistService.getInstance().ticketsReleased(entry.getKey());
+            }
+            expired.add(batch.size());
+        }
+    }
+
+    public int getOutstandingHolds() {
+        return wheel.size();
+    }
+
+    public long getHoldTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SeatHolds[outstanding=%d, expired=%d, ticketsReleased=%d, failedReleases=%d, ttl=%ds]",
+                getOutstandingHolds(), expired.sum(), ticketsReleased.sum(), failedReleases.sum(), TTL_SECONDS);
+    }
+}
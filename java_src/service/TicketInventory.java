@@ -0,0 +1,254 @@
+package service;
+
+import dao.EventDAO;
+import model.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticket Inventory
+ * Holds tickets_available for every active event as an in-memory counter.
+ * Reservations are a single CAS on the event's counter, so concurrent
+ * bookings never drive it below zero. Sold tickets are written back to
+ * the events table in batches by a background flusher.
+ *
+ * The counters are authoritative for this process, so only one application
+ * instance should take bookings against a given database. EventDAO tells
+ * the shared inventory about event writes: a cancelled or deactivated
+ * event is retired, and a capacity change moves the counter by the same
+ * amount. Events found unknown or not active are remembered for
+ * inventory.unbookableTtlMs so repeated attempts do not reach the DB.
+ */
+public class TicketInventory {
+
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("inventory.flushIntervalMs", 200);
+    private static final long UNBOOKABLE_TTL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("inventory.unbookableTtlMs", 5000));
+    private static final int MAX_UNBOOKABLE = 10_000;
+
+    private static volatile TicketInventory instance = null;
+
+    private final EventDAO eventDAO;
+
+    // Event ID -> tickets available
+    private final ConcurrentHashMap<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    // Event ID -> tickets sold but not yet written to the events table
+    private final ConcurrentHashMap<Integer, AtomicInteger> pendingDecrements = new ConcurrentHashMap<>();
+
+    // Event ID -> System.nanoTime() until which the event is known to be unknown or not active
+    private final ConcurrentHashMap<Integer, Long> unbookable = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Get the shared inventory, loading it from the database on first use
+     * @return TicketInventory
+     */
+    public static TicketInventory getInstance() {
+        TicketInventory current = instance;
+        if (current == null) {
+            synchronized (TicketInventory.class) {
+                current = instance;
+                if (current == null) {
+                    current = new TicketInventory(new EventDAO(), FLUSH_INTERVAL_MS);
+                    final TicketInventory created = current;
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::shutdown, "inventory-shutdown"));
+                    EventDAO.setInventoryListener(created::eventChanged);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public TicketInventory(EventDAO eventDAO, long flushIntervalMs) {
+        this.eventDAO = eventDAO;
+        reconcile();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load the counters of every active event from the database.
+     * Called once at startup, before any reservation is taken.
+     */
+    private void reconcile() {
+        Map<Integer, Integer> snapshot = eventDAO.getActiveTicketAvailability();
+        for (Map.Entry<Integer, Integer> entry : snapshot.entrySet()) {
+            available.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+        }
+        System.out.println("✓ Ticket inventory loaded for " + snapshot.size() + " active events");
+    }
+
+    /**
+     * Get the counter of an event, loading it from the database if the
+     * event was created after startup
+     * @return counter, or null if the event does not exist or is not active
+     */
+    private AtomicInteger counter(int eventId) {
+        AtomicInteger counter = available.get(eventId);
+        if (counter != null) {
+            return counter;
+        }
+        Long until = unbookable.get(eventId);
+        if (until != null) {
+            if (until - System.nanoTime() > 0) {
+                return null;
+            }
+            unbookable.remove(eventId, until);
+        }
+        Event event = eventDAO.getEventById(eventId);
+        if (event == null || !"active".equalsIgnoreCase(event.getStatus())) {
+            markUnbookable(eventId);
+            return null;
+        }
+        return available.computeIfAbsent(eventId, id -> new AtomicInteger(event.getTicketsAvailable()));
+    }
+
+    private void markUnbookable(int eventId) {
+        // Unknown IDs come from callers, so the map is bounded
+        if (unbookable.size() >= MAX_UNBOOKABLE) {
+            unbookable.clear();
+        }
+        unbookable.put(eventId, System.nanoTime() + UNBOOKABLE_TTL_NANOS);
+    }
+
+    /**
+     * Reserve tickets for an event
+     * @param eventId Event ID
+     * @param quantity Number of tickets
+     * @return true if the tickets were reserved, false if not enough are left
+     */
+    public boolean tryReserve(int eventId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        AtomicInteger counter = counter(eventId);
+        if (counter == null) {
+            return false;
+        }
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give reserved tickets back to an event
+     * @param eventId Event ID
+     * @param quantity Number of tickets
+     */
+    public void release(int eventId, int quantity) {
+        AtomicInteger counter = available.get(eventId);
+        if (counter != null && quantity > 0) {
+            counter.addAndGet(quantity);
+        }
+    }
+
+    /**
+     * Mark reserved tickets as sold so the flusher writes them to the database
+     * @param eventId Event ID
+     * @param quantity Number of tickets
+     */
+    public void commitReservation(int eventId, int quantity) {
+        pendingDecrements.computeIfAbsent(eventId, id -> new AtomicInteger()).addAndGet(quantity);
+    }
+
+    /**
+     * Get tickets available for an event
+     * @param eventId Event ID
+     * @return Tickets available, or -1 if the event is unknown or not active
+     */
+    public int getAvailable(int eventId) {
+        AtomicInteger counter = counter(eventId);
+        return counter != null ? counter.get() : -1;
+    }
+
+    /**
+     * Check whether an event is active and has enough tickets left
+     * @param eventId Event ID
+     * @param quantity Number of tickets
+     * @return true if the tickets can currently be reserved
+     */
+    public boolean hasAvailable(int eventId, int quantity) {
+        return quantity > 0 && getAvailable(eventId) >= quantity;
+    }
+
+    /**
+     * Stop tracking an event that is no longer bookable (e.g. cancelled)
+     * @param eventId Event ID
+     */
+    public void retire(int eventId) {
+        markUnbookable(eventId);
+        flush();
+        available.remove(eventId);
+    }
+
+    /**
+     * Follow a committed event write (see EventDAO.InventoryListener)
+     * @param eventId Event ID
+     * @param bookable Whether the event is active after the write
+     * @param capacityDelta Change in total_tickets
+     */
+    public void eventChanged(int eventId, boolean bookable, int capacityDelta) {
+        if (!bookable) {
+            retire(eventId);
+            return;
+        }
+        unbookable.remove(eventId);
+        AtomicInteger counter = available.get(eventId);
+        if (counter != null && capacityDelta != 0) {
+            counter.addAndGet(capacityDelta);
+        }
+    }
+
+    /**
+     * Write pending decrements to the events table in one batch
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Integer, Integer> batch = new HashMap<>();
+            for (Map.Entry<Integer, AtomicInteger> entry : pendingDecrements.entrySet()) {
+                int quantity = entry.getValue().getAndSet(0);
+                if (quantity != 0) {
+                    batch.put(entry.getKey(), quantity);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!eventDAO.applyTicketDecrements(batch)) {
+                // Keep the decrements for the next attempt
+                for (Map.Entry<Integer, Integer> entry : batch.entrySet()) {
+                    commitReservation(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the flusher and write out anything still pending
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+}
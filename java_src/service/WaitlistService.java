@@ -0,0 +1,398 @@
+package service;
+
+import dao.EventDAO;
+import dao.WaitlistDAO;
+import model.Booking;
+import model.Event;
+import model.WaitlistEntry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Waitlist Service
+ * Users who find an event sold out can join its waitlist. When tickets
+ * come back (a cancelled booking, a released or expired seat hold) the
+ * waiters at the front are promoted into seat holds: pending bookings
+ * they confirm like any other hold, or lose after hold.ttlSeconds, which
+ * in turn promotes the next waiters.
+ *
+ * Each event's queue is served highest priority tier first and FIFO
+ * within a tier. The queue is strict: a waiter whose request does not
+ * fit the tickets available holds up those behind it rather than being
+ * overtaken. A user waits at most once per event, and only while the
+ * event cannot fill their request. The queues live in memory and are
+ * loaded from the waitlist table on first use; the table is the record.
+ *
+ * The waitlist is best-effort: released tickets go straight back on
+ * general sale and are not set aside for waiters, so an ordinary booking
+ * that arrives before the promoter runs can take them. Waiters are
+ * promoted into whatever is still free when it does.
+ *
+ * Releases only mark the event; one background thread promotes marked
+ * events, so a mass cancellation of thousands of bookings turns into a
+ * few promotion transactions of up to waitlist.promoteBatchSize waiters
+ * each instead of one per cancelled booking. A failed promotion puts the
+ * waiters back at the front and is retried after waitlist.retryDelayMs.
+ *
+ * Settings (system properties):
+ *   waitlist.promoteBatchSize   Waiters promoted per transaction (default 200)
+ *   waitlist.retryDelayMs       Delay before retrying a failed promotion (default 5000)
+ */
+public class WaitlistService {
+
+    private static final int PROMOTE_BATCH_SIZE = Integer.getInteger("waitlist.promoteBatchSize", 200);
+    private static final long RETRY_DELAY_MS = Long.getLong("waitlist.retryDelayMs", 5000);
+
+    private static volatile WaitlistService instance = null;
+
+    /**
+     * One event's waiters: a FIFO deque per priority tier, highest tier first.
+     * Guarded by itself. Entries that leave are only marked cancelled and
+     * skipped when they reach the front, so leaving is O(1).
+     */
+    private static final class EventQueue {
+        final TreeMap<Integer, ArrayDeque<WaitlistEntry>> tiers = new TreeMap<>(Collections.reverseOrder());
+        // Users waiting or joining, so a user waits at most once per event
+        final Set<Integer> users = new HashSet<>();
+        int waiting;
+
+        void add(WaitlistEntry entry) {
+            tiers.computeIfAbsent(entry.getPriority(), p -> new ArrayDeque<>()).addLast(entry);
+            users.add(entry.getUserId());
+            waiting++;
+        }
+
+        WaitlistEntry peek() {
+            for (Iterator<ArrayDeque<WaitlistEntry>> it = tiers.values().iterator(); it.hasNext(); ) {
+                ArrayDeque<WaitlistEntry> tier = it.next();
+                while (!tier.isEmpty() && !"waiting".equals(tier.peekFirst().getStatus())) {
+                    tier.pollFirst();
+                }
+                if (!tier.isEmpty()) {
+                    return tier.peekFirst();
+                }
+                it.remove();
+            }
+            return null;
+        }
+
+        WaitlistEntry poll() {
+            WaitlistEntry head = peek();
+            if (head != null) {
+                tiers.get(head.getPriority()).pollFirst();
+                // Marked now so a concurrent leave() cannot cancel a waiter mid-promotion
+                head.setStatus("promoted");
+                users.remove(head.getUserId());
+                waiting--;
+            }
+            return head;
+        }
+
+        // Put a failed batch back in front, keeping its order
+        void requeue(List<WaitlistEntry> entries) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                WaitlistEntry entry = entries.get(i);
+                entry.setStatus("waiting");
+                tiers.computeIfAbsent(entry.getPriority(), p -> new ArrayDeque<>()).addFirst(entry);
+                users.add(entry.getUserId());
+                waiting++;
+            }
+        }
+    }
+
+    private final WaitlistDAO waitlistDAO = new WaitlistDAO();
+    private final EventDAO eventDAO;
+    private final TicketInventory inventory;
+
+    private final ConcurrentHashMap<Integer, EventQueue> queues = new ConcurrentHashMap<>();
+    // Waitlist ID -> entry, for entries still waiting
+    private final ConcurrentHashMap<Integer, WaitlistEntry> waiting = new ConcurrentHashMap<>();
+
+    // Events that got tickets back since the promoter last looked at them
+    private final Set<Integer> released = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService promoter;
+
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder failedPromotions = new LongAdder();
+
+    /**
+     * Get the shared waitlist, loading waiting entries on first use
+     * @return WaitlistService
+     */
+    public static WaitlistService getInstance() {
+        WaitlistService current = instance;
+        if (current == null) {
+            synchronized (WaitlistService.class) {
+                current = instance;
+                if (current == null) {
+                    current = new WaitlistService();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private WaitlistService() {
+        this.eventDAO = new EventDAO();
+        this.inventory = TicketInventory.getInstance();
+        this.promoter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-promoter");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<WaitlistEntry> entries = waitlistDAO.getWaitingEntries();
+        for (WaitlistEntry entry : entries) {
+            enqueue(entry);
+        }
+        // Tickets may have come back while nobody was watching
+        for (Integer eventId : queues.keySet()) {
+            ticketsReleased(eventId);
+        }
+        if (!entries.isEmpty()) {
+            System.out.println("✓ Loaded " + entries.size() + " waitlist entries");
+        }
+    }
+
+    /**
+     * Put a user on an event's waitlist
+     * @param entry Waitlist entry; its waitlistId is set on success
+     * @return true if the user is now waiting; false if the event is not bookable,
+     *         still has the tickets requested, the user is already waiting, or on error
+     */
+    public boolean join(WaitlistEntry entry) {
+        int available = inventory.getAvailable(entry.getEventId());
+        if (entry.getTicketsRequested() <= 0 || available < 0 || available >= entry.getTicketsRequested()) {
+            return false;
+        }
+        EventQueue queue = queues.computeIfAbsent(entry.getEventId(), id -> new EventQueue());
+        synchronized (queue) {
+            if (!queue.users.add(entry.getUserId())) {
+                return false;
+            }
+        }
+        if (!waitlistDAO.joinWaitlist(entry)) {
+            synchronized (queue) {
+                queue.users.remove(entry.getUserId());
+            }
+            return false;
+        }
+        enqueue(entry);
+        // Tickets may have come back between the sold-out check and the join
+        if (inventory.hasAvailable(entry.getEventId(), 1)) {
+            ticketsReleased(entry.getEventId());
+        }
+        return true;
+    }
+
+    /**
+     * Take a user off a waitlist
+     * @param waitlistId Waitlist entry ID
+     * @return true if the entry was waiting, false if unknown or already promoted
+     */
+    public boolean leave(int waitlistId) {
+        WaitlistEntry entry = waiting.get(waitlistId);
+        if (entry == null) {
+            return false;
+        }
+        // Gone if the event was cancelled meanwhile, which cancelled the entry too
+        EventQueue queue = queues.get(entry.getEventId());
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            if (!"waiting".equals(entry.getStatus())) {
+                return false;
+            }
+            entry.setStatus("cancelled");
+            queue.users.remove(entry.getUserId());
+            queue.waiting--;
+        }
+        waiting.remove(waitlistId);
+        return waitlistDAO.leaveWaitlist(waitlistId);
+    }
+
+    /**
+     * Drop the waitlist of a cancelled event
+     * @param eventId Event ID
+     * @return Number of entries cancelled, or -1 on error
+     */
+    public int eventCancelled(int eventId) {
+        EventQueue queue = queues.remove(eventId);
+        if (queue != null) {
+            synchronized (queue) {
+                WaitlistEntry entry;
+                while ((entry = queue.poll()) != null) {
+                    entry.setStatus("cancelled");
+                    waiting.remove(entry.getWaitlistId());
+                }
+            }
+        }
+        return waitlistDAO.cancelEventWaitlist(eventId);
+    }
+
+    /**
+     * Waiters for an event
+     * @param eventId Event ID
+     * @return Number of entries still waiting
+     */
+    public int getWaitingCount(int eventId) {
+        EventQueue queue = queues.get(eventId);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.waiting;
+        }
+    }
+
+    private void enqueue(WaitlistEntry entry) {
+        EventQueue queue = queues.computeIfAbsent(entry.getEventId(), id -> new EventQueue());
+        synchronized (queue) {
+            queue.add(entry);
+        }
+        waiting.put(entry.getWaitlistId(), entry);
+    }
+
+    /**
+     * Note that tickets went back on sale; waiters are promoted in the background
+     * @param eventId Event ID
+     */
+    public void ticketsReleased(int eventId) {
+        if (!queues.containsKey(eventId)) {
+            return;
+        }
+        released.add(eventId);
+        if (drainScheduled.compareAndSet(false, true)) {
+            promoter.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Cleared first, so a release arriving mid-drain schedules another pass
+        drainScheduled.set(false);
+        for (Iterator<Integer> it = released.iterator(); it.hasNext(); ) {
+            Integer eventId = it.next();
+            it.remove();
+            try {
+                promote(eventId);
+            } catch (RuntimeException e) {
+                System.err.println("Error promoting waitlist of event " + eventId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Promote waiters from the front of an event's queue while tickets last
+     */
+    private void promote(int eventId) {
+        EventQueue queue = queues.get(eventId);
+        Event event = eventDAO.getEventById(eventId);
+        if (queue == null || event == null || !"active".equalsIgnoreCase(event.getStatus())) {
+            return;
+        }
+
+        while (true) {
+            List<WaitlistEntry> batch = new ArrayList<>();
+            int tickets = 0;
+            while (batch.size() < PROMOTE_BATCH_SIZE) {
+                WaitlistEntry head;
+                synchronized (queue) {
+                    head = queue.peek();
+                }
+                // Reserved outside the queue lock: the inventory may load the event from the DB
+                if (head == null || !inventory.tryReserve(eventId, head.getTicketsRequested())) {
+                    break;
+                }
+                boolean taken;
+                synchronized (queue) {
+                    taken = queue.peek() == head;
+                    if (taken) {
+                        queue.poll();
+                    }
+                }
+                if (!taken) {
+                    // The head left while we reserved; give its tickets back and look again
+                    inventory.release(eventId, head.getTicketsRequested());
+                    continue;
+                }
+                batch.add(head);
+                tickets += head.getTicketsRequested();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<Booking> bookings = new ArrayList<>(batch.size());
+            for (WaitlistEntry entry : batch) {
+                Booking booking = new Booking(entry.getUserId(), entry.getUserName(), eventId, event.getEventName(),
+                        entry.getTicketsRequested(), entry.getTicketsRequested() * event.getTicketPrice());
+                booking.setStatus("pending");
+                booking.setPaymentStatus("unpaid");
+                bookings.add(booking);
+            }
+
+            if (!waitlistDAO.promoteEntries(eventId, batch, bookings)) {
+                inventory.release(eventId, tickets);
+                // Entries the table no longer has as waiting are dropped, not retried forever
+                List<WaitlistEntry> retry = new ArrayList<>(batch.size());
+                for (WaitlistEntry entry : batch) {
+                    if ("cancelled".equals(entry.getStatus())) {
+                        waiting.remove(entry.getWaitlistId());
+                    } else {
+                        retry.add(entry);
+                    }
+                }
+                synchronized (queue) {
+                    queue.requeue(retry);
+                }
+                failedPromotions.increment();
+                promoter.schedule(() -> ticketsReleased(eventId), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            SeatHolds holds = SeatHolds.getInstance();
+            for (int i = 0; i < batch.size(); i++) {
+                waiting.remove(batch.get(i).getWaitlistId());
+                holds.hold(bookings.get(i).getBookingId());
+            }
+            promoted.add(batch.size());
+        }
+    }
+
+    /**
+     * Waiters per event, for the admin dashboard
+     */
+    public Map<Integer, Integer> getWaitingCounts() {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (Integer eventId : queues.keySet()) {
+            int count = getWaitingCount(eventId);
+            if (count > 0) {
+                counts.put(eventId, count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WaitlistService[waiting=%d, promoted=%d, failedPromotions=%d]",
+                waiting.size(), promoted.sum(), failedPromotions.sum());
+    }
+}
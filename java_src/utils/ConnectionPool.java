@@ -0,0 +1,401 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection Pool
+ * Bounded pool of physical JDBC connections. Callers borrow a connection
+ * per operation and return it by calling close() on the handle they got.
+ * Each connection keeps its own cache of prepared statements, so DAOs that
+ * prepare the same SQL on every call reuse the statement across borrows.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final PoolConfig config;
+
+    // Caps the number of connections handed out at once
+    private final Semaphore permits;
+
+    // Idle connections, most recently returned first
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+
+    // Borrowed connections, tracked for leak detection
+    private final Map<PooledEntry, Boolean> active = new ConcurrentHashMap<>();
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password, PoolConfig config) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        config.validate();
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        // Pre-fill the pool up to the minimum size
+        for (int i = 0; i < config.getMinSize(); i++) {
+            idle.offerLast(newEntry());
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getHousekeepingIntervalMs();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool
+     * @return Connection handle; close() returns it to the pool
+     * @throws SQLException if the pool is exhausted past the borrow timeout or the DB is unreachable
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        // A caller's deadline can only shorten the configured borrow timeout
+        long timeoutMs = Math.min(config.getBorrowTimeoutMs(), Deadline.remainingMillis());
+        if (timeoutMs <= 0) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTimeoutException("Deadline expired before a connection was borrowed");
+        }
+
+        long start = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection");
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + timeoutMs +
+                                          " ms waiting for a connection (active=" + active.size() + ")");
+        }
+
+        try {
+            PooledEntry entry = takeValidEntry();
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowedBy = config.isLeakTracing() && config.getLeakDetectionThresholdMs() > 0 ? new Throwable("Connection borrowed here") : null;
+            entry.leakReported = false;
+            active.put(entry, Boolean.TRUE);
+            borrowCount.incrementAndGet();
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take an idle connection that passes validation, or open a new one
+     */
+    private PooledEntry takeValidEntry() throws SQLException {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isUsable(entry)) {
+                return entry;
+            }
+            discard(entry);
+        }
+        return newEntry();
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (!config.isValidateOnBorrow()) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry newEntry() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    private void discard(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool
+     */
+    private void giveBack(PooledEntry entry) {
+        if (active.remove(entry) == null) {
+            return;
+        }
+        if (entry.statements != null) {
+            entry.statements.releaseAll();
+        }
+        try {
+            boolean broken = entry.physical.isClosed();
+            if (!broken && !entry.physical.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (broken || closed) {
+                discard(entry);
+            } else {
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            }
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Periodic task: evict idle connections, top up to the minimum size and report leaks
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        // Oldest idle connections sit at the tail of the deque
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > config.getMinSize()) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastReturnedAt >= config.getIdleTimeoutMs() && idle.remove(entry)) {
+                discard(entry);
+                evictedCount.incrementAndGet();
+            }
+        }
+
+        while (totalConnections.get() < config.getMinSize()) {
+            try {
+                idle.offerLast(newEntry());
+            } catch (SQLException e) {
+                System.err.println("Error refilling connection pool: " + e.getMessage());
+                break;
+            }
+        }
+
+        long threshold = config.getLeakDetectionThresholdMs();
+        if (threshold > 0) {
+            for (PooledEntry entry : active.keySet()) {
+                if (!entry.leakReported && now - entry.borrowedAt >= threshold) {
+                    entry.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: held for " + (now - entry.borrowedAt) + " ms");
+                    if (entry.borrowedBy != null) {
+                        entry.borrowedBy.printStackTrace();
+                    } else {
+                        System.err.println("Run with -Ddb.pool.leakTracing=true to see where it was borrowed");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the pool and every idle connection. Borrowed connections are
+     * closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Snapshot of pool metrics
+     * @return PoolStats
+     */
+    public PoolStats getStats() {
+        return new PoolStats(
+            active.size(),
+            idle.size(),
+            totalConnections.get(),
+            waitingThreads.get(),
+            borrowCount.get(),
+            timeoutCount.get(),
+            TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()),
+            TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+            createdCount.get(),
+            evictedCount.get(),
+            leakCount.get(),
+            statementCacheHits.sum(),
+            statementCacheMisses.sum()
+        );
+    }
+
+    /**
+     * A physical connection plus its pool bookkeeping
+     */
+    private final class PooledEntry {
+
+        final Connection physical;
+        final StatementCache statements; // null when statement caching is off
+        volatile long lastReturnedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowedBy;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = config.getStatementCacheSize() > 0
+                    ? new StatementCache(physical, config.getStatementCacheSize(), statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        /**
+         * Create a fresh handle for one borrow; closing it twice is harmless
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new HandleInvocationHandler(this));
+        }
+    }
+
+    /**
+     * Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+     * are cached; variants with cursor options are prepared fresh each time
+     */
+    private static boolean isCacheable(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1 || (types.length == 2 && types[1] == int.class);
+    }
+
+    /**
+     * Routes calls on a borrowed handle to the physical connection, except
+     * close() which returns the connection to the pool and prepareStatement()
+     * which goes through the connection's statement cache
+     */
+    private final class HandleInvocationHandler implements InvocationHandler {
+
+        private final PooledEntry entry;
+        private volatile boolean released = false;
+
+        HandleInvocationHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!released) {
+                    released = true;
+                    giveBack(entry);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return released || entry.physical.isClosed();
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "PooledConnection[" + entry.physical + "]";
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(name)) {
+                PreparedStatement statement;
+                if (entry.statements != null && isCacheable(method)) {
+                    int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                    statement = entry.statements.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                } else {
+                    statement = (PreparedStatement) invokePhysical(method, args);
+                }
+                applyDeadline(statement);
+                return statement;
+            }
+            return invokePhysical(method, args);
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Queries issued under a caller deadline are cancelled by the driver once it passes
+        private void applyDeadline(PreparedStatement statement) throws SQLException {
+            if (Deadline.isSet()) {
+                long remainingMs = Deadline.remainingMillis();
+                statement.setQueryTimeout((int) Math.max(1, (remainingMs + 999) / 1000));
+            }
+        }
+    }
+}
@@ -1,74 +1,109 @@
 package utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Database Connection Utility
- * Handles MySQL database connectivity using JDBC
+ * Handles MySQL database connectivity using JDBC.
+ * Connections come from a shared ConnectionPool; callers must close()
+ * every connection they get so it goes back to the pool.
  */
 public class DBConnection {
-    
+
     // Database credentials
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/event_management";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "root";
+    private static final String DB_URL = System.getProperty("db.url", "jdbc:mysql://localhost:3306/event_management");
+    private static final String DB_USER = System.getProperty("db.user", "root");
+    private static final String DB_PASSWORD = System.getProperty("db.password", "root");
     private static final String DB_DRIVER = "com.mysql.cj.jdbc.Driver";
-    
-    // Static connection instance
-    private static Connection connection = null;
-    
-    /**
-     * Establish database connection
-     * @return Connection object
-     * @throws SQLException if connection fails
-     */
-    public static Connection getConnection() throws SQLException {
+
+    // Shared pool, created on first use
+    private static volatile ConnectionPool pool = null;
+
+    static {
+        // Load JDBC driver once
         try {
-            // Load JDBC driver
             Class.forName(DB_DRIVER);
-            
-            // Establish connection
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                System.out.println("✓ Database connection established successfully!");
-            }
-            return connection;
-            
         } catch (ClassNotFoundException e) {
             System.err.println("✗ MySQL JDBC Driver not found!");
-            throw new SQLException("Driver not found: " + e.getMessage());
-        } catch (SQLException e) {
-            System.err.println("✗ Database connection failed!");
-            System.err.println("Error: " + e.getMessage());
-            throw e;
         }
     }
-    
+
     /**
-     * Close database connection
+     * Borrow a connection from the pool
+     * @return Connection object, traced by QueryTracer unless db.trace.enabled=false;
+     *         close it to return it to the pool
+     * @throws SQLException if connection fails
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("✓ Database connection closed!");
+    public static Connection getConnection() throws SQLException {
+        Connection conn = getPool().borrow();
+        return QueryTracer.isEnabled() ? QueryTracer.wrap(conn) : conn;
+    }
+
+    /**
+     * Get the shared connection pool, creating it if needed
+     * @return ConnectionPool
+     * @throws SQLException if the pool cannot be created
+     */
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null || current.isClosed()) {
+            synchronized (DBConnection.class) {
+                current = pool;
+                if (current == null || current.isClosed()) {
+                    try {
+                        PoolConfig config = PoolConfig.fromSystemProperties();
+                        current = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, config);
+                        pool = current;
+                        System.out.println("✓ Database connection pool established successfully! " + config);
+                    } catch (SQLException e) {
+                        System.err.println("✗ Database connection failed!");
+                        System.err.println("Error: " + e.getMessage());
+                        throw e;
+                    }
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("✗ Error closing connection: " + e.getMessage());
         }
+        return current;
     }
-    
+
+    /**
+     * Open a separate pool against the configured database, e.g. to compare
+     * pool settings side by side. The caller must close it.
+     * @param config Pool settings
+     * @return New ConnectionPool
+     * @throws SQLException if the pool cannot be created
+     */
+    public static ConnectionPool createPool(PoolConfig config) throws SQLException {
+        return new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, config);
+    }
+
+    /**
+     * Get connection pool metrics
+     * @return PoolStats snapshot, or null if the pool has not been created
+     */
+    public static PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    /**
+     * Close the connection pool and all idle connections
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null && !pool.isClosed()) {
+            pool.close();
+            System.out.println("✓ Database connection pool closed!");
+        }
+        pool = null;
+    }
+
     /**
-     * Check if connection is active
+     * Check if the pool is up
      * @return true if connected, false otherwise
      */
     public static boolean isConnected() {
-        try {
-            return connection != null && !connection.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+        ConnectionPool current = pool;
+        return current != null && !current.isClosed();
     }
 }
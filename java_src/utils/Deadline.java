@@ -0,0 +1,58 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Deadline
+ * Per-thread deadline for the current call. ConnectionPool uses it to cap
+ * how long a borrow may wait and to set a query timeout on statements, so
+ * a caller's time budget reaches the JDBC layer without every DAO method
+ * taking a timeout parameter.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * Run a call with a deadline set on the current thread
+     * @param deadlineNanos Absolute deadline in System.nanoTime() terms
+     * @param call Work to run
+     * @return Result of the call
+     */
+    public static <T> T runWithin(long deadlineNanos, Supplier<T> call) {
+        Long previous = CURRENT.get();
+        CURRENT.set(previous != null ? Math.min(previous, deadlineNanos) : deadlineNanos);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Whether a deadline is set on the current thread
+     */
+    public static boolean isSet() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Time left before the current thread's deadline
+     * @return Remaining milliseconds (0 or less once expired), or Long.MAX_VALUE if no deadline is set
+     */
+    public static long remainingMillis() {
+        Long deadline = CURRENT.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+}
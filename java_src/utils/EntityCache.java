@@ -0,0 +1,279 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Entity Cache
+ * Bounded read-through cache for entities loaded by ID.
+ *
+ * Entries live in striped, access-ordered segments (LRU per segment) and
+ * expire after a fixed TTL. When a segment is full, a new key is only
+ * admitted if a TinyLFU frequency sketch says it is used more often than
+ * the LRU victim it would replace, so one-off lookups cannot flush out
+ * hot entities.
+ */
+public class EntityCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    // Every cache created, so stats can be listed per entity type
+    private static final List<EntityCache<?, ?>> REGISTRY = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        final int capacity;
+        // Bumped on every invalidation so in-flight loads do not re-insert stale values
+        long generation;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Create a cache sized from -Dcache.&lt;name&gt;.maxSize and -Dcache.&lt;name&gt;.ttlSeconds
+     */
+    public static <K, V> EntityCache<K, V> fromSystemProperties(String name, int defaultMaxSize, long defaultTtlSeconds) {
+        return new EntityCache<>(name,
+                Integer.getInteger("cache." + name + ".maxSize", defaultMaxSize),
+                Long.getLong("cache." + name + ".ttlSeconds", defaultTtlSeconds));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EntityCache(String name, int maxSize, long ttlSeconds) {
+        this.name = name;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+        this.sketch = new FrequencySketch(Math.max(maxSize, 16));
+        REGISTRY.add(this);
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Get a cached value, loading and caching it on a miss.
+     * Null results are returned but not cached.
+     * @param key Entity ID
+     * @param loader Loads the entity from the database
+     * @return Cached or freshly loaded value
+     */
+    public V get(K key, Function<K, V> loader) {
+        sketch.increment(key.hashCode());
+        Segment<K, V> segment = segmentFor(key);
+        long generation;
+        synchronized (segment) {
+            Entry<V> entry = segment.map.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                segment.map.remove(key);
+            }
+            generation = segment.generation;
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(segment, key, value, generation);
+        }
+        return value;
+    }
+
+    private void put(Segment<K, V> segment, K key, V value, long loadedAtGeneration) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos);
+        synchronized (segment) {
+            if (segment.generation != loadedAtGeneration) {
+                return;
+            }
+            if (segment.map.containsKey(key) || segment.map.size() < segment.capacity) {
+                segment.map.put(key, entry);
+                return;
+            }
+            // Segment is full: the LRU entry is the eviction candidate
+            Iterator<Map.Entry<K, Entry<V>>> it = segment.map.entrySet().iterator();
+            Map.Entry<K, Entry<V>> victim = it.next();
+            if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+                rejections.increment();
+                return;
+            }
+            it.remove();
+            evictions.increment();
+            segment.map.put(key, entry);
+        }
+    }
+
+    /**
+     * Drop a cached entity after it was written
+     * @param key Entity ID
+     */
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.map.remove(key);
+            segment.generation++;
+        }
+    }
+
+    /**
+     * Drop every cached entity
+     */
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+                segment.generation++;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Loads that were not cached because the admission filter preferred the current entry
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Get every cache created in this JVM
+     * @return List of caches
+     */
+    public static List<EntityCache<?, ?>> getRegisteredCaches() {
+        return REGISTRY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EntityCache[%s] size=%d hits=%d misses=%d hitRate=%.1f%% evictions=%d rejections=%d",
+                name, size(), getHits(), getMisses(), getHitRate() * 100, getEvictions(), getRejections());
+    }
+
+    /**
+     * Count-min sketch of recent access frequency with 4-bit saturating
+     * counters. All counters are halved periodically so old popularity
+     * fades. Updates are unsynchronized; an occasional lost increment only
+     * makes the estimate slightly less precise.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedSize) {
+            int width = Integer.highestOneBit(expectedSize * 2 - 1) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = expectedSize * 10;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= (h >>> 17);
+            return h & mask;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int i = index(hash, row);
+                if (table[row][i] < MAX_COUNT) {
+                    table[row][i]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
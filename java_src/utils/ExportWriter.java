@@ -0,0 +1,225 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Export Writer
+ * Streams result set rows to a channel as CSV or NDJSON. Rows are encoded
+ * straight into a fixed-size buffer that is drained to the channel when
+ * full, so memory use does not grow with the number of rows exported.
+ */
+public class ExportWriter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    private long rowsWritten;
+    private long bytesWritten;
+
+    public ExportWriter(WritableByteChannel channel, Format format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Write every remaining row of a result set, using its column labels
+     * as the CSV header or JSON keys
+     * @param rs Result set positioned before the first row
+     * @return Number of rows written
+     */
+    public long writeAll(ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        String[] labels = new String[columns];
+        boolean[] numeric = new boolean[columns];
+        for (int i = 0; i < columns; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+            numeric[i] = isNumeric(meta.getColumnType(i + 1));
+        }
+
+        if (format == Format.CSV) {
+            for (int i = 0; i < columns; i++) {
+                if (i > 0) {
+                    put(',');
+                }
+                putCsv(labels[i]);
+            }
+            put('\n');
+        }
+
+        long rows = 0;
+        while (rs.next()) {
+            if (format == Format.CSV) {
+                for (int i = 0; i < columns; i++) {
+                    if (i > 0) {
+                        put(',');
+                    }
+                    putCsv(rs.getString(i + 1));
+                }
+            } else {
+                put('{');
+                for (int i = 0; i < columns; i++) {
+                    if (i > 0) {
+                        put(',');
+                    }
+                    putJsonString(labels[i]);
+                    put(':');
+                    String value = rs.getString(i + 1);
+                    if (value == null) {
+                        put("null");
+                    } else if (numeric[i]) {
+                        put(value);
+                    } else {
+                        putJsonString(value);
+                    }
+                }
+                put('}');
+            }
+            put('\n');
+            rows++;
+        }
+        rowsWritten += rows;
+        return rows;
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break
+    private void putCsv(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            put(value);
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    private void putJsonString(String value) throws IOException {
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  put("\\\""); break;
+                case '\\': put("\\\\"); break;
+                case '\n': put("\\n"); break;
+                case '\r': put("\\r"); break;
+                case '\t': put("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        put("\\u00");
+                        put(HEX[c >> 4]);
+                        put(HEX[c & 0xF]);
+                    } else {
+                        put(c);
+                    }
+            }
+        }
+        put('"');
+    }
+
+    private void put(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        // A trailing high surrogate stays behind until its pair arrives
+        chars.compact();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Write out everything still buffered. The channel is left open.
+     */
+    public void finish() throws IOException {
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+        encoder.reset();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
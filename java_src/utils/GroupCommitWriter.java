@@ -0,0 +1,301 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group Commit Writer
+ * Collects single-row INSERTs from many threads and writes them with one
+ * executeBatch and one commit. A batch is flushed once it reaches
+ * maxBatchSize rows or its oldest row has waited lingerMs, whichever
+ * comes first. Each caller gets a future completed with its generated key.
+ *
+ * If a batch fails, its rows are retried one at a time so a single bad row
+ * (e.g. a duplicate key) only fails its own caller. A row the statement
+ * inserts nothing for (e.g. a guarded INSERT ... SELECT) fails its caller
+ * without failing the batch.
+ *
+ * With db.groupCommit=true it carries the plain single-row inserts:
+ * BookingDAO.createBooking (used by EventService.bookEvent only with
+ * -Dinventory.writeBehind=true) and PaymentDAO.recordPayment. By default
+ * bookEvent calls BookingDAO.createBookingWithTickets, which inserts the
+ * booking and decrements the event in its own transaction and does not
+ * go through group commit.
+ */
+public class GroupCommitWriter<T> {
+
+    /**
+     * Binds one row's values to the INSERT statement
+     */
+    public interface Binder<T> {
+        void bind(PreparedStatement pst, T item) throws SQLException;
+    }
+
+    private static final class Pending<T> {
+        final T item;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+
+    private final String name;
+    private final String sql;
+    private final Binder<T> binder;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long timeoutMs;
+
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Histogram flushSizes = new Histogram(" rows");
+    private final Histogram latencies = new Histogram("us");
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Whether DAOs should route their inserts through group commit (-Ddb.groupCommit=true)
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("db.groupCommit");
+    }
+
+    /**
+     * Create a writer sized from -Ddb.groupCommit.maxBatchSize, -Ddb.groupCommit.lingerMs
+     * and -Ddb.groupCommit.timeoutMs
+     */
+    public static <T> GroupCommitWriter<T> fromSystemProperties(String name, String sql, Binder<T> binder) {
+        return new GroupCommitWriter<>(name, sql, binder,
+                Integer.getInteger("db.groupCommit.maxBatchSize", 64),
+                Long.getLong("db.groupCommit.lingerMs", 5),
+                Long.getLong("db.groupCommit.timeoutMs", 10_000));
+    }
+
+    public GroupCommitWriter(String name, String sql, Binder<T> binder, int maxBatchSize, long lingerMs, long timeoutMs) {
+        this.name = name;
+        this.sql = sql;
+        this.binder = binder;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.timeoutMs = Math.max(1, timeoutMs);
+        this.worker = new Thread(this::run, "group-commit-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a row for the next batch
+     * @param item Row to insert
+     * @return Future completed with the generated key, or exceptionally on failure
+     */
+    public CompletableFuture<Integer> submit(T item) {
+        return enqueue(item).future;
+    }
+
+    private Pending<T> enqueue(T item) {
+        Pending<T> pending = new Pending<>(item);
+        if (running) {
+            queue.add(pending);
+            // close() may have run between the check and the add, and the worker may be gone;
+            // if the row can no longer be taken back, the worker or close() has it
+            if (running || !queue.remove(pending)) {
+                return pending;
+            }
+        }
+        pending.future.completeExceptionally(closed());
+        return pending;
+    }
+
+    /**
+     * Write one row and wait for its generated key. A row still queued after
+     * db.groupCommit.timeoutMs is taken back and fails; a row already in a
+     * batch waits for that batch, whose statement has the same timeout.
+     * @param item Row to insert
+     * @return Generated key
+     * @throws SQLException if the row was not inserted
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int write(T item) throws SQLException, InterruptedException {
+        Pending<T> pending = enqueue(item);
+        try {
+            try {
+                return pending.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(pending)) {
+                    throw new SQLTimeoutException("Group commit writer " + name + " did not take the row within " +
+                                                  timeoutMs + " ms");
+                }
+                return pending.future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (RuntimeException e) {
+                for (Pending<T> pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        flushSizes.record(batch.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pst = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pst.setQueryTimeout(queryTimeoutSeconds());
+                for (Pending<T> pending : batch) {
+                    binder.bind(pst, pending.item);
+                    pst.addBatch();
+                }
+                int[] counts = pst.executeBatch();
+
+                List<Integer> keys = new ArrayList<>(batch.size());
+                ResultSet rs = pst.getGeneratedKeys();
+                while (rs.next()) {
+                    keys.add(rs.getInt(1));
+                }
+                conn.commit();
+
+                // Keys are returned only for rows that were inserted
+                int nextKey = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (i < counts.length && counts[i] == 0) {
+                        notInserted(batch.get(i));
+                    } else {
+                        complete(batch.get(i), nextKey < keys.size() ? keys.get(nextKey++) : 0);
+                    }
+                }
+                return;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                System.err.println("Group commit batch failed for " + name + ", retrying rows individually: " + e.getMessage());
+            }
+            conn.setAutoCommit(true);
+            for (Pending<T> pending : batch) {
+                insertOne(conn, pending);
+            }
+
+        } catch (SQLException e) {
+            for (Pending<T> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void insertOne(Connection conn, Pending<T> pending) {
+        try (PreparedStatement pst = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pst.setQueryTimeout(queryTimeoutSeconds());
+            binder.bind(pst, pending.item);
+            if (pst.executeUpdate() == 0) {
+                notInserted(pending);
+                return;
+            }
+            ResultSet rs = pst.getGeneratedKeys();
+            complete(pending, rs.next() ? rs.getInt(1) : 0);
+        } catch (SQLException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private int queryTimeoutSeconds() {
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999));
+    }
+
+    private SQLException closed() {
+        return new SQLException("Group commit writer " + name + " is closed");
+    }
+
+    private void notInserted(Pending<T> pending) {
+        pending.future.completeExceptionally(new SQLException("Row not inserted by " + name));
+    }
+
+    private void complete(Pending<T> pending, int key) {
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - pending.enqueuedAt));
+        pending.future.complete(key);
+    }
+
+    /**
+     * Rows per flushed batch
+     */
+    public Histogram getFlushSizes() {
+        return flushSizes;
+    }
+
+    /**
+     * Time from submit() to commit, in microseconds
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting rows and wait for queued rows to be written. Rows the
+     * worker has not taken within 10 seconds fail instead of waiting forever.
+     */
+    public void close() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<T> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(closed());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitWriter[" + name + "] queued=" + queue.size() +
+               " flushSize{" + flushSizes + "} latency{" + latencies + "}";
+    }
+}
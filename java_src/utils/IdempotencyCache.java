@@ -0,0 +1,190 @@
+package utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Idempotency Cache
+ * Remembers, for a bounded time window, which ID an idempotency key
+ * produced, so a client retrying a create gets the original row back
+ * instead of a duplicate. A key is looked up here first, then in the
+ * database through a caller-supplied lookup of the persisted key; only if
+ * both miss does the create run. Concurrent requests with the same key
+ * wait for the first one and share its outcome.
+ *
+ * Keys are scoped by the caller (e.g. prefixed with the user ID), and each
+ * request carries a fingerprint of what it creates. Reusing a key for a
+ * different request is rejected with IllegalArgumentException instead of
+ * replaying the ID the key produced for the first one.
+ *
+ * Only successes are remembered: a failed create (sold out, database
+ * error) may be retried with the same key. Keys are evicted oldest first
+ * once they leave the window or the cache is full; the persisted key and
+ * its unique index still catch retries after that.
+ */
+public class IdempotencyCache {
+
+    // Width of the idempotency_key columns
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long createdAt;
+        final CompletableFuture<Integer> outcome = new CompletableFuture<>();
+
+        Entry(String key, String fingerprint, long createdAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final String name;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Insertion order, which is also expiry order
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder memoryReplays = new LongAdder();
+    private final LongAdder persistedReplays = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    /**
+     * Create a cache sized from -Didempotency.&lt;name&gt;.windowSeconds and -Didempotency.&lt;name&gt;.maxKeys
+     */
+    public static IdempotencyCache fromSystemProperties(String name) {
+        return new IdempotencyCache(name,
+                Long.getLong("idempotency." + name + ".windowSeconds", 600),
+                Integer.getInteger("idempotency." + name + ".maxKeys", 100_000));
+    }
+
+    /**
+     * Check a client-chosen key before it is used or stored
+     * @throws IllegalArgumentException if the key is empty or longer than MAX_KEY_LENGTH
+     */
+    public static void validateKey(String key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Idempotency key must not be empty");
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is longer than " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Money amount for fingerprints and replay checks, in whole cents: the
+     * request's amount is an unrounded product (999.99 * 3 = 2999.9700000000003)
+     * while the stored one comes back rounded from a DECIMAL(12,2) column
+     */
+    public static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public IdempotencyCache(String name, long windowSeconds, int maxKeys) {
+        this.name = name;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.maxKeys = Math.max(1, maxKeys);
+    }
+
+    /**
+     * Run a create at most once per key
+     * @param key Idempotency key, scoped by the caller
+     * @param fingerprint What the request creates; a replay must match it
+     * @param persisted Looks the key up in the database: the ID it produced, or 0 / -1 if none.
+     *                  Throws IllegalArgumentException if the persisted row does not match the request
+     * @param create Performs the create: the new ID, or 0 / -1 on failure
+     * @return ID the key produced, by this call or an earlier one; -1 if the create failed
+     * @throws IllegalArgumentException if the key was already used for a different request
+     */
+    public int execute(String key, String fingerprint, IntSupplier persisted, IntSupplier create) {
+        long now = System.nanoTime();
+        Entry mine = new Entry(key, fingerprint, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                break;
+            }
+            if (now - existing.createdAt >= windowNanos) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different request");
+            }
+            int id = existing.outcome.join();
+            if (id > 0) {
+                memoryReplays.increment();
+                return id;
+            }
+            // The earlier attempt failed and dropped its entry; try ourselves
+            entries.remove(key, existing);
+        }
+        order.add(mine);
+        evict(now);
+
+        int id = -1;
+        try {
+            id = persisted.getAsInt();
+            if (id > 0) {
+                persistedReplays.increment();
+                return id;
+            }
+            executions.increment();
+            id = create.getAsInt();
+            if (id <= 0) {
+                // Another instance may have committed the same key first and made our insert fail
+                id = persisted.getAsInt();
+                if (id > 0) {
+                    persistedReplays.increment();
+                }
+            }
+            return id > 0 ? id : -1;
+        } finally {
+            if (id <= 0) {
+                entries.remove(key, mine);
+            }
+            mine.outcome.complete(id);
+        }
+    }
+
+    /**
+     * Drop keys that left the window, then the oldest while over capacity
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = order.peek()) != null
+                && (now - head.createdAt >= windowNanos || entries.size() > maxKeys)) {
+            if (order.remove(head)) {
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getMemoryReplays() {
+        return memoryReplays.sum();
+    }
+
+    public long getPersistedReplays() {
+        return persistedReplays.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IdempotencyCache[%s] keys=%d/%d memoryReplays=%d persistedReplays=%d executions=%d",
+                name, size(), maxKeys, getMemoryReplays(), getPersistedReplays(), getExecutions());
+    }
+}
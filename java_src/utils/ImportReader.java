@@ -0,0 +1,326 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import Reader
+ * Splits a CSV or NDJSON stream into records, the reverse of ExportWriter.
+ * Only record boundaries are found here, which is a cheap scan for line
+ * breaks outside quotes; turning a record into fields is left to
+ * parseCsv/parseJson so it can run on other threads. Characters are read
+ * through a fixed-size buffer, so memory use does not grow with the file.
+ */
+public class ImportReader implements Closeable {
+
+    private static final int MAX_RECORD_CHARS = Integer.getInteger("import.maxRecordChars", 1 << 20);
+
+    /**
+     * One unparsed record and the line it starts on
+     */
+    public static final class Record {
+        private final long line;
+        private final String text;
+
+        Record(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final Reader in;
+    private final ExportWriter.Format format;
+    private final char[] buffer = new char[64 * 1024];
+    private final StringBuilder record = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    public ImportReader(Reader in, ExportWriter.Format format) {
+        this.in = in;
+        this.format = format;
+    }
+
+    /**
+     * Read the next record, skipping blank lines
+     * @return Record, or null at the end of the stream
+     * @throws IOException if reading fails or a record exceeds import.maxRecordChars,
+     *         which usually means an unbalanced quote
+     */
+    public Record next() throws IOException {
+        while (true) {
+            record.setLength(0);
+            long start = line;
+            boolean quoted = false;
+            boolean escaped = false;
+            boolean ended = false;
+
+            while (!ended) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (record.length() == 0) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                char c = buffer[position++];
+                if (c == '\n') {
+                    line++;
+                    if (!quoted) {
+                        ended = true;
+                        continue;
+                    }
+                }
+                if (format == ExportWriter.Format.CSV) {
+                    // Doubled quotes inside a quoted field toggle twice, which is harmless
+                    if (c == '"') {
+                        quoted = !quoted;
+                    }
+                } else if (quoted) {
+                    // Inside a JSON string: watch for escapes and the closing quote
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                }
+                if (record.length() >= MAX_RECORD_CHARS) {
+                    throw new IOException("Record starting at line " + start + " is longer than " +
+                                          MAX_RECORD_CHARS + " characters");
+                }
+                record.append(c);
+            }
+
+            int end = record.length();
+            if (end > 0 && record.charAt(end - 1) == '\r') {
+                record.setLength(end - 1);
+            }
+            String text = record.toString();
+            if (!text.trim().isEmpty()) {
+                return new Record(start, text);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Split an RFC 4180 CSV record into fields
+     * @param text Record text without the line break
+     * @return Fields; an empty unquoted field is null
+     * @throws IllegalArgumentException if a quoted field is not closed properly
+     */
+    public static String[] parseCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            boolean wasQuoted = false;
+            if (i < text.length() && text.charAt(i) == '"') {
+                wasQuoted = true;
+                i++;
+                while (true) {
+                    if (i >= text.length()) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                    char c = text.charAt(i++);
+                    if (c == '"') {
+                        if (i < text.length() && text.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < text.length() && text.charAt(i) != ',') {
+                    throw new IllegalArgumentException("unexpected character after quoted field at column " + (i + 1));
+                }
+            } else {
+                while (i < text.length() && text.charAt(i) != ',') {
+                    field.append(text.charAt(i++));
+                }
+            }
+            fields.add(wasQuoted || field.length() > 0 ? field.toString() : null);
+            if (i >= text.length()) {
+                return fields.toArray(new String[0]);
+            }
+            i++; // the comma
+        }
+    }
+
+    /**
+     * Parse a flat JSON object; nested objects and arrays are rejected
+     * @param text One NDJSON line
+     * @return Keys in document order mapped to their values as text; JSON null maps to null
+     * @throws IllegalArgumentException if the line is not a flat JSON object
+     */
+    public static Map<String, String> parseJson(String text) {
+        return new JsonObjectParser(text).parse();
+    }
+
+    private static final class JsonObjectParser {
+        private final String text;
+        private int i;
+
+        JsonObjectParser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parse() {
+            Map<String, String> values = new LinkedHashMap<>();
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                i++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    String key = string();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    values.put(key, value());
+                    skipWhitespace();
+                    char c = next();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw error("expected ',' or '}'");
+                    }
+                }
+            }
+            skipWhitespace();
+            if (i < text.length()) {
+                throw error("unexpected text after object");
+            }
+            return values;
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested values are not supported");
+            }
+            int start = i;
+            while (i < text.length() && ",}] \t\r\n".indexOf(text.charAt(i)) < 0) {
+                i++;
+            }
+            String literal = text.substring(start, i);
+            if ("null".equals(literal)) {
+                return null;
+            }
+            if ("true".equals(literal) || "false".equals(literal)) {
+                return literal;
+            }
+            try {
+                Double.parseDouble(literal);
+                return literal;
+            } catch (NumberFormatException e) {
+                i = start;
+                throw error("invalid value '" + literal + "'");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                char escape = next();
+                switch (escape) {
+                    case '"':  out.append('"'); break;
+                    case '\\': out.append('\\'); break;
+                    case '/':  out.append('/'); break;
+                    case 'b':  out.append('\b'); break;
+                    case 'f':  out.append('\f'); break;
+                    case 'n':  out.append('\n'); break;
+                    case 'r':  out.append('\r'); break;
+                    case 't':  out.append('\t'); break;
+                    case 'u':
+                        if (i + 4 > text.length()) {
+                            throw error("truncated \\u escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("invalid \\u escape");
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        throw error("invalid escape '\\" + escape + "'");
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+        }
+
+        private char peek() {
+            if (i >= text.length()) {
+                throw error("unexpected end of line");
+            }
+            return text.charAt(i);
+        }
+
+        private char next() {
+            char c = peek();
+            i++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                i--;
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (i + 1));
+        }
+    }
+}
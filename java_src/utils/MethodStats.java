@@ -0,0 +1,117 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Method Stats
+ * Call count, error count and latency histogram for one instrumented
+ * method. Obtained from Metrics.start(), which times a single call:
+ *
+ *   try (MethodStats.Sample sample = Metrics.start("EventDAO.getEventById")) {
+ *       ...
+ *       catch (SQLException e) { sample.fail(); ... }
+ *   }
+ */
+public class MethodStats implements MethodStatsMBean {
+
+    private final String method;
+    private final Histogram latency = new Histogram("us");
+    private final LongAdder errors = new LongAdder();
+
+    MethodStats(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Start timing one call
+     * @return Sample to close when the call returns
+     */
+    public Sample start() {
+        return new Sample(this, System.nanoTime());
+    }
+
+    void record(long elapsedNanos, boolean failed) {
+        latency.record(elapsedNanos / 1000);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.getPercentile(50);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.getPercentile(99);
+    }
+
+    @Override
+    public long getP999Micros() {
+        return latency.getPercentile(99.9);
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.getMax();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+    }
+
+    @Override
+    public String toString() {
+        return method + " errors=" + getErrorCount() + " " + latency;
+    }
+
+    /**
+     * One timed call; recorded when closed
+     */
+    public static final class Sample implements AutoCloseable {
+
+        private final MethodStats stats;
+        private final long startNanos;
+        private boolean failed;
+
+        Sample(MethodStats stats, long startNanos) {
+            this.stats = stats;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Count this call as an error
+         */
+        public void fail() {
+            failed = true;
+        }
+
+        @Override
+        public void close() {
+            stats.record(System.nanoTime() - startNanos, failed);
+        }
+    }
+}
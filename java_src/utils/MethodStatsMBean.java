@@ -0,0 +1,25 @@
+package utils;
+
+/**
+ * JMX view of one method's MethodStats. Latencies are in microseconds.
+ */
+public interface MethodStatsMBean {
+
+    String getMethod();
+
+    long getCount();
+
+    long getErrorCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    void reset();
+}
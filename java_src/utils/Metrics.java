@@ -0,0 +1,175 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Metrics
+ * Registry of per-method call statistics for the DAO and service layer.
+ * Each method is registered on first call as a JMX MBean, e.g.
+ * eventflow:type=MethodStats,class="EventDAO",method="getEventById", so it
+ * shows up in JConsole or VisualVM. dump() renders every method in the
+ * Prometheus text format; with -Dmetrics.httpPort set the same text is
+ * served at http://host:port/metrics for scraping.
+ */
+public class Metrics {
+
+    private static final String JMX_DOMAIN = "eventflow";
+    private static final int HTTP_PORT = Integer.getInteger("metrics.httpPort", 0);
+
+    private static final ConcurrentHashMap<String, MethodStats> METHODS = new ConcurrentHashMap<>();
+
+    static {
+        if (HTTP_PORT > 0) {
+            startHttpEndpoint(HTTP_PORT);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Start timing a call
+     * @param method Class and method name, e.g. "EventDAO.getEventById"
+     * @return Sample to close when the call returns
+     */
+    public static MethodStats.Sample start(String method) {
+        return get(method).start();
+    }
+
+    /**
+     * Time a call whose body never fails on its own; only an exception
+     * escaping it counts as an error. Methods that report failures through
+     * Sample.fail() use start() in a try-with-resources instead.
+     * @param method Class and method name, e.g. "EventDAO.getEventById"
+     * @param body Method body
+     * @return Result of the body
+     */
+    public static <T> T time(String method, Supplier<T> body) {
+        try (MethodStats.Sample sample = start(method)) {
+            try {
+                return body.get();
+            } catch (RuntimeException | Error e) {
+                sample.fail();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Get the stats of a method, registering it if this is its first call
+     * @param method Class and method name
+     * @return MethodStats
+     */
+    public static MethodStats get(String method) {
+        MethodStats stats = METHODS.get(method);
+        if (stats == null) {
+            stats = METHODS.computeIfAbsent(method, Metrics::register);
+        }
+        return stats;
+    }
+
+    private static MethodStats register(String method) {
+        MethodStats stats = new MethodStats(method);
+        int dot = method.indexOf('.');
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=MethodStats,class=" +
+                    ObjectName.quote(dot < 0 ? "" : method.substring(0, dot)) + ",method=" +
+                    ObjectName.quote(method.substring(dot + 1)));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean for " + method + ": " + e.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Snapshot of every registered method, slowest p99 first
+     */
+    public static List<MethodStats> getAll() {
+        List<MethodStats> all = new ArrayList<>(METHODS.values());
+        all.sort(Comparator.comparingLong(MethodStats::getP99Micros).reversed());
+        return all;
+    }
+
+    /**
+     * Render all method stats in the Prometheus text exposition format
+     * @return Text dump, slowest p99 first
+     */
+    public static String dump() {
+        List<MethodStats> all = getAll();
+        StringBuilder out = new StringBuilder();
+
+        // Prometheus wants each metric family's lines together
+        out.append("# TYPE eventflow_method_calls_total counter\n");
+        for (MethodStats stats : all) {
+            line(out, "eventflow_method_calls_total", label(stats), stats.getCount());
+        }
+        out.append("# TYPE eventflow_method_errors_total counter\n");
+        for (MethodStats stats : all) {
+            line(out, "eventflow_method_errors_total", label(stats), stats.getErrorCount());
+        }
+        out.append("# TYPE eventflow_method_latency_us summary\n");
+        for (MethodStats stats : all) {
+            String label = label(stats);
+            line(out, "eventflow_method_latency_us", label + ",quantile=\"0.5\"", stats.getP50Micros());
+            line(out, "eventflow_method_latency_us", label + ",quantile=\"0.99\"", stats.getP99Micros());
+            line(out, "eventflow_method_latency_us", label + ",quantile=\"0.999\"", stats.getP999Micros());
+            line(out, "eventflow_method_latency_us", label + ",quantile=\"1\"", stats.getMaxMicros());
+            line(out, "eventflow_method_latency_us_sum", label, Math.round(stats.getMeanMicros() * stats.getCount()));
+            line(out, "eventflow_method_latency_us_count", label, stats.getCount());
+        }
+        return out.toString();
+    }
+
+    private static String label(MethodStats stats) {
+        return "method=\"" + stats.getMethod() + "\"";
+    }
+
+    private static void line(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    /**
+     * Clear every method's counters
+     */
+    public static void reset() {
+        for (MethodStats stats : METHODS.values()) {
+            stats.reset();
+        }
+    }
+
+    private static void startHttpEndpoint(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = dump().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            server.start();
+            System.out.println("✓ Metrics available at http://localhost:" + port + "/metrics");
+        } catch (IOException e) {
+            System.err.println("Error starting metrics endpoint: " + e.getMessage());
+        }
+    }
+}
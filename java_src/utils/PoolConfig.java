@@ -0,0 +1,169 @@
+package utils;
+
+/**
+ * Connection Pool Configuration
+ * Sizing, timeout and housekeeping settings for ConnectionPool.
+ * Every value can be overridden with a -Ddb.pool.* system property.
+ */
+public class PoolConfig {
+
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long borrowTimeoutMs = 5000;
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 2;
+    private long idleTimeoutMs = 5 * 60 * 1000;
+    private long leakDetectionThresholdMs = 30 * 1000;
+    private boolean leakTracing = false;
+    private long housekeepingIntervalMs = 30 * 1000;
+    private int statementCacheSize = 64;
+
+    /**
+     * Build a configuration from system properties, falling back to the defaults
+     * @return PoolConfig
+     */
+    public static PoolConfig fromSystemProperties() {
+        PoolConfig config = new PoolConfig();
+        config.setMinSize(Integer.getInteger("db.pool.minSize", config.minSize));
+        config.setMaxSize(Integer.getInteger("db.pool.maxSize", config.maxSize));
+        config.setBorrowTimeoutMs(Long.getLong("db.pool.borrowTimeoutMs", config.borrowTimeoutMs));
+        config.setValidateOnBorrow(Boolean.parseBoolean(
+            System.getProperty("db.pool.validateOnBorrow", String.valueOf(config.validateOnBorrow))));
+        config.setValidationTimeoutSeconds(Integer.getInteger("db.pool.validationTimeoutSeconds", config.validationTimeoutSeconds));
+        config.setIdleTimeoutMs(Long.getLong("db.pool.idleTimeoutMs", config.idleTimeoutMs));
+        config.setLeakDetectionThresholdMs(Long.getLong("db.pool.leakDetectionThresholdMs", config.leakDetectionThresholdMs));
+        config.setLeakTracing(Boolean.getBoolean("db.pool.leakTracing"));
+        config.setHousekeepingIntervalMs(Long.getLong("db.pool.housekeepingIntervalMs", config.housekeepingIntervalMs));
+        config.setStatementCacheSize(Integer.getInteger("db.pool.statementCacheSize", config.statementCacheSize));
+        config.validate();
+        return config;
+    }
+
+    /**
+     * Check the settings that depend on each other
+     * @throws IllegalArgumentException if maxSize is not positive or minSize exceeds maxSize
+     */
+    public void validate() {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        }
+        if (minSize > maxSize) {
+            throw new IllegalArgumentException("minSize (" + minSize + ") must not exceed maxSize (" + maxSize + ")");
+        }
+    }
+
+    // Getters and Setters
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("minSize must be >= 0");
+        }
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public long getBorrowTimeoutMs() {
+        return borrowTimeoutMs;
+    }
+
+    public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+        this.borrowTimeoutMs = borrowTimeoutMs;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getLeakDetectionThresholdMs() {
+        return leakDetectionThresholdMs;
+    }
+
+    /**
+     * @param leakDetectionThresholdMs Hold time after which a borrow is reported as a leak; 0 disables
+     */
+    public void setLeakDetectionThresholdMs(long leakDetectionThresholdMs) {
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+    }
+
+    public boolean isLeakTracing() {
+        return leakTracing;
+    }
+
+    /**
+     * @param leakTracing Record where each connection was borrowed, so a leak report
+     *                    can print the stack; costs a stack capture per borrow
+     */
+    public void setLeakTracing(boolean leakTracing) {
+        this.leakTracing = leakTracing;
+    }
+
+    public long getHousekeepingIntervalMs() {
+        return housekeepingIntervalMs;
+    }
+
+    public void setHousekeepingIntervalMs(long housekeepingIntervalMs) {
+        this.housekeepingIntervalMs = housekeepingIntervalMs;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @param statementCacheSize Prepared statements cached per connection; 0 disables the cache
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must be >= 0");
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolConfig{" +
+                "minSize=" + minSize +
+                ", maxSize=" + maxSize +
+                ", borrowTimeoutMs=" + borrowTimeoutMs +
+                ", validateOnBorrow=" + validateOnBorrow +
+                ", idleTimeoutMs=" + idleTimeoutMs +
+                ", leakDetectionThresholdMs=" + leakDetectionThresholdMs +
+                ", leakTracing=" + leakTracing +
+                ", statementCacheSize=" + statementCacheSize +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package utils;
+
+/**
+ * Connection Pool Statistics
+ * Point-in-time snapshot of ConnectionPool metrics
+ */
+public class PoolStats {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long totalWaitMicros;
+    private final long maxWaitMicros;
+    private final long createdCount;
+    private final long evictedCount;
+    private final long leakCount;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolStats(int activeConnections, int idleConnections, int totalConnections, int waitingThreads,
+                     long borrowCount, long timeoutCount, long totalWaitMicros, long maxWaitMicros,
+                     long createdCount, long evictedCount, long leakCount,
+                     long statementCacheHits, long statementCacheMisses) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitMicros = totalWaitMicros;
+        this.maxWaitMicros = maxWaitMicros;
+        this.createdCount = createdCount;
+        this.evictedCount = evictedCount;
+        this.leakCount = leakCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    // Getters
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getTotalWaitMicros() {
+        return totalWaitMicros;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    /**
+     * Average time a borrow spent waiting for a free slot
+     * @return Average wait in microseconds
+     */
+    public long getAverageWaitMicros() {
+        return borrowCount == 0 ? 0 : totalWaitMicros / borrowCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public double getStatementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", total=" + totalConnections +
+                ", waiting=" + waitingThreads +
+                ", borrows=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", avgWaitMicros=" + getAverageWaitMicros() +
+                ", maxWaitMicros=" + maxWaitMicros +
+                ", created=" + createdCount +
+                ", evicted=" + evictedCount +
+                ", leaks=" + leakCount +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                '}';
+    }
+}
@@ -0,0 +1,515 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Query Tracer
+ * Wraps a JDBC connection so every statement execution is timed and
+ * aggregated by SQL template: executions, errors, rows, bind parameters
+ * and a latency histogram per statement. Executions slower than a
+ * threshold are written to a slow-query log by a background thread, so
+ * the query path never waits on log I/O; if the log falls more than
+ * db.trace.slowQueryQueue lines behind, further lines are dropped and
+ * counted.
+ *
+ * DBConnection wraps every connection it hands out while tracing is on.
+ * The cost is one proxy hop per JDBC call and a few counter updates per
+ * execution, so it is meant to stay on in production.
+ *
+ * Settings (system properties):
+ *   db.trace.enabled        Trace DBConnection connections (default true)
+ *   db.trace.slowQueryMs    Slow-query threshold in ms (default 200, 0 logs every execution)
+ *   db.trace.slowQueryLog   File to append slow queries to (default: standard error)
+ *   db.trace.slowQueryQueue Slow-query lines waiting to be written before more are dropped (default 10000)
+ *   db.trace.maxStatements  Distinct statements tracked before the rest are grouped (default 1000)
+ */
+public class QueryTracer {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("db.trace.enabled", "true"));
+    private static final long SLOW_QUERY_NANOS =
+            Long.getLong("db.trace.slowQueryMs", 200) * 1_000_000L;
+    private static final String SLOW_QUERY_LOG = System.getProperty("db.trace.slowQueryLog");
+    private static final int SLOW_QUERY_QUEUE = Integer.getInteger("db.trace.slowQueryQueue", 10_000);
+    private static final int MAX_STATEMENTS = Integer.getInteger("db.trace.maxStatements", 1000);
+
+    private static final String OVERFLOW_SQL = "(other statements)";
+
+    // Literals in ad-hoc Statement SQL, so "WHERE id = 5" and "WHERE id = 6" share an entry
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final ConcurrentHashMap<String, StatementStats> STATEMENTS = new ConcurrentHashMap<>();
+    private static final LongAdder SLOW_QUERIES = new LongAdder();
+    private static final LongAdder DROPPED_SLOW_QUERIES = new LongAdder();
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private QueryTracer() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Wrap a connection so its statements are traced
+     * @param connection Connection to wrap; closing the wrapper closes it
+     * @return Traced connection
+     */
+    public static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ConnectionTracer(connection));
+    }
+
+    /**
+     * Aggregated statistics for one SQL template
+     */
+    public static class StatementStats {
+        private final String sql;
+        private final int parameterCount;
+        private final Histogram latency = new Histogram("us");
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        StatementStats(String sql) {
+            this.sql = sql;
+            this.parameterCount = countParameters(sql);
+        }
+
+        void record(long elapsedNanos, long rowCount, boolean failed) {
+            latency.record(elapsedNanos / 1000);
+            totalNanos.add(elapsedNanos);
+            rows.add(rowCount);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public int getParameterCount() {
+            return parameterCount;
+        }
+
+        public long getExecutions() {
+            return latency.getCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        public Histogram getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Get the statements that cost the most in total
+     * @param limit Maximum number of statements
+     * @return Statements by total execution time, highest first
+     */
+    public static List<StatementStats> getTopStatements(int limit) {
+        return getTopStatements(limit, Comparator.comparingDouble(StatementStats::getTotalMillis));
+    }
+
+    /**
+     * Get the top statements by any measure, e.g. by p99 latency
+     * @param limit Maximum number of statements
+     * @param order Measure to rank by; the highest come first
+     * @return Ranked statements
+     */
+    public static List<StatementStats> getTopStatements(int limit, Comparator<StatementStats> order) {
+        List<StatementStats> all = new ArrayList<>(STATEMENTS.values());
+        all.sort(order.reversed());
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    public static long getSlowQueryCount() {
+        return SLOW_QUERIES.sum();
+    }
+
+    /**
+     * Slow queries counted but not logged because the log writer fell behind
+     */
+    public static long getDroppedSlowQueryCount() {
+        return DROPPED_SLOW_QUERIES.sum();
+    }
+
+    /**
+     * Render the top statements as a text table
+     * @param limit Maximum number of statements
+     * @return Report, highest total time first
+     */
+    public static String getReport(int limit) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%10s %8s %12s %10s %10s %10s %10s %6s  %s%n",
+                "execs", "errors", "total ms", "mean us", "p99 us", "max us", "rows/exec", "params", "sql"));
+        for (StatementStats stats : getTopStatements(limit)) {
+            long executions = Math.max(1, stats.getExecutions());
+            out.append(String.format("%10d %8d %12.1f %10.1f %10d %10d %10.1f %6d  %s%n",
+                    stats.getExecutions(), stats.getErrors(), stats.getTotalMillis(),
+                    stats.latency.getMean(), stats.latency.getPercentile(99), stats.latency.getMax(),
+                    (double) stats.getRows() / executions, stats.getParameterCount(), abbreviate(stats.getSql())));
+        }
+        out.append("slow queries: ").append(getSlowQueryCount())
+           .append(" (not logged: ").append(getDroppedSlowQueryCount()).append(")\n");
+        return out.toString();
+    }
+
+    /**
+     * Clear all statement statistics
+     */
+    public static void reset() {
+        STATEMENTS.clear();
+        SLOW_QUERIES.reset();
+        DROPPED_SLOW_QUERIES.reset();
+    }
+
+    private static StatementStats statsFor(String sql) {
+        StatementStats stats = STATEMENTS.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        if (STATEMENTS.size() >= MAX_STATEMENTS) {
+            return STATEMENTS.computeIfAbsent(OVERFLOW_SQL, StatementStats::new);
+        }
+        return STATEMENTS.computeIfAbsent(sql, StatementStats::new);
+    }
+
+    private static void record(StatementStats stats, long elapsedNanos, long rowCount, boolean failed) {
+        stats.record(elapsedNanos, rowCount, failed);
+        if (elapsedNanos >= SLOW_QUERY_NANOS) {
+            SLOW_QUERIES.increment();
+            logSlowQuery(stats, elapsedNanos, rowCount, failed);
+        }
+    }
+
+    private static void logSlowQuery(StatementStats stats, long elapsedNanos, long rowCount, boolean failed) {
+        String line = String.format("%s [slow-query] %.1f ms rows=%d params=%d%s sql=%s",
+                TIMESTAMP.format(LocalDateTime.now()),
+                elapsedNanos / 1e6, rowCount, stats.getParameterCount(), failed ? " FAILED" : "", stats.getSql());
+        if (!SlowQueryLog.LINES.offer(line)) {
+            DROPPED_SLOW_QUERIES.increment();
+        }
+    }
+
+    /**
+     * Writes slow-query lines on one daemon thread, keeping the log open.
+     * Started on the first slow query.
+     */
+    private static final class SlowQueryLog {
+        static final BlockingQueue<String> LINES = new ArrayBlockingQueue<>(Math.max(1, SLOW_QUERY_QUEUE));
+
+        static {
+            Thread writer = new Thread(SlowQueryLog::run, "slow-query-log");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private static void run() {
+            PrintWriter out = open();
+            try {
+                while (true) {
+                    out.println(LINES.take());
+                    // Flush once the backlog is written, not per line
+                    String line;
+                    while ((line = LINES.poll()) != null) {
+                        out.println(line);
+                    }
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                out.flush();
+            }
+        }
+
+        private static PrintWriter open() {
+            if (SLOW_QUERY_LOG != null) {
+                try {
+                    return new PrintWriter(new BufferedWriter(new FileWriter(SLOW_QUERY_LOG, true)));
+                } catch (IOException e) {
+                    System.err.println("Cannot open slow-query log " + SLOW_QUERY_LOG + ", using standard error: " + e.getMessage());
+                }
+            }
+            return new PrintWriter(System.err);
+        }
+    }
+
+    private static int countParameters(String sql) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ");
+        return flat.length() <= 120 ? flat : flat.substring(0, 117) + "...";
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hands out traced statements; everything else goes straight to the connection
+     */
+    private static final class ConnectionTracer implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionTracer(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("prepareStatement".equals(name) || "prepareCall".equals(name)) {
+                Statement statement = (Statement) QueryTracer.invoke(target, method, args);
+                Class<?> type = "prepareCall".equals(name) ? CallableStatement.class : PreparedStatement.class;
+                return traced(statement, type, (Connection) proxy, statsFor((String) args[0]));
+            }
+            if ("createStatement".equals(name)) {
+                Statement statement = (Statement) QueryTracer.invoke(target, method, args);
+                return traced(statement, Statement.class, (Connection) proxy, null);
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "TracedConnection[" + target + "]";
+            }
+            return QueryTracer.invoke(target, method, args);
+        }
+
+        private static Object traced(Statement statement, Class<?> type, Connection connection, StatementStats stats) {
+            return Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                new StatementTracer(statement, connection, stats));
+        }
+    }
+
+    /**
+     * Times executions and counts the rows they return. A query is
+     * recorded once its rows have been read, i.e. when its result set or
+     * the statement is closed or the statement runs again.
+     */
+    private static final class StatementTracer implements InvocationHandler {
+
+        private final Statement target;
+        private final Connection connection;
+        private final StatementStats preparedStats; // null for a plain Statement
+
+        // Query waiting for its rows to be counted
+        private StatementStats pendingStats;
+        private long pendingNanos;
+        private long pendingRows;
+
+        StatementTracer(Statement target, Connection connection, StatementStats preparedStats) {
+            this.target = target;
+            this.connection = connection;
+            this.preparedStats = preparedStats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+            if ("getResultSet".equals(name)) {
+                ResultSet rs = (ResultSet) QueryTracer.invoke(target, method, args);
+                return rs == null ? null : tracedResultSet(rs, (Statement) proxy);
+            }
+            if ("close".equals(name)) {
+                finishPending();
+                return QueryTracer.invoke(target, method, args);
+            }
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "TracedStatement[" + target + "]";
+            }
+            return QueryTracer.invoke(target, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            finishPending();
+            // Statement.execute*(sql, ...) carries its SQL; PreparedStatement.execute*() does not
+            StatementStats stats = args != null && args.length > 0 && args[0] instanceof String
+                    ? statsFor(LITERALS.matcher((String) args[0]).replaceAll("?"))
+                    : preparedStats;
+            if (stats == null) {
+                return QueryTracer.invoke(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryTracer.invoke(target, method, args);
+            } catch (Throwable t) {
+                record(stats, System.nanoTime() - start, 0, true);
+                throw t;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                // Rows are counted as the caller reads them
+                pendingStats = stats;
+                pendingNanos = elapsed;
+                pendingRows = 0;
+                return tracedResultSet((ResultSet) result, (Statement) proxy);
+            }
+            if (result instanceof Boolean && (Boolean) result) {
+                // execute() produced a result set; it is read through getResultSet()
+                pendingStats = stats;
+                pendingNanos = elapsed;
+                pendingRows = 0;
+                return result;
+            }
+            record(stats, elapsed, updateCount(result), false);
+            return result;
+        }
+
+        private long updateCount(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return Math.max(0, ((Number) result).longValue());
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (result instanceof long[]) {
+                long total = 0;
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            return 0;
+        }
+
+        void rowRead() {
+            pendingRows++;
+        }
+
+        void finishPending() {
+            if (pendingStats != null) {
+                record(pendingStats, pendingNanos, pendingRows, false);
+                pendingStats = null;
+            }
+        }
+
+        private ResultSet tracedResultSet(ResultSet rs, Statement statement) {
+            return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                new ResultSetTracer(rs, statement, this));
+        }
+    }
+
+    /**
+     * Counts rows for the statement that produced the result set
+     */
+    private static final class ResultSetTracer implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Statement statement;
+        private final StatementTracer owner;
+
+        ResultSetTracer(ResultSet target, Statement statement, StatementTracer owner) {
+            this.target = target;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                Object hasRow = QueryTracer.invoke(target, method, args);
+                if ((Boolean) hasRow) {
+                    owner.rowRead();
+                }
+                return hasRow;
+            }
+            if ("close".equals(name)) {
+                owner.finishPending();
+                return QueryTracer.invoke(target, method, args);
+            }
+            if ("getStatement".equals(name)) {
+                return statement;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return QueryTracer.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement Cache
+ * Bounded LRU cache of prepared statements for one pooled connection,
+ * keyed by SQL text and whether generated keys were requested. Closing a
+ * statement handed out from the cache clears its parameters and keeps it
+ * for the next caller instead of closing it, so a hot query is parsed and
+ * prepared once per connection rather than once per call.
+ *
+ * A pooled connection is used by one borrower at a time, so the cache
+ * needs no locking.
+ */
+final class StatementCache {
+
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+    }
+
+    /**
+     * A physical statement plus its checkout state. The lease number
+     * changes on every release, so a handle kept past close() goes stale.
+     */
+    private final class CachedStatement {
+        final PreparedStatement physical;
+        final boolean cached;
+        boolean inUse;
+        boolean evicted;
+        int lease;
+
+        CachedStatement(PreparedStatement physical, boolean cached) {
+            this.physical = physical;
+            this.cached = cached;
+        }
+
+        PreparedStatement checkout(Connection handle) {
+            inUse = true;
+            checkedOut++;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandle(this, lease, handle));
+        }
+
+        void release(int heldLease) throws SQLException {
+            if (!inUse || heldLease != lease) {
+                return;
+            }
+            lease++;
+            inUse = false;
+            checkedOut--;
+            if (!cached || evicted) {
+                physical.close();
+                return;
+            }
+            ResultSet open = physical.getResultSet();
+            if (open != null) {
+                open.close();
+            }
+            physical.clearParameters();
+            physical.clearBatch();
+            if (physical.getQueryTimeout() != 0) {
+                physical.setQueryTimeout(0);
+            }
+        }
+    }
+
+    private final Connection physical;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Key, CachedStatement> statements;
+    private int checkedOut;
+
+    StatementCache(Connection physical, final int capacity, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<Key, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                CachedStatement victim = eldest.getValue();
+                if (victim.inUse) {
+                    victim.evicted = true;
+                } else {
+                    closeQuietly(victim.physical);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement for the borrower of this connection
+     * @param handle Pooled connection handle, returned by getConnection()
+     * @param sql SQL text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or NO_GENERATED_KEYS
+     */
+    PreparedStatement prepare(Connection handle, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        CachedStatement entry = statements.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.increment();
+            return entry.checkout(handle);
+        }
+        misses.increment();
+        PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // The cached copy is already open further up the call stack
+            return new CachedStatement(statement, false).checkout(handle);
+        }
+        entry = new CachedStatement(statement, true);
+        statements.put(key, entry);
+        return entry.checkout(handle);
+    }
+
+    /**
+     * Take back statements the borrower did not close before returning the connection
+     */
+    void releaseAll() {
+        if (checkedOut == 0) {
+            return;
+        }
+        for (Map.Entry<Key, CachedStatement> e : new ArrayList<>(statements.entrySet())) {
+            CachedStatement entry = e.getValue();
+            if (!entry.inUse) {
+                continue;
+            }
+            try {
+                entry.release(entry.lease);
+            } catch (SQLException ex) {
+                // Drop a statement that could not be reset rather than reuse it
+                statements.remove(e.getKey());
+                closeQuietly(entry.physical);
+            }
+        }
+        checkedOut = 0;
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The connection is usually being discarded anyway
+        }
+    }
+
+    /**
+     * Routes calls to the physical statement until close(), which hands it back to the cache
+     */
+    private static final class StatementHandle implements InvocationHandler {
+
+        private final CachedStatement entry;
+        private final int lease;
+        private final Connection handle;
+
+        StatementHandle(CachedStatement entry, int lease, Connection handle) {
+            this.entry = entry;
+            this.lease = lease;
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                entry.release(lease);
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return entry.lease != lease || entry.physical.isClosed();
+            }
+            if ("getConnection".equals(name)) {
+                return handle;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "CachedStatement[" + entry.physical + "]";
+            }
+            if (entry.lease != lease) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Task Executors
+ * Executors for short blocking tasks such as independent JDBC queries.
+ * On a JVM with virtual threads (Java 21+) each task gets its own virtual
+ * thread; on older JVMs a small pool of daemon platform threads is used
+ * instead. Either way the connection pool bounds how many queries actually
+ * run at once.
+ */
+public class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Create an executor for blocking tasks
+     * @param name Thread name prefix, used for the platform thread fallback
+     * @param fallbackThreads Pool size when virtual threads are not available
+     * @return ExecutorService
+     */
+    public static ExecutorService newBlockingTaskExecutor(String name, int fallbackThreads) {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, fallbackThreads), r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Looked up reflectively so the code still compiles and runs on Java 8
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
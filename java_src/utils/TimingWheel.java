@@ -0,0 +1,194 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Timing Wheel
+ * Hashed timing wheel for large numbers of timeouts that are mostly
+ * cancelled before they fire, such as seat holds. Time is divided into
+ * ticks; a timeout goes into the bucket of its deadline tick modulo the
+ * wheel size, in a doubly linked list, so scheduling and cancelling are
+ * O(1) however many timeouts are outstanding. A daemon thread advances
+ * one tick at a time and visits only that tick's bucket; entries whose
+ * deadline is a later lap of the wheel stay where they are.
+ *
+ * Everything that expires on one tick is handed to the callback as one
+ * list, on the wheel thread, so the callback can act on them in bulk.
+ * Timeouts fire up to one tick late, never early.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * A scheduled timeout
+     */
+    public final class Timeout {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private boolean scheduled = true;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancel the timeout
+         * @return true if it was still pending, false if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (!scheduled) {
+                    return false;
+                }
+                unlink(this);
+                return true;
+            }
+        }
+    }
+
+    private final Timeout[] buckets;
+    private final int mask;
+    private final long tickNanos;
+    private final long startNanos;
+    private final Consumer<List<T>> onExpired;
+    private final Thread worker;
+
+    // Guarded by this
+    private long tick;
+    private int size;
+
+    private volatile boolean running = true;
+
+    /**
+     * Create a wheel and start its thread
+     * @param name Thread name
+     * @param tickDuration Length of one tick; the timer's resolution
+     * @param unit Unit of tickDuration
+     * @param wheelSize Buckets, rounded up to a power of two; ideally covers the usual delay
+     * @param onExpired Receives the items that expired on each tick
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<List<T>> onExpired) {
+        int buckets = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.buckets = (Timeout[]) new TimingWheel<?>.Timeout[buckets];
+        this.mask = buckets - 1;
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.startNanos = System.nanoTime();
+        this.onExpired = onExpired;
+
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedule an item to expire after a delay
+     * @param item Item handed to the callback when the timeout fires
+     * @param delay Delay; zero or negative fires on the next tick
+     * @param unit Unit of delay
+     * @return Timeout, which can be cancelled
+     */
+    public Timeout schedule(T item, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startNanos;
+        long deadlineTick = (deadline + tickNanos - 1) / tickNanos;
+        synchronized (this) {
+            Timeout timeout = new Timeout(item, Math.max(deadlineTick, tick + 1));
+            int index = (int) (timeout.deadlineTick & mask);
+            Timeout head = buckets[index];
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            buckets[index] = timeout;
+            size++;
+            return timeout;
+        }
+    }
+
+    /**
+     * Number of timeouts waiting to fire
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stop the wheel thread; pending timeouts never fire
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    // Caller holds the lock
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+
+    private void run() {
+        while (running) {
+            long nextTick;
+            synchronized (this) {
+                nextTick = tick + 1;
+            }
+            long sleepNanos = startNanos + nextTick * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            List<T> expired = new ArrayList<>();
+            synchronized (this) {
+                tick = nextTick;
+                Timeout timeout = buckets[(int) (tick & mask)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= tick) {
+                        unlink(timeout);
+                        expired.add(timeout.item);
+                    }
+                    timeout = next;
+                }
+            }
+            if (!expired.isEmpty()) {
+                try {
+                    onExpired.accept(expired);
+                } catch (RuntimeException e) {
+                    System.err.println("Timing wheel " + worker.getName() + " callback failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TimingWheel[%s: %d pending, %d buckets, tick=%d ms]",
+                worker.getName(), size, buckets.length, TimeUnit.NANOSECONDS.toMillis(tickNanos));
+    }
+}
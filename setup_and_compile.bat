@@ -47,29 +47,40 @@ REM Compile
 echo [5/5] Compiling Java files...
 
 echo Compiling model classes...
-javac model\*.java 2>nul
+javac -encoding UTF-8 -cp . model\*.java
+if errorlevel 1 goto compile_failed
 echo OK Model classes compiled
 
 echo Compiling utility classes...
-javac -cp . utils\DBConnection.java 2>nul
+javac -encoding UTF-8 -cp . utils\*.java
+if errorlevel 1 goto compile_failed
 echo OK Utility classes compiled
 
 echo Compiling DAO classes...
-javac -cp . dao\*.java 2>nul
+javac -encoding UTF-8 -cp . dao\*.java
+if errorlevel 1 goto compile_failed
 echo OK DAO classes compiled
 
 echo Compiling service classes...
-javac -cp . service\*.java 2>nul
+javac -encoding UTF-8 -cp . service\*.java
+if errorlevel 1 goto compile_failed
 echo OK Service classes compiled
 
 echo Compiling GUI classes...
-javac -cp . gui\*.java 2>nul
+javac -encoding UTF-8 -cp . gui\*.java
+if errorlevel 1 goto compile_failed
 echo OK GUI classes compiled
 
 echo Compiling Main application...
-javac -cp . Main.java 2>nul
+javac -encoding UTF-8 -cp . Main.java
+if errorlevel 1 goto compile_failed
 echo OK Main application compiled
 
+echo Compiling benchmark classes...
+javac -encoding UTF-8 -cp . bench\*.java
+if errorlevel 1 goto compile_failed
+echo OK Benchmark classes compiled
+
 echo.
 echo ======================================================
 echo OK Compilation completed successfully!
@@ -88,3 +99,9 @@ echo    Password: admin123
 echo.
 echo ======================================================
 pause
+exit /b 0
+
+:compile_failed
+echo X Compilation failed; see the javac errors above
+pause
+exit /b 1
@@ -53,25 +53,39 @@ fi
 
 echo ""
 
-# Compile Java files
+# Compile Java files; javac errors are shown and stop the script
+compile_step() {
+    local label="$1"
+    shift
+    if javac -encoding UTF-8 -cp . "$@"; then
+        echo "✓ $label compiled"
+    else
+        echo "✗ $label failed to compile"
+        exit 1
+    fi
+}
+
 echo "[5/5] Compiling Java files..."
 echo "Compiling model classes..."
-javac model/*.java 2>/dev/null && echo "✓ Model classes compiled"
+compile_step "Model classes" model/*.java
 
 echo "Compiling utility classes..."
-javac -cp . utils/DBConnection.java 2>/dev/null && echo "✓ Utility classes compiled"
+compile_step "Utility classes" utils/*.java
 
 echo "Compiling DAO classes..."
-javac -cp . dao/*.java 2>/dev/null && echo "✓ DAO classes compiled"
+compile_step "DAO classes" dao/*.java
 
 echo "Compiling service classes..."
-javac -cp . service/*.java 2>/dev/null && echo "✓ Service classes compiled"
+compile_step "Service classes" service/*.java
 
 echo "Compiling GUI classes..."
-javac -cp . gui/*.java 2>/dev/null && echo "✓ GUI classes compiled"
+compile_step "GUI classes" gui/*.java
 
 echo "Compiling Main application..."
-javac -cp . Main.java 2>/dev/null && echo "✓ Main application compiled"
+compile_step "Main application" Main.java
+
+echo "Compiling benchmark classes..."
+compile_step "Benchmark classes" bench/*.java
 
 echo ""
 echo "======================================================"